@@ -0,0 +1,73 @@
+package com.example.project.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caffeine cache regions, one per access pattern. Regions hold DTOs, serialized bodies or scalars, never entities.
+ * Each region is size-bounded (W-TinyLFU admission) with the TTL below, overridable with
+ * catalog.cache.specs.&lt;region&gt;=&lt;Caffeine spec&gt;. With catalog.cache.record-stats (on by default)
+ * actuator publishes cache.gets (hit/miss), cache.puts and cache.evictions per region.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCT_BY_ID = "product-by-id";
+    public static final String PRODUCT_EXISTS = "product-exists";
+    public static final String ACTIVE_PRODUCT_COUNT = "active-product-count";
+    public static final String PRODUCT_DETAILS = "product-details";
+    public static final String PRODUCT_DETAIL_RESPONSES = "product-detail-responses";
+    public static final String PRODUCT_LIST_RESPONSES = "product-list-responses";
+
+    /**
+     * Regions keyed by product id; a product write evicts just that id
+     */
+    public static final List<String> PRODUCT_ID_REGIONS = List.of(PRODUCT_BY_ID, PRODUCT_EXISTS, PRODUCT_DETAILS, PRODUCT_DETAIL_RESPONSES);
+
+    /**
+     * Regions holding listings or aggregates; any product write invalidates them wholesale
+     */
+    public static final List<String> PRODUCT_LIST_REGIONS = List.of(ACTIVE_PRODUCT_COUNT, PRODUCT_LIST_RESPONSES);
+
+    // The only place region specs are defined; properties override single regions
+    private static final Map<String, String> DEFAULT_SPECS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_SPECS.put(PRODUCT_BY_ID, "maximumSize=10000,expireAfterWrite=10m");
+        DEFAULT_SPECS.put(PRODUCT_EXISTS, "maximumSize=20000,expireAfterWrite=30m");
+        DEFAULT_SPECS.put(ACTIVE_PRODUCT_COUNT, "maximumSize=1,expireAfterWrite=5m");
+        DEFAULT_SPECS.put(PRODUCT_DETAILS, "maximumSize=5000,expireAfterWrite=30m");
+        DEFAULT_SPECS.put(PRODUCT_DETAIL_RESPONSES, "maximumSize=5000,expireAfterWrite=1h");
+        DEFAULT_SPECS.put(PRODUCT_LIST_RESPONSES, "maximumSize=500,expireAfterWrite=10m");
+    }
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        boolean recordStats = environment.getProperty("catalog.cache.record-stats", Boolean.class, true);
+        List<CaffeineCache> caches = new ArrayList<>();
+        for (Map.Entry<String, String> region : DEFAULT_SPECS.entrySet()) {
+            String spec = environment.getProperty("catalog.cache.specs." + region.getKey(), region.getValue());
+            Caffeine<Object, Object> builder = Caffeine.from(spec);
+            if (recordStats && !spec.contains("recordStats")) {
+                builder.recordStats();
+            }
+            caches.add(new CaffeineCache(region.getKey(), builder.build()));
+        }
+        // A static manager: a typo in a cache name fails fast instead of creating an unbounded region
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.project.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One-time move of the heavy text columns from products into product_content.
+ * Hibernate's schema update creates product_content and products.content_id but never drops columns, so on a
+ * database that still has products.description this copies every product's text into its own content row,
+ * in committed batches (a restart resumes where it stopped). Nodes starting together may copy the same batch;
+ * a product is only linked while it has no content row yet, and the losing copies are deleted.
+ * Dropping the old columns is destructive and only happens with catalog.migration.drop-legacy-product-columns,
+ * to be set on a single node once every node runs this version; until then they are made nullable, so inserts
+ * that no longer write them still succeed.
+ * Runs while the context starts, before the seeder, the search index build or any request.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ProductContentMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductContentMigration.class);
+
+    static final List<String> LEGACY_COLUMNS = List.of(
+            "description", "ai_generated_description", "tags", "ai_tags", "ai_embedding");
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String CONTENT_INSERT_SQL = "INSERT INTO product_content "
+            + "(description, ai_generated_description, tags, ai_tags, ai_embedding) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${catalog.migration.drop-legacy-product-columns:false}")
+    private boolean dropLegacyColumns;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        Map<String, Boolean> legacyNullable = legacyColumns();
+        Set<String> legacy = legacyNullable.keySet();
+        if (legacy.isEmpty()) {
+            return;
+        }
+        logger.info("Moving product columns {} to product_content", legacy);
+
+        // Columns already dropped by an interrupted run are read as NULL
+        StringBuilder select = new StringBuilder("SELECT id");
+        for (String column : LEGACY_COLUMNS) {
+            select.append(", ").append(legacy.contains(column) ? column : "NULL");
+        }
+        String batchSql = select.append(" FROM products WHERE content_id IS NULL AND id > ? ORDER BY id LIMIT ")
+                .append(BATCH_SIZE).toString();
+
+        long moved = 0;
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = jdbcTemplate.query(batchSql, (rs, rowNum) -> {
+                Object[] row = new Object[LEGACY_COLUMNS.size() + 1];
+                row[0] = rs.getLong(1);
+                for (int i = 1; i < row.length; i++) {
+                    row[i] = rs.getString(i + 1);
+                }
+                return row;
+            }, lastId);
+            if (!batch.isEmpty()) {
+                List<Object[]> rows = batch;
+                transactionTemplate.executeWithoutResult(status -> moveBatch(rows));
+                moved += batch.size();
+                lastId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (moved > 0) {
+            logger.info("Moved content of {} products to product_content", moved);
+        }
+        if (!dropLegacyColumns) {
+            // Product no longer writes them, so a NOT NULL left by the old @NotBlank would reject every insert.
+            // All legacy columns were mapped as TEXT
+            for (Map.Entry<String, Boolean> column : legacyNullable.entrySet()) {
+                if (!column.getValue()) {
+                    jdbcTemplate.execute("ALTER TABLE products MODIFY " + column.getKey() + " TEXT NULL");
+                    logger.info("Made legacy product column {} nullable", column.getKey());
+                }
+            }
+            logger.info("Keeping legacy product columns {}; set catalog.migration.drop-legacy-product-columns to drop them", legacy);
+            return;
+        }
+        for (String column : legacy) {
+            jdbcTemplate.execute("ALTER TABLE products DROP COLUMN " + column);
+        }
+        logger.info("Dropped legacy product columns {}", legacy);
+    }
+
+    private void moveBatch(List<Object[]> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(CONTENT_INSERT_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] row = rows.get(i);
+                        for (int c = 1; c < row.length; c++) {
+                            ps.setString(c, (String) row[c]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated content ids, got " + generated.size());
+        }
+        List<Object[]> links = new ArrayList<>(rows.size());
+        StringBuilder contentIds = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            long contentId = ((Number) generated.get(i).values().iterator().next()).longValue();
+            links.add(new Object[] { contentId, rows.get(i)[0] });
+            contentIds.append(i == 0 ? "" : ",").append(contentId);
+        }
+        // Another node may have linked some of these products since the batch was read
+        jdbcTemplate.batchUpdate("UPDATE products SET content_id = ? WHERE id = ? AND content_id IS NULL", links);
+        jdbcTemplate.update("DELETE FROM product_content WHERE id IN (" + contentIds + ") AND NOT EXISTS "
+                + "(SELECT 1 FROM products p WHERE p.content_id = product_content.id)");
+    }
+
+    // Legacy columns still present on products, lower-case, with whether each accepts NULL;
+    // empty once migrated or on a fresh schema
+    private Map<String, Boolean> legacyColumns() {
+        Map<String, Boolean> present = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "PRODUCTS" : "products";
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, null)) {
+                while (columns.next()) {
+                    String column = columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT);
+                    if (LEGACY_COLUMNS.contains(column)) {
+                        present.put(column, columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not inspect the products table", e);
+        }
+        return present;
+    }
+}
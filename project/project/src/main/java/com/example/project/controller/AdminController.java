@@ -1,15 +1,20 @@
 package com.example.project.controller;
 
+import com.example.project.dto.CursorPage;
 import com.example.project.dto.OrderDTO;
 import com.example.project.entity.Order;
 import com.example.project.entity.OrderStatus;
 import com.example.project.entity.OrderStatusHistory;
+import com.example.project.service.ExportService;
 import com.example.project.service.OrderService;
+import com.example.project.service.ReviewAggregateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
@@ -22,6 +27,12 @@ public class AdminController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ReviewAggregateService reviewAggregateService;
+
     /**
      * Get orders requiring approval
      */
@@ -57,6 +68,61 @@ public class AdminController {
         }
     }
 
+    /**
+     * Scroll through orders with a continuation cursor instead of page numbers
+     */
+    @GetMapping("/orders/scroll")
+    public ResponseEntity<CursorPage<OrderDTO>> scrollOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<Order> orders = orderService.scrollOrders(status, cursor, Math.min(Math.max(size, 1), 200));
+            return ResponseEntity.ok(orders.map(OrderDTO::from));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Export order history as NDJSON or CSV, streamed row by row (gzip=true for a .gz attachment)
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            ExportService.Format parsed = ExportService.Format.parse(format);
+            return ExportService.response("orders", parsed, gzip,
+                    out -> exportService.exportOrders(out, parsed, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Recompute every product's rating histogram, average and review count from product_reviews (recovery)
+     */
+    @PostMapping("/reviews/aggregates/rebuild")
+    public ResponseEntity<?> rebuildReviewAggregates() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reviewAggregateService.startRebuild());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of the last review aggregate rebuild
+     */
+    @GetMapping("/reviews/aggregates/rebuild")
+    public ResponseEntity<ReviewAggregateService.RebuildJob> getReviewAggregateRebuild() {
+        return reviewAggregateService.getLastRebuild()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Approve order
      */
@@ -0,0 +1,195 @@
+package com.example.project.controller;
+
+import com.example.project.dto.BulkProductUpdateRequest;
+import com.example.project.service.ExportService;
+import com.example.project.service.ProductBulkUpdateService;
+import com.example.project.service.ProductBulkUpdateService.BulkUpdateJob;
+import com.example.project.service.ProductImportService;
+import com.example.project.service.ProductImportService.ImportJob;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+/**
+ * Catalog-wide product operations: bulk updates, feed imports and the full export (inactive products and stock
+ * included). Kept under /api/admin, which requires authentication, unlike the public /api/products read endpoints.
+ */
+@RestController
+@RequestMapping("/api/admin/products")
+public class AdminProductController {
+
+    @Autowired
+    private ProductBulkUpdateService productBulkUpdateService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Update stock for all products; runs as a bulk job, poll the status URL for progress
+     */
+    @PostMapping("/update-stock")
+    public ResponseEntity<Map<String, Object>> updateAllStock(@RequestBody Map<String, Integer> request) {
+        try {
+            Integer stockQuantity = request.get("stockQuantity");
+            if (stockQuantity == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "stockQuantity is required"));
+            }
+            return accepted(productBulkUpdateService.updateAllStock(stockQuantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk update stock, price or active flag
+     */
+    @PostMapping("/bulk-update")
+    public ResponseEntity<Map<String, Object>> bulkUpdate(@RequestBody BulkProductUpdateRequest request) {
+        try {
+            return accepted(productBulkUpdateService.submit(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of a bulk update job
+     */
+    @GetMapping("/bulk-jobs/{jobId}")
+    public ResponseEntity<BulkUpdateJob> getBulkJob(@PathVariable String jobId) {
+        BulkUpdateJob job = productBulkUpdateService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Resume a failed bulk update job from its last committed chunk
+     */
+    @PostMapping("/bulk-jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeBulkJob(@PathVariable String jobId) {
+        try {
+            BulkUpdateJob job = productBulkUpdateService.resume(jobId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return accepted(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Import a product feed streamed as the request body, up to catalog.import.max-upload-size (413 beyond).
+     * CSV needs a header row; JSONL is one JSON object per line. Poll the status URL for progress.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Map<String, Object>> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        try {
+            if (request.getContentLengthLong() > productImportService.getMaxUploadSize().toBytes()) {
+                return tooLarge();
+            }
+            String resolved = format != null ? format : formatFromContentType(request.getContentType());
+            ImportJob job = productImportService.submit(request.getInputStream(), resolved);
+            String statusUrl = "/api/admin/products/import/" + job.getJobId();
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, statusUrl)
+                    .body(Map.of("jobId", job.getJobId(), "status", job.getStatus(), "statusUrl", statusUrl));
+        } catch (ProductImportService.UploadTooLargeException e) {
+            return tooLarge();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of a product import, including the first rejected records
+     */
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        ImportJob job = productImportService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Resume a failed import from its checkpoint
+     */
+    @PostMapping("/import/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeImport(@PathVariable String jobId) {
+        try {
+            ImportJob job = productImportService.resume(jobId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.accepted().body(Map.of("jobId", job.getJobId(), "status", job.getStatus()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Export the catalog as NDJSON or CSV, streamed row by row (gzip=true for a .gz attachment)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "true") boolean activeOnly) {
+        try {
+            ExportService.Format parsed = ExportService.Format.parse(format);
+            return ExportService.response("products", parsed, gzip,
+                    out -> exportService.exportProducts(out, parsed, activeOnly));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static String formatFromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        if (contentType.startsWith("text/csv")) {
+            return "csv";
+        }
+        if (contentType.startsWith("application/x-ndjson") || contentType.startsWith("application/jsonl")) {
+            return "jsonl";
+        }
+        return null;
+    }
+
+    private ResponseEntity<Map<String, Object>> tooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error",
+                "Import upload exceeds " + productImportService.getMaxUploadSize().toMegabytes() + " MB"));
+    }
+
+    private static ResponseEntity<Map<String, Object>> accepted(BulkUpdateJob job) {
+        String statusUrl = "/api/admin/products/bulk-jobs/" + job.getJobId();
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, statusUrl)
+                .body(Map.of(
+                        "jobId", job.getJobId(),
+                        "status", job.getStatus(),
+                        "total", job.getTotal(),
+                        "statusUrl", statusUrl
+                ));
+    }
+}
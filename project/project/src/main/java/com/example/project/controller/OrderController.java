@@ -1,5 +1,6 @@
 package com.example.project.controller;
 
+import com.example.project.dto.CursorPage;
 import com.example.project.dto.OrderDTO;
 import com.example.project.entity.Order;
 import com.example.project.entity.OrderStatus;
@@ -74,6 +75,22 @@ public class OrderController {
         }
     }
 
+    /**
+     * Scroll through user orders with a continuation cursor instead of page numbers
+     */
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<CursorPage<OrderDTO>> scrollOrdersByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<Order> orders = orderService.scrollUserOrders(userId, cursor, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(orders.map(OrderDTO::from));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Create new order
      */
@@ -1,18 +1,36 @@
 package com.example.project.controller;
 
+import com.example.project.dto.CursorPage;
+import com.example.project.dto.FacetedProductPage;
 import com.example.project.dto.ProductDTO;
+import com.example.project.dto.ProductDetailResponse;
+import com.example.project.dto.ReviewDTO;
+import com.example.project.dto.VariantMatrixResponse;
 import com.example.project.entity.Product;
+import com.example.project.entity.ProductRatingSummary;
+import com.example.project.service.ProductCounterService;
+import com.example.project.service.ProductDetailService;
+import com.example.project.service.ProductResponseCache;
 import com.example.project.service.ProductService;
+import com.example.project.service.ReviewAggregateService;
+import com.example.project.service.ReviewService;
+import com.example.project.service.catalog.FacetSelection;
+import com.example.project.service.catalog.ProductFacetIndex;
+import com.example.project.service.catalog.ProductSuggestIndex;
+import com.example.project.service.catalog.ProductVariantIndex;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Optional;
+import java.util.HashMap;
 
 @RestController
 @RequestMapping("/api/products")
@@ -21,18 +39,38 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private ProductCounterService productCounterService;
+
+    @Autowired
+    private ProductDetailService productDetailService;
+
+    @Autowired
+    private ProductVariantIndex productVariantIndex;
+
+    @Autowired
+    private ReviewAggregateService reviewAggregateService;
+
+    @Autowired
+    private ReviewService reviewService;
+
     /**
      * Lấy thông tin sản phẩm
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getProduct(@PathVariable Long id, HttpServletRequest request) {
         try {
-            Optional<Product> productOpt = productService.findById(id);
-            if (productOpt.isPresent()) {
-                return ResponseEntity.ok(ProductDTO.from(productOpt.get()));
-            } else {
-                return ResponseEntity.notFound().build();
+            // JSON đã serialize được cache kèm ETag; If-None-Match khớp thì trả 304 không cần truy vấn DB
+            ResponseEntity<byte[]> response = productResponseCache.detail(id, request,
+                    () -> productService.findDtoById(id).orElse(null));
+            // Trang sản phẩm của frontend gọi endpoint này, nên lượt xem được đếm ở đây; 304 vẫn là một lượt xem, 404 thì không
+            if (response.getStatusCode().is2xxSuccessful() || response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                productCounterService.recordView(id);
             }
+            return response;
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -42,22 +80,211 @@ public class ProductController {
      * Lấy danh sách tất cả sản phẩm active với search và filter
      */
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
+    public ResponseEntity<byte[]> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(required = false) String sort,
+            HttpServletRequest request) {
         try {
-            Page<Product> products = productService.findAllActiveWithFilters(page, size, search, category, sort);
-            Page<ProductDTO> dtoPage = products.map(ProductDTO::from);
-            return ResponseEntity.ok(dtoPage);
+            return productResponseCache.listing(listingKey("products", page, size, search, category, sort), request, () -> {
+                Page<Product> products = productService.findAllActiveWithFilters(page, size, search, category, sort);
+                return products.map(ProductDTO::from);
+            });
+        } catch (IllegalArgumentException e) {
+            // sort không hợp lệ
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace(); // log lỗi thật
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Danh sách sản phẩm dạng thẻ (projection) - cùng tham số với GET /api/products nhưng chỉ đọc các cột cần hiển thị
+     */
+    @GetMapping("/list")
+    public ResponseEntity<byte[]> getProductCards(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String sort,
+            HttpServletRequest request) {
+        try {
+            return productResponseCache.listing(listingKey("cards", page, size, search, category, sort), request,
+                    () -> productService.findActiveListing(page, size, search, category, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private static String listingKey(String view, int page, int size, String search, String category, String sort) {
+        return String.join("|", view, String.valueOf(page), String.valueOf(size),
+                search != null ? search.trim().toLowerCase() : "",
+                category != null ? category.trim().toLowerCase() : "",
+                sort != null ? sort.trim() : "");
+    }
+
+    /**
+     * Toàn bộ dữ liệu trang chi tiết sản phẩm (category, brand, ảnh, biến thể, tổng hợp đánh giá) trong một lần gọi
+     */
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<ProductDetailResponse> getProductDetail(@PathVariable Long id) {
+        try {
+            Optional<ProductDetailResponse> detail = productDetailService.getDetail(id);
+            if (detail.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // Không đếm lượt xem ở đây: trang sản phẩm đã đếm qua GET /{id}
+            return ResponseEntity.ok(detail.get());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Ma trận biến thể còn hàng (size/color/...). Tham số query là lựa chọn hiện tại, vd ?size=M&color=Red;
+     * tồn kho từng giá trị tính theo lựa chọn ở các thuộc tính còn lại
+     */
+    @GetMapping("/{id}/variant-matrix")
+    public ResponseEntity<VariantMatrixResponse> getVariantMatrix(@PathVariable Long id,
+                                                                  @RequestParam Map<String, String> selection) {
+        try {
+            return productVariantIndex.matrix(id, selection)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Phân bố đánh giá 1-5 sao, điểm trung bình, số đánh giá và tỉ lệ đã mua hàng
+     */
+    @GetMapping("/{id}/rating-summary")
+    public ResponseEntity<ProductRatingSummary> getRatingSummary(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(reviewAggregateService.getSummary(id));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Đánh giá đã duyệt của sản phẩm theo cursor: sort=helpful (mặc định, điểm Wilson) hoặc sort=newest
+     */
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<?> getReviews(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "helpful") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            CursorPage<ReviewDTO> reviews = reviewService.listReviews(id, sort, cursor, Math.min(Math.max(size, 1), 50));
+            return ResponseEntity.ok(reviews);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Sửa lỗi chính tả cho từ khóa tìm kiếm ("có phải bạn muốn tìm"); correction = null nếu không cần sửa
+     */
+    @GetMapping("/spelling")
+    public ResponseEntity<Map<String, Object>> spelling(@RequestParam(defaultValue = "") String q) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("query", q);
+            response.put("correction", productService.correctSpelling(q));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Gợi ý tìm kiếm (autocomplete) theo tiền tố từ tên sản phẩm, thương hiệu, danh mục.
+     * rank=views (mặc định) hoặc rank=purchases
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestIndex.Suggestion>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit,
+            @RequestParam(defaultValue = "views") String rank) {
+        try {
+            return ResponseEntity.ok(productService.suggest(q, limit, "purchases".equalsIgnoreCase(rank)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Danh sách sản phẩm active theo cursor (keyset), không đếm tổng số - dùng cho cuộn vô hạn và crawl sâu
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductDTO>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        try {
+            CursorPage<Product> products = productService.scrollActive(cursor, Math.min(Math.max(size, 1), 100), sort);
+            return ResponseEntity.ok(products.map(ProductDTO::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Danh sách sản phẩm kèm số lượng theo từng facet (category, brand, price, rating, featured, digital)
+     */
+    @GetMapping("/faceted")
+    public ResponseEntity<FacetedProductPage> getFacetedProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) Boolean digital) {
+        try {
+            FacetSelection selection = new FacetSelection()
+                    .select(ProductFacetIndex.CATEGORY, category)
+                    .select(ProductFacetIndex.BRAND, brand)
+                    .select(ProductFacetIndex.PRICE, price)
+                    .minRating(minRating)
+                    .select(ProductFacetIndex.FEATURED, featured)
+                    .select(ProductFacetIndex.DIGITAL, digital);
+            ProductService.FacetedPage result = productService.findActiveFaceted(page, size, search, selection);
+            Map<String, List<String>> valueOrder = Map.of(
+                    ProductFacetIndex.PRICE, productService.getPriceBuckets(),
+                    ProductFacetIndex.RATING, List.of("5", "4", "3", "2", "1", "0"),
+                    ProductFacetIndex.FEATURED, List.of("true", "false"),
+                    ProductFacetIndex.DIGITAL, List.of("true", "false"));
+            FacetedProductPage body = FacetedProductPage.from(result.getPage().map(ProductDTO::from), result.getFacets(), valueOrder);
+            body.setCorrectedQuery(result.getCorrectedQuery());
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Simple health check endpoint
      */
@@ -107,26 +334,4 @@ public class ProductController {
             return ResponseEntity.internalServerError().build();
         }
     }
-
-    /**
-     * Update stock for all products (admin endpoint)
-     */
-    @PostMapping("/update-stock")
-    public ResponseEntity<Map<String, String>> updateAllStock(@RequestBody Map<String, Integer> request) {
-        try {
-            Integer stockQuantity = request.get("stockQuantity");
-            if (stockQuantity == null) {
-                return ResponseEntity.badRequest().body(Map.of("error", "stockQuantity is required"));
-            }
-            
-            int updatedCount = productService.updateAllStock(stockQuantity);
-            return ResponseEntity.ok(Map.of(
-                "message", "Updated stock for " + updatedCount + " products",
-                "stockQuantity", stockQuantity.toString()
-            ));
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.example.project.controller;
+
+import com.example.project.service.ReviewService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reviews")
+public class ReviewController {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    /**
+     * Vote a review helpful (helpful=true) or not helpful; re-ranks it in the "most helpful" listing
+     */
+    @PostMapping("/{reviewId}/votes")
+    public ResponseEntity<Map<String, Object>> vote(@PathVariable Long reviewId,
+                                                    @RequestParam(defaultValue = "true") boolean helpful) {
+        try {
+            if (!reviewService.recordVote(reviewId, helpful)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of("reviewId", reviewId, "helpful", helpful));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
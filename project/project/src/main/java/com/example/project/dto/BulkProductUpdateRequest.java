@@ -0,0 +1,64 @@
+package com.example.project.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of POST /api/admin/products/bulk-update.
+ * Targets every product unless productIds is given; values sets a different value per product instead of one shared value.
+ */
+public class BulkProductUpdateRequest {
+
+    // stock | price | active
+    @NotBlank(message = "Field is required")
+    @JsonProperty("field")
+    private String field;
+
+    // set (default) | percent (price only, e.g. -10 for a 10% discount)
+    @JsonProperty("mode")
+    private String mode;
+
+    @JsonProperty("value")
+    private BigDecimal value;
+
+    @JsonProperty("active")
+    private Boolean active;
+
+    @JsonProperty("productIds")
+    private List<Long> productIds;
+
+    @JsonProperty("values")
+    private Map<Long, BigDecimal> values;
+
+    // Constructors
+    public BulkProductUpdateRequest() {}
+
+    public BulkProductUpdateRequest(String field, String mode, BigDecimal value) {
+        this.field = field;
+        this.mode = mode;
+        this.value = value;
+    }
+
+    // Getters and Setters
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public BigDecimal getValue() { return value; }
+    public void setValue(BigDecimal value) { this.value = value; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public List<Long> getProductIds() { return productIds; }
+    public void setProductIds(List<Long> productIds) { this.productIds = productIds; }
+
+    public Map<Long, BigDecimal> getValues() { return values; }
+    public void setValues(Map<Long, BigDecimal> values) { this.values = values; }
+}
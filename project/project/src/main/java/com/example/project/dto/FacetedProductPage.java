@@ -0,0 +1,82 @@
+package com.example.project.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FacetedProductPage {
+    private List<ProductDTO> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private Map<String, List<FacetCount>> facets;
+    private String correctedQuery;
+
+    // Static factory method; facet values keep the order given in valueOrder when present,
+    // otherwise they are sorted by count
+    public static FacetedProductPage from(Page<ProductDTO> page, Map<String, Map<String, Integer>> counts,
+                                          Map<String, List<String>> valueOrder) {
+        FacetedProductPage result = new FacetedProductPage();
+        result.content = page.getContent();
+        result.page = page.getNumber();
+        result.size = page.getSize();
+        result.totalElements = page.getTotalElements();
+        result.totalPages = page.getTotalPages();
+        result.facets = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Map<String, Integer>> dimension : counts.entrySet()) {
+            List<FacetCount> values = new ArrayList<>();
+            dimension.getValue().forEach((value, count) -> values.add(new FacetCount(value, count)));
+            List<String> order = valueOrder.get(dimension.getKey());
+            if (order != null) {
+                values.sort(Comparator.comparingInt(v -> order.indexOf(v.getValue())));
+            } else {
+                values.sort(Comparator.comparingInt(FacetCount::getCount).reversed()
+                        .thenComparing(FacetCount::getValue));
+            }
+            result.facets.put(dimension.getKey(), values);
+        }
+        return result;
+    }
+
+    // Getters and Setters
+    public List<ProductDTO> getContent() { return content; }
+    public void setContent(List<ProductDTO> content) { this.content = content; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public long getTotalElements() { return totalElements; }
+    public void setTotalElements(long totalElements) { this.totalElements = totalElements; }
+
+    public int getTotalPages() { return totalPages; }
+    public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
+
+    public Map<String, List<FacetCount>> getFacets() { return facets; }
+    public void setFacets(Map<String, List<FacetCount>> facets) { this.facets = facets; }
+
+    // Set when the search had no hits and these results are for the spelling-corrected query
+    public String getCorrectedQuery() { return correctedQuery; }
+    public void setCorrectedQuery(String correctedQuery) { this.correctedQuery = correctedQuery; }
+
+    public static class FacetCount {
+        private final String value;
+        private final int count;
+
+        public FacetCount(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() { return value; }
+        public int getCount() { return count; }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.project.dto;
+
+import com.example.project.entity.Product;
+import com.example.project.entity.ProductImage;
+import com.example.project.entity.ProductRatingSummary;
+import com.example.project.entity.ProductVariant;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Everything a product page shows, as one immutable value: core fields and content, category, brand,
+ * images, active variants and the review summary. Safe to cache and share between requests.
+ */
+public final class ProductDetailResponse {
+    private final Long id;
+    private final String name;
+    private final String sku;
+    private final String description;
+    private final String aiGeneratedDescription;
+    private final List<String> tags;
+    private final BigDecimal price;
+    private final BigDecimal compareAtPrice;
+    private final int stockQuantity;
+    private final boolean active;
+    private final boolean featured;
+    private final boolean digital;
+    private final String imageUrl;
+    private final Ref category;
+    private final Ref brand;
+    private final List<Image> images;
+    private final List<Variant> variants;
+    private final Rating rating;
+
+    public ProductDetailResponse(Product product, List<Image> images, List<Variant> variants, Rating rating) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.sku = product.getSku();
+        this.description = product.getDescription();
+        this.aiGeneratedDescription = product.getAiGeneratedDescription();
+        this.tags = List.copyOf(product.getTagsAsList());
+        this.price = product.getPrice();
+        this.compareAtPrice = product.getCompareAtPrice();
+        this.stockQuantity = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        this.active = Boolean.TRUE.equals(product.getIsActive());
+        this.featured = Boolean.TRUE.equals(product.getIsFeatured());
+        this.digital = Boolean.TRUE.equals(product.getIsDigital());
+        this.imageUrl = product.getImageUrl();
+        this.category = product.getCategory() != null
+                ? new Ref(product.getCategory().getId(), product.getCategory().getName()) : null;
+        this.brand = product.getBrand() != null ? new Ref(product.getBrand().getId(), product.getBrand().getName()) : null;
+        this.images = List.copyOf(images);
+        this.variants = List.copyOf(variants);
+        this.rating = rating;
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getSku() { return sku; }
+    public String getDescription() { return description; }
+    public String getAiGeneratedDescription() { return aiGeneratedDescription; }
+    public List<String> getTags() { return tags; }
+    public BigDecimal getPrice() { return price; }
+    public BigDecimal getCompareAtPrice() { return compareAtPrice; }
+    public int getStockQuantity() { return stockQuantity; }
+    public boolean isActive() { return active; }
+    public boolean isFeatured() { return featured; }
+    public boolean isDigital() { return digital; }
+    public String getImageUrl() { return imageUrl; }
+    public Ref getCategory() { return category; }
+    public Ref getBrand() { return brand; }
+    public List<Image> getImages() { return images; }
+    public List<Variant> getVariants() { return variants; }
+    public Rating getRating() { return rating; }
+
+    // Inner classes
+    public static final class Ref {
+        private final Long id;
+        private final String name;
+
+        public Ref(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+    }
+
+    public static final class Image {
+        private final Long id;
+        private final String url;
+        private final String altText;
+        private final boolean primary;
+        private final Integer width;
+        private final Integer height;
+
+        public Image(ProductImage image) {
+            this.id = image.getId();
+            this.url = image.getImageUrl();
+            this.altText = image.getAltText();
+            this.primary = image.isPrimary();
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+        }
+
+        public Long getId() { return id; }
+        public String getUrl() { return url; }
+        public String getAltText() { return altText; }
+        public boolean isPrimary() { return primary; }
+        public Integer getWidth() { return width; }
+        public Integer getHeight() { return height; }
+    }
+
+    public static final class Variant {
+        private final Long id;
+        private final String sku;
+        private final String name;
+        private final String size;
+        private final String color;
+        private final String material;
+        private final String style;
+        private final BigDecimal price;
+        private final int stockQuantity;
+        private final boolean isDefault;
+        private final String imageUrl;
+
+        public Variant(ProductVariant variant) {
+            this.id = variant.getId();
+            this.sku = variant.getSku();
+            this.name = variant.getVariantName();
+            this.size = variant.getSize();
+            this.color = variant.getColor();
+            this.material = variant.getMaterial();
+            this.style = variant.getStyle();
+            this.price = variant.getPrice();
+            this.stockQuantity = variant.getStockQuantity() != null ? variant.getStockQuantity() : 0;
+            this.isDefault = variant.isDefault();
+            this.imageUrl = variant.getImageUrl();
+        }
+
+        public Long getId() { return id; }
+        public String getSku() { return sku; }
+        public String getName() { return name; }
+        public String getSize() { return size; }
+        public String getColor() { return color; }
+        public String getMaterial() { return material; }
+        public String getStyle() { return style; }
+        public BigDecimal getPrice() { return price; }
+        public int getStockQuantity() { return stockQuantity; }
+        public boolean isDefault() { return isDefault; }
+        public String getImageUrl() { return imageUrl; }
+    }
+
+    public static final class Rating {
+        private final double average;
+        private final long count;
+        private final List<Long> histogram;
+        private final double verifiedShare;
+
+        public Rating(ProductRatingSummary summary) {
+            this.average = summary.getAverageRating();
+            this.count = summary.getReviewCount();
+            long[] stars = summary.getHistogram();
+            this.histogram = List.of(stars[0], stars[1], stars[2], stars[3], stars[4]);
+            this.verifiedShare = summary.getVerifiedShare();
+        }
+
+        public double getAverage() { return average; }
+        public long getCount() { return count; }
+        public List<Long> getHistogram() { return histogram; }
+        public double getVerifiedShare() { return verifiedShare; }
+    }
+}
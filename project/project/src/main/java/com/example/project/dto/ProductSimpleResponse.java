@@ -1,25 +1,30 @@
 package com.example.project.dto;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
+/**
+ * Listing-card view of a product, built directly by JPQL constructor expressions
+ * (see ProductRepository) so listings never load the Product entity or its TEXT columns.
+ */
 public class ProductSimpleResponse {
     private Long id;
     private String name;
-    private String description;
     private String sku;
     private BigDecimal price;
     private BigDecimal originalPrice;
     private Integer discountPercentage;
+    private String imageUrl;
     private Boolean isActive;
     private Boolean isFeatured;
     private Boolean isDigital;
+    private Integer stockQuantity;
     private Double averageRating;
     private Integer reviewCount;
     private Long viewCount;
     private Long purchaseCount;
     private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
     
     // Simple category/brand info (not relationships)
     private Long categoryId;
@@ -30,34 +35,47 @@ public class ProductSimpleResponse {
     // Constructors
     public ProductSimpleResponse() {}
     
-    public ProductSimpleResponse(Long id, String name, String description, String sku, 
-                          BigDecimal price, BigDecimal originalPrice, Integer discountPercentage,
-                          Boolean isActive, Boolean isFeatured, Boolean isDigital,
+    /**
+     * Projection constructor; argument order must match the JPQL select lists in ProductRepository
+     */
+    public ProductSimpleResponse(Long id, String name, String sku,
+                          BigDecimal price, BigDecimal originalPrice, String imageUrl,
+                          Boolean isActive, Boolean isFeatured, Boolean isDigital, Integer stockQuantity,
                           Double averageRating, Integer reviewCount, Long viewCount, Long purchaseCount,
-                          LocalDateTime createdAt, LocalDateTime updatedAt,
+                          LocalDateTime createdAt,
                           Long categoryId, String categoryName, Long brandId, String brandName) {
         this.id = id;
         this.name = name;
-        this.description = description;
         this.sku = sku;
         this.price = price;
         this.originalPrice = originalPrice;
-        this.discountPercentage = discountPercentage;
+        this.discountPercentage = discountPercentage(price, originalPrice);
+        this.imageUrl = imageUrl;
         this.isActive = isActive;
         this.isFeatured = isFeatured;
         this.isDigital = isDigital;
+        this.stockQuantity = stockQuantity;
         this.averageRating = averageRating;
         this.reviewCount = reviewCount;
         this.viewCount = viewCount;
         this.purchaseCount = purchaseCount;
         this.createdAt = createdAt;
-        this.updatedAt = updatedAt;
         this.categoryId = categoryId;
         this.categoryName = categoryName;
         this.brandId = brandId;
         this.brandName = brandName;
     }
     
+    private static Integer discountPercentage(BigDecimal price, BigDecimal originalPrice) {
+        if (price == null || originalPrice == null || originalPrice.compareTo(price) <= 0) {
+            return null;
+        }
+        return originalPrice.subtract(price)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(originalPrice, 0, RoundingMode.HALF_UP)
+                .intValue();
+    }
+    
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -65,9 +83,6 @@ public class ProductSimpleResponse {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
-    
     public String getSku() { return sku; }
     public void setSku(String sku) { this.sku = sku; }
     
@@ -80,6 +95,9 @@ public class ProductSimpleResponse {
     public Integer getDiscountPercentage() { return discountPercentage; }
     public void setDiscountPercentage(Integer discountPercentage) { this.discountPercentage = discountPercentage; }
     
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
     
@@ -89,6 +107,9 @@ public class ProductSimpleResponse {
     public Boolean getIsDigital() { return isDigital; }
     public void setIsDigital(Boolean isDigital) { this.isDigital = isDigital; }
     
+    public Integer getStockQuantity() { return stockQuantity; }
+    public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
+    
     public Double getAverageRating() { return averageRating; }
     public void setAverageRating(Double averageRating) { this.averageRating = averageRating; }
     
@@ -104,9 +125,6 @@ public class ProductSimpleResponse {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
-    public LocalDateTime getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
-    
     public Long getCategoryId() { return categoryId; }
     public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
     
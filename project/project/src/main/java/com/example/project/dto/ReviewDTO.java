@@ -0,0 +1,73 @@
+package com.example.project.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One review on a product page. Built by a JPQL constructor projection, so the AI summary and
+ * extracted-aspects columns are never read.
+ */
+public class ReviewDTO {
+    private Long id;
+    private Integer rating;
+    private String title;
+    private String content;
+    private Boolean verifiedPurchase;
+    private Integer helpfulVotes;
+    private Integer totalVotes;
+    private Double helpfulnessScore;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private String username;
+
+    public ReviewDTO() {}
+
+    public ReviewDTO(Long id, Integer rating, String title, String content, Boolean verifiedPurchase,
+                     Integer helpfulVotes, Integer totalVotes, Double helpfulnessScore, LocalDateTime createdAt,
+                     Long userId, String username) {
+        this.id = id;
+        this.rating = rating;
+        this.title = title;
+        this.content = content;
+        this.verifiedPurchase = verifiedPurchase;
+        this.helpfulVotes = helpfulVotes;
+        this.totalVotes = totalVotes;
+        this.helpfulnessScore = helpfulnessScore;
+        this.createdAt = createdAt;
+        this.userId = userId;
+        this.username = username;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getRating() { return rating; }
+    public void setRating(Integer rating) { this.rating = rating; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public Boolean getVerifiedPurchase() { return verifiedPurchase; }
+    public void setVerifiedPurchase(Boolean verifiedPurchase) { this.verifiedPurchase = verifiedPurchase; }
+
+    public Integer getHelpfulVotes() { return helpfulVotes; }
+    public void setHelpfulVotes(Integer helpfulVotes) { this.helpfulVotes = helpfulVotes; }
+
+    public Integer getTotalVotes() { return totalVotes; }
+    public void setTotalVotes(Integer totalVotes) { this.totalVotes = totalVotes; }
+
+    public Double getHelpfulnessScore() { return helpfulnessScore; }
+    public void setHelpfulnessScore(Double helpfulnessScore) { this.helpfulnessScore = helpfulnessScore; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+}
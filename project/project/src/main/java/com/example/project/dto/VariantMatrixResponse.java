@@ -0,0 +1,83 @@
+package com.example.project.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Available-combinations view of a product's variants. Each variant lists its value index per attribute
+ * (same order as {@code attributes}, -1 when unset); attribute value stock and availability take the
+ * current selection on the other attributes into account.
+ */
+public class VariantMatrixResponse {
+    private Long productId;
+    private List<Attribute> attributes;
+    private List<Variant> variants;
+    private List<Long> matchingVariantIds;
+
+    public VariantMatrixResponse(Long productId, List<Attribute> attributes, List<Variant> variants, List<Long> matchingVariantIds) {
+        this.productId = productId;
+        this.attributes = attributes;
+        this.variants = variants;
+        this.matchingVariantIds = matchingVariantIds;
+    }
+
+    public Long getProductId() { return productId; }
+    public List<Attribute> getAttributes() { return attributes; }
+    public List<Variant> getVariants() { return variants; }
+    public List<Long> getMatchingVariantIds() { return matchingVariantIds; }
+
+    // Inner classes
+    public static class Attribute {
+        private final String name;
+        private final List<AttributeValue> values;
+
+        public Attribute(String name, List<AttributeValue> values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        public String getName() { return name; }
+        public List<AttributeValue> getValues() { return values; }
+    }
+
+    public static class AttributeValue {
+        private final String value;
+        private final int stock;
+        private final boolean available;
+
+        public AttributeValue(String value, int stock) {
+            this.value = value;
+            this.stock = stock;
+            this.available = stock > 0;
+        }
+
+        public String getValue() { return value; }
+        public int getStock() { return stock; }
+        public boolean isAvailable() { return available; }
+    }
+
+    public static class Variant {
+        private final Long id;
+        private final String sku;
+        private final BigDecimal price;
+        private final int stock;
+        private final boolean available;
+        private final int[] values;
+
+        public Variant(Long id, String sku, BigDecimal price, int stock, boolean available, int[] values) {
+            this.id = id;
+            this.sku = sku;
+            this.price = price;
+            this.stock = stock;
+            this.available = available;
+            this.values = values;
+        }
+
+        public Long getId() { return id; }
+        public String getSku() { return sku; }
+        public BigDecimal getPrice() { return price; }
+        public int getStock() { return stock; }
+        public boolean isAvailable() { return available; }
+        public int[] getValues() { return values; }
+    }
+}
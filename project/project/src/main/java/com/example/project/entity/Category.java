@@ -1,5 +1,6 @@
 package com.example.project.entity;
 
+import com.example.project.event.CategoryEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -13,7 +14,7 @@ import java.util.ArrayList;
 
 @Entity
 @Table(name = "categories")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CategoryEntityListener.class})
 public class Category {
     
     @Id
@@ -12,7 +12,10 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_user_id", columnList = "user_id, id"),
+    @Index(name = "idx_orders_status_id", columnList = "order_status, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Order {
     
@@ -416,6 +419,14 @@ public class Order {
     public int getTotalItems() {
         return orderItems.stream().mapToInt(OrderItem::getQuantity).sum();
     }
+    
+    // JPA auditing is not enabled, so @CreatedDate alone leaves created_at NULL; purchase recommendations date by it
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
 
  
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.project.entity;
 
 import jakarta.persistence.*;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -9,6 +10,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.project.event.ProductEntityListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,11 +18,26 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Objects;
 
 @Entity
-@Table(name = "products")
-@EntityListeners(AuditingEntityListener.class)
+@NamedEntityGraph(name = Product.DETAIL_GRAPH, attributeNodes = {
+    @NamedAttributeNode("category"),
+    @NamedAttributeNode("brand"),
+    @NamedAttributeNode("content")
+})
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_active_id", columnList = "is_active, id"),
+    @Index(name = "idx_products_active_price_id", columnList = "is_active, price, id"),
+    @Index(name = "idx_products_active_views_id", columnList = "is_active, view_count, id"),
+    @Index(name = "idx_products_active_purchases_id", columnList = "is_active, purchase_count, id"),
+    @Index(name = "idx_products_active_rating_id", columnList = "is_active, average_rating, id")
+})
+@EntityListeners({AuditingEntityListener.class, ProductEntityListener.class})
 public class Product {
+
+    // Product page fields: the to-one associations, loaded in one statement
+    public static final String DETAIL_GRAPH = "Product.detail";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,13 +47,14 @@ public class Product {
     @Size(min = 3, max = 200)
     private String name;
     
-    @NotBlank
-    @Size(min = 10, max = 2000)
-    @Column(columnDefinition = "TEXT")
-    private String description;
-    
-    @Column(name = "ai_generated_description", columnDefinition = "TEXT")
-    private String aiGeneratedDescription;
+    // Description, tags and the AI columns live in product_content; stock, cart and order paths never read them.
+    // Required, like the description it carries (validated by ProductContent's @NotBlank)
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "content_id", unique = true)
+    @NotNull
+    @Valid
+    @JsonIgnore
+    private ProductContent content;
     
     @NotBlank
     @Size(min = 3, max = 50)
@@ -84,30 +102,23 @@ public class Product {
     @Column(name = "seo_description")
     private String seoDescription;
     
-    @Column(name = "tags", columnDefinition = "TEXT")
-    private String tags; // Comma-separated tags
-    
-    @Column(name = "ai_tags", columnDefinition = "TEXT")
-    private String aiTags; // AI-generated tags
-    
-    @Column(name = "view_count")
+    // Counters are owned by ProductCounterService (write-behind increments); entity saves must not overwrite them
+    @Column(name = "view_count", updatable = false)
     private Long viewCount = 0L;
     
-    @Column(name = "purchase_count")
+    @Column(name = "purchase_count", updatable = false)
     private Long purchaseCount = 0L;
     
-    @Column(name = "average_rating")
+    // Maintained from product_reviews by ReviewAggregateService; entity saves must not overwrite them
+    @Column(name = "average_rating", updatable = false)
     private Double averageRating = 0.0;
     
-    @Column(name = "review_count")
+    @Column(name = "review_count", updatable = false)
     private Integer reviewCount = 0;
     
     @Column(name = "recommendation_score")
     private Double recommendationScore = 0.0;
     
-    @Column(name = "ai_embedding", columnDefinition = "TEXT")
-    private String aiEmbedding; // JSON string for vector embeddings
-    
     @Column(name = "image_url")
     private String imageUrl;
     
@@ -159,7 +170,7 @@ public class Product {
 
     public Product(String name, String description, String sku, BigDecimal price) {
         this.name = name;
-        this.description = description;
+        this.content = new ProductContent(description);
         this.sku = sku;
         this.price = price;
         this.stockQuantity = 0;
@@ -187,11 +198,22 @@ public class Product {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public ProductContent getContent() { return content; }
+    public void setContent(ProductContent content) { this.content = content; }
+
+    public String getDescription() { return content != null ? content.getDescription() : null; }
+    public void setDescription(String description) {
+        if (contentChanged(getDescription(), description)) {
+            content().setDescription(description);
+        }
+    }
 
-    public String getAiGeneratedDescription() { return aiGeneratedDescription; }
-    public void setAiGeneratedDescription(String aiGeneratedDescription) { this.aiGeneratedDescription = aiGeneratedDescription; }
+    public String getAiGeneratedDescription() { return content != null ? content.getAiGeneratedDescription() : null; }
+    public void setAiGeneratedDescription(String aiGeneratedDescription) {
+        if (contentChanged(getAiGeneratedDescription(), aiGeneratedDescription)) {
+            content().setAiGeneratedDescription(aiGeneratedDescription);
+        }
+    }
 
     public String getSku() { return sku; }
     public void setSku(String sku) { this.sku = sku; }
@@ -235,11 +257,19 @@ public class Product {
     public String getSeoDescription() { return seoDescription; }
     public void setSeoDescription(String seoDescription) { this.seoDescription = seoDescription; }
 
-    public String getTags() { return tags; }
-    public void setTags(String tags) { this.tags = tags; }
+    public String getTags() { return content != null ? content.getTags() : null; }
+    public void setTags(String tags) {
+        if (contentChanged(getTags(), tags)) {
+            content().setTags(tags);
+        }
+    }
 
-    public String getAiTags() { return aiTags; }
-    public void setAiTags(String aiTags) { this.aiTags = aiTags; }
+    public String getAiTags() { return content != null ? content.getAiTags() : null; }
+    public void setAiTags(String aiTags) {
+        if (contentChanged(getAiTags(), aiTags)) {
+            content().setAiTags(aiTags);
+        }
+    }
 
     public Long getViewCount() { return viewCount; }
     public void setViewCount(Long viewCount) { this.viewCount = viewCount; }
@@ -256,8 +286,12 @@ public class Product {
     public Double getRecommendationScore() { return recommendationScore; }
     public void setRecommendationScore(Double recommendationScore) { this.recommendationScore = recommendationScore; }
 
-    public String getAiEmbedding() { return aiEmbedding; }
-    public void setAiEmbedding(String aiEmbedding) { this.aiEmbedding = aiEmbedding; }
+    public String getAiEmbedding() { return content != null ? content.getAiEmbedding() : null; }
+    public void setAiEmbedding(String aiEmbedding) {
+        if (contentChanged(getAiEmbedding(), aiEmbedding)) {
+            content().setAiEmbedding(aiEmbedding);
+        }
+    }
 
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
@@ -297,6 +331,7 @@ public class Product {
 
     // Utility methods
     public List<String> getTagsAsList() {
+        String tags = getTags();
         if (tags == null || tags.isEmpty()) {
             return new ArrayList<>();
         }
@@ -304,10 +339,11 @@ public class Product {
     }
 
     public void setTagsFromList(List<String> tagList) {
-        this.tags = tagList != null ? String.join(",", tagList) : null;
+        setTags(tagList != null ? String.join(",", tagList) : null);
     }
 
     public List<String> getAiTagsAsList() {
+        String aiTags = getAiTags();
         if (aiTags == null || aiTags.isEmpty()) {
             return new ArrayList<>();
         }
@@ -315,7 +351,26 @@ public class Product {
     }
 
     public void setAiTagsFromList(List<String> tagList) {
-        this.aiTags = tagList != null ? String.join(",", tagList) : null;
+        setAiTags(tagList != null ? String.join(",", tagList) : null);
+    }
+
+    private ProductContent content() {
+        if (content == null) {
+            content = new ProductContent();
+        }
+        return content;
+    }
+
+    // A content edit only dirties the product_content row; bumping updated_at keeps the product row dirty too,
+    // so ProductEntityListener still reports the change to the caches and search index
+    private boolean contentChanged(String current, String next) {
+        if (Objects.equals(current, next)) {
+            return false;
+        }
+        if (id != null) {
+            updatedAt = LocalDateTime.now();
+        }
+        return true;
     }
 
     public void incrementViewCount() {
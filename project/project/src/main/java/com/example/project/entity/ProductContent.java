@@ -0,0 +1,64 @@
+package com.example.project.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * The large text columns of a product, kept out of the products row.
+ * Product references this lazily, so stock, cart and order paths read only the narrow core row;
+ * listings that show descriptions fetch it explicitly, and stray lazy loads are batched.
+ */
+@Entity
+@Table(name = "product_content")
+@BatchSize(size = 50)
+public class ProductContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(min = 10, max = 2000)
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "ai_generated_description", columnDefinition = "TEXT")
+    private String aiGeneratedDescription;
+
+    @Column(name = "tags", columnDefinition = "TEXT")
+    private String tags; // Comma-separated tags
+
+    @Column(name = "ai_tags", columnDefinition = "TEXT")
+    private String aiTags; // AI-generated tags
+
+    @Column(name = "ai_embedding", columnDefinition = "TEXT")
+    private String aiEmbedding; // JSON string for vector embeddings
+
+    // Constructors
+    public ProductContent() {}
+
+    public ProductContent(String description) {
+        this.description = description;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getAiGeneratedDescription() { return aiGeneratedDescription; }
+    public void setAiGeneratedDescription(String aiGeneratedDescription) { this.aiGeneratedDescription = aiGeneratedDescription; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+
+    public String getAiTags() { return aiTags; }
+    public void setAiTags(String aiTags) { this.aiTags = aiTags; }
+
+    public String getAiEmbedding() { return aiEmbedding; }
+    public void setAiEmbedding(String aiEmbedding) { this.aiEmbedding = aiEmbedding; }
+}
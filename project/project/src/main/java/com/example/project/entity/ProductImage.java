@@ -5,12 +5,13 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import com.example.project.event.ProductImageEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "product_images")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ProductImageEntityListener.class})
 public class ProductImage {
     
     @Id
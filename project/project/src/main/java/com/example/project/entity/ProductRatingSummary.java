@@ -0,0 +1,73 @@
+package com.example.project.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-product rating histogram over approved, non-spam reviews.
+ * Maintained incrementally by ReviewAggregateService; average and count are derived from the star counts.
+ */
+@Entity
+@Table(name = "product_rating_summaries")
+public class ProductRatingSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+
+    @Column(name = "verified_count", nullable = false)
+    private long verifiedCount;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "average_rating", nullable = false)
+    private double averageRating;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ProductRatingSummary() {}
+
+    public ProductRatingSummary(Long productId) {
+        this.productId = productId;
+    }
+
+    // Getters
+    public Long getProductId() { return productId; }
+    public long getReviewCount() { return reviewCount; }
+    public double getAverageRating() { return averageRating; }
+    public long getVerifiedCount() { return verifiedCount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Review counts for 1 to 5 stars
+     */
+    public long[] getHistogram() {
+        return new long[] { stars1, stars2, stars3, stars4, stars5 };
+    }
+
+    /**
+     * Share of counted reviews from verified purchases, 0 when there are none
+     */
+    public double getVerifiedShare() {
+        return reviewCount > 0 ? (double) verifiedCount / reviewCount : 0.0;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.project.entity;
 
+import com.example.project.event.ProductReviewEntityListener;
+import com.example.project.util.WilsonScore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -11,8 +13,12 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_reviews")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "product_reviews", indexes = {
+    // One per listing order: equality filters first, then the keyset sort key and id
+    @Index(name = "idx_reviews_helpful", columnList = "product_id, is_approved, is_spam, helpfulness_score, id"),
+    @Index(name = "idx_reviews_newest", columnList = "product_id, is_approved, is_spam, created_at, id")
+})
+@EntityListeners({AuditingEntityListener.class, ProductReviewEntityListener.class})
 public class ProductReview {
     
     @Id
@@ -57,6 +63,10 @@ public class ProductReview {
     @Column(name = "total_votes")
     private Integer totalVotes = 0;
     
+    // Wilson lower bound of helpfulVotes / totalVotes, kept in step with the votes; the "most helpful" sort key
+    @Column(name = "helpfulness_score")
+    private Double helpfulnessScore = 0.0;
+    
     // AI Analysis fields
     @Column(name = "sentiment_score")
     private Double sentimentScore;
@@ -99,6 +109,13 @@ public class ProductReview {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // What this review contributed to the rating aggregates when loaded or last written (0 = not counted)
+    @Transient
+    private int loadedRating;
+    
+    @Transient
+    private boolean loadedVerified;
+    
     // Constructors
     public ProductReview() {}
     
@@ -307,10 +324,12 @@ public class ProductReview {
     public void addHelpfulVote() {
         this.helpfulVotes++;
         this.totalVotes++;
+        updateHelpfulnessScore();
     }
     
     public void addNotHelpfulVote() {
         this.totalVotes++;
+        updateHelpfulnessScore();
     }
     
     public double getHelpfulnessRatio() {
@@ -339,4 +358,52 @@ public class ProductReview {
     public boolean isNegativeSentiment() {
         return sentimentScore != null && sentimentScore < -0.5;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Star rating this review counts for in the aggregates: approved, not spam and rated 1-5; otherwise 0
+     */
+    public int countedRating() {
+        boolean counted = Boolean.TRUE.equals(isApproved) && !Boolean.TRUE.equals(isSpam)
+                && rating != null && rating >= 1 && rating <= 5;
+        return counted ? rating : 0;
+    }
+    
+    public void rememberAggregateContribution() {
+        this.loadedRating = countedRating();
+        this.loadedVerified = Boolean.TRUE.equals(verifiedPurchase);
+    }
+    
+    public int loadedRating() {
+        return loadedRating;
+    }
+    
+    public boolean loadedVerified() {
+        return loadedVerified;
+    }
+    
+    public Double getHelpfulnessScore() {
+        return helpfulnessScore;
+    }
+    
+    // JPA auditing is not enabled, so @CreatedDate alone leaves created_at NULL; the "newest" listing keys on it,
+    // and the listings match is_spam = false exactly
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        onUpdate();
+    }
+    
+    @PreUpdate
+    public void onUpdate() {
+        if (isSpam == null) {
+            isSpam = false;
+        }
+        updateHelpfulnessScore();
+    }
+    
+    public void updateHelpfulnessScore() {
+        this.helpfulnessScore = WilsonScore.lowerBound(helpfulVotes != null ? helpfulVotes : 0, totalVotes != null ? totalVotes : 0);
+    }
+}
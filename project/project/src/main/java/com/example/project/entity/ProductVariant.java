@@ -1,5 +1,6 @@
 package com.example.project.entity;
 
+import com.example.project.event.ProductVariantEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -13,7 +14,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "product_variants")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ProductVariantEntityListener.class})
 public class ProductVariant {
     
     @Id
@@ -200,4 +200,12 @@ public class UserBehavior {
     public void removeAttribute(String key) {
         this.attributes.remove(key);
     }
-} 
\ No newline at end of file
+    
+    // JPA auditing is not enabled, so @CreatedDate alone leaves created_at NULL; recommendations date by it
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
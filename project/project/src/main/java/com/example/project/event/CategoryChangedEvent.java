@@ -0,0 +1,18 @@
+package com.example.project.event;
+
+/**
+ * Published whenever a category is inserted, updated or deleted.
+ * The category tree is small, so listeners simply rebuild and the event carries only the id.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.project.event;
+
+import com.example.project.entity.Category;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every category write into a {@link CategoryChangedEvent}.
+ */
+public class CategoryEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCategoryWrite(Category category) {
+        if (category.getId() != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.project.event;
+
+import com.example.project.config.CacheConfig;
+import com.example.project.service.ProductResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached product data once a product write has committed.
+ * Per-product regions drop just the changed ids; listing regions are cleared wholesale.
+ */
+@Component
+public class ProductCacheInvalidator {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productResponseCache.invalidating();
+        for (String region : CacheConfig.PRODUCT_ID_REGIONS) {
+            Cache cache = cacheManager.getCache(region);
+            if (cache != null) {
+                event.getProductIds().forEach(cache::evict);
+            }
+        }
+        for (String region : CacheConfig.PRODUCT_LIST_REGIONS) {
+            Cache cache = cacheManager.getCache(region);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Variants only appear in the product page aggregate
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVariantChanged(ProductVariantChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_DETAILS);
+        if (cache != null) {
+            cache.evict(event.getProductId());
+        }
+    }
+}
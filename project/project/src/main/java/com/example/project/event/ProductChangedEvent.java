@@ -0,0 +1,25 @@
+package com.example.project.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published whenever one or more products are inserted, updated or deleted.
+ * Listeners reload the products by id, so the event only carries ids.
+ */
+public class ProductChangedEvent {
+
+    private final List<Long> productIds;
+
+    public ProductChangedEvent(Long productId) {
+        this.productIds = List.of(productId);
+    }
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.project.event;
+
+import java.util.List;
+
+/**
+ * Published after view and purchase deltas have been written with plain JDBC.
+ * Only the orderings that rank by these counters consume it, adding the deltas in place; caches and the other
+ * indexes ignore counters, so a flush never reloads or re-indexes products.
+ */
+public class ProductCountersChangedEvent {
+
+    private final List<Long> productIds;
+    private final long[] views;
+    private final long[] purchases;
+
+    public ProductCountersChangedEvent(List<Long> productIds, long[] views, long[] purchases) {
+        if (productIds.size() != views.length || productIds.size() != purchases.length) {
+            throw new IllegalArgumentException("One view and one purchase delta per product expected");
+        }
+        this.productIds = List.copyOf(productIds);
+        this.views = views;
+        this.purchases = purchases;
+    }
+
+    public int size() { return productIds.size(); }
+    public Long getProductId(int i) { return productIds.get(i); }
+    // Deltas, not totals
+    public long getViews(int i) { return views[i]; }
+    public long getPurchases(int i) { return purchases[i]; }
+}
@@ -0,0 +1,28 @@
+package com.example.project.event;
+
+import com.example.project.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every product write into a {@link ProductChangedEvent},
+ * regardless of whether it went through ProductService or straight through the repository.
+ * Hibernate creates this listener through Spring, so injection works as usual.
+ */
+public class ProductEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductWrite(Product product) {
+        if (product.getId() != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.project.event;
+
+import com.example.project.entity.ProductImage;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that reports an image write as a {@link ProductChangedEvent} for its product,
+ * so cached product pages pick up the new gallery.
+ */
+public class ProductImageEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onImageWrite(ProductImage image) {
+        if (image.getProduct() != null && image.getProduct().getId() != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct().getId()));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.project.event;
+
+/**
+ * Published when a review write changes what the review contributes to its product's rating aggregates:
+ * insert, approval, spam flag, rating edit or delete. A rating of 0 means "not counted".
+ */
+public class ProductReviewChangedEvent {
+
+    private final Long productId;
+    private final int oldRating;
+    private final boolean oldVerified;
+    private final int newRating;
+    private final boolean newVerified;
+
+    public ProductReviewChangedEvent(Long productId, int oldRating, boolean oldVerified, int newRating, boolean newVerified) {
+        this.productId = productId;
+        this.oldRating = oldRating;
+        this.oldVerified = oldVerified;
+        this.newRating = newRating;
+        this.newVerified = newVerified;
+    }
+
+    public Long getProductId() { return productId; }
+    public int getOldRating() { return oldRating; }
+    public boolean isOldVerified() { return oldVerified; }
+    public int getNewRating() { return newRating; }
+    public boolean isNewVerified() { return newVerified; }
+}
@@ -0,0 +1,49 @@
+package com.example.project.event;
+
+import com.example.project.entity.ProductReview;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that publishes a {@link ProductReviewChangedEvent} whenever a review write changes its
+ * contribution to the rating aggregates. The contribution as loaded is remembered on the entity, so an
+ * update can be turned into a delta without re-reading the old row.
+ */
+public class ProductReviewEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onReviewLoad(ProductReview review) {
+        review.rememberAggregateContribution();
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onReviewWrite(ProductReview review) {
+        publish(review, review.countedRating(), Boolean.TRUE.equals(review.isVerifiedPurchase()));
+        review.rememberAggregateContribution();
+    }
+
+    @PostRemove
+    public void onReviewRemove(ProductReview review) {
+        publish(review, 0, false);
+    }
+
+    private void publish(ProductReview review, int newRating, boolean newVerified) {
+        int oldRating = review.loadedRating();
+        boolean oldVerified = review.loadedVerified();
+        if (oldRating == newRating && (newRating == 0 || oldVerified == newVerified)) {
+            return;
+        }
+        if (review.getProduct() != null && review.getProduct().getId() != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new ProductReviewChangedEvent(review.getProduct().getId(),
+                    oldRating, oldVerified, newRating, newVerified));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.project.event;
+
+/**
+ * Published whenever a product variant is inserted, updated (including its stock) or deleted.
+ */
+public class ProductVariantChangedEvent {
+
+    private final Long productId;
+
+    public ProductVariantChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.project.event;
+
+import com.example.project.entity.ProductVariant;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns every variant write into a {@link ProductVariantChangedEvent} for its product.
+ */
+public class ProductVariantEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onVariantWrite(ProductVariant variant) {
+        if (variant.getProduct() != null && variant.getProduct().getId() != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new ProductVariantChangedEvent(variant.getProduct().getId()));
+        }
+    }
+}
@@ -2,9 +2,16 @@ package com.example.project.repository;
 
 import com.example.project.entity.Brand;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface BrandRepository extends JpaRepository<Brand, Long> {
     Brand findByName(String name);
-} 
\ No newline at end of file
+
+    // Lightweight (id, name) pairs for bulk lookups such as catalog import
+    @Query("SELECT b.id, b.name FROM Brand b")
+    List<Object[]> findAllIdAndName();
+}
@@ -2,8 +2,19 @@ package com.example.project.repository;
 
 import com.example.project.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-} 
\ No newline at end of file
+
+    // Lightweight (id, name) pairs for bulk lookups such as catalog import
+    @Query("SELECT c.id, c.name FROM Category c")
+    List<Object[]> findAllIdAndName();
+
+    // (id, parentId, name) rows in display order, enough to build the in-memory category tree
+    @Query("SELECT c.id, p.id, c.name FROM Category c LEFT JOIN c.parent p ORDER BY c.sortOrder, c.name, c.id")
+    List<Object[]> findTreeRows();
+}
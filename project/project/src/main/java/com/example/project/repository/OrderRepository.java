@@ -61,6 +61,16 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.totalAmount DESC")
     List<Order> findTopOrdersByStatus(@Param("status") OrderStatus status, Pageable pageable);
     
+    // Keyset (seek) queries, newest first; ids are IDENTITY so they follow insertion order
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user WHERE o.id < :lastId ORDER BY o.id DESC")
+    List<Order> findBeforeId(@Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user WHERE o.status = :status AND o.id < :lastId ORDER BY o.id DESC")
+    List<Order> findByStatusBeforeId(@Param("status") OrderStatus status, @Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user WHERE o.user.id = :userId AND o.id < :lastId ORDER BY o.id DESC")
+    List<Order> findByUserIdBeforeId(@Param("userId") Long userId, @Param("lastId") Long lastId, Pageable limit);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     long countByStatus(@Param("status") OrderStatus status);
     
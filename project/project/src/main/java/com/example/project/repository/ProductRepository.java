@@ -3,12 +3,15 @@ package com.example.project.repository;
 import com.example.project.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import com.example.project.dto.ProductSimpleResponse;
@@ -16,6 +19,26 @@ import com.example.project.dto.ProductSimpleResponse;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    // Listing-card projection: only the columns a card needs, category and brand names joined in one statement
+    String SIMPLE_SELECT = "SELECT new com.example.project.dto.ProductSimpleResponse(" +
+            "p.id, p.name, p.sku, p.price, p.compareAtPrice, p.imageUrl, " +
+            "p.isActive, p.isFeatured, p.isDigital, p.stockQuantity, " +
+            "p.averageRating, p.reviewCount, p.viewCount, p.purchaseCount, p.createdAt, " +
+            "c.id, c.name, b.id, b.name) " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.brand b ";
+    
+    // Product.content is lazy; methods whose results are shown with their description load it in the same statement
+    @EntityGraph(attributePaths = "content")
+    Optional<Product> findWithContentById(Long id);
+    
+    @EntityGraph(Product.DETAIL_GRAPH)
+    List<Product> findDetailByIdIn(Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "content")
+    @Query("SELECT p FROM Product p")
+    List<Product> findAllWithContent();
+    
+    @EntityGraph(attributePaths = "content")
     Page<Product> findByIsActiveTrue(Pageable pageable);
     
     Page<Product> findByIsActiveFalse(Pageable pageable);
@@ -24,7 +47,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Page<Product> findByBrandId(Long brandId, Pageable pageable);
     
-    Page<Product> findByNameContainingOrDescriptionContaining(String name, String description, Pageable pageable);
+    Page<Product> findByNameContainingOrContentDescriptionContaining(String name, String description, Pageable pageable);
     
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
     
@@ -75,8 +98,13 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
     long countActiveProducts();
     
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND p.isActive = true")
-    long countActiveProductsByCategory(@Param("categoryId") Long categoryId);
+    // Pass a category subtree from CategoryTree to count everything under it
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id IN :categoryIds AND p.isActive = true")
+    long countActiveProductsByCategory(@Param("categoryIds") Collection<Long> categoryIds);
+    
+    // (categoryId, active product count) for every category that has products
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.isActive = true AND p.category IS NOT NULL GROUP BY p.category.id")
+    List<Object[]> countActiveProductsGroupedByCategory();
     
     @Query("SELECT COUNT(p) FROM Product p WHERE p.brand.id = :brandId AND p.isActive = true")
     long countActiveProductsByBrand(@Param("brandId") Long brandId);
@@ -87,7 +115,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT AVG(p.averageRating) FROM Product p WHERE p.isActive = true AND p.reviewCount > 0")
     Double getAverageRating();
     
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand WHERE p.isActive = true")
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.isActive = true")
     List<Product> findActiveProductsWithCategoryAndBrand();
     
     @Query("SELECT p FROM Product p JOIN p.category JOIN p.brand WHERE p.isActive = true")
@@ -101,6 +129,78 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand WHERE p.isActive = true")
     Page<Product> findActiveWithCategoryAndBrand(Pageable pageable);
     
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.id IN :ids")
+    List<Product> findWithCategoryAndBrandByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "content")
+    @Query(value = "SELECT p FROM Product p LEFT JOIN p.content pc WHERE p.isActive = true AND (p.name LIKE CONCAT('%', :term, '%') OR pc.description LIKE CONCAT('%', :term, '%'))",
+           countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.content pc WHERE p.isActive = true AND (p.name LIKE CONCAT('%', :term, '%') OR pc.description LIKE CONCAT('%', :term, '%'))")
+    Page<Product> searchActiveByNameOrDescription(@Param("term") String term, Pageable pageable);
+    
+    @Query(value = SIMPLE_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSimpleResponse> findActiveSimple(Pageable pageable);
+    
+    @Query(value = SIMPLE_SELECT + "WHERE p.isActive = true AND c.name = :categoryName",
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN p.category c WHERE p.isActive = true AND c.name = :categoryName")
+    Page<ProductSimpleResponse> findActiveSimpleByCategoryName(@Param("categoryName") String categoryName, Pageable pageable);
+    
+    @Query(value = SIMPLE_SELECT + "WHERE p.isActive = true AND c.id IN :categoryIds",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.category.id IN :categoryIds")
+    Page<ProductSimpleResponse> findActiveSimpleByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
+    
+    @Query(value = SIMPLE_SELECT + "LEFT JOIN p.content pc WHERE p.isActive = true AND (p.name LIKE CONCAT('%', :term, '%') OR pc.description LIKE CONCAT('%', :term, '%'))",
+           countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.content pc WHERE p.isActive = true AND (p.name LIKE CONCAT('%', :term, '%') OR pc.description LIKE CONCAT('%', :term, '%'))")
+    Page<ProductSimpleResponse> searchActiveSimple(@Param("term") String term, Pageable pageable);
+    
+    @Query(SIMPLE_SELECT + "WHERE p.id IN :ids")
+    List<ProductSimpleResponse> findSimpleByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Keyset (seek) queries: pass PageRequest.of(0, limit) only to cap the row count, no COUNT is issued
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.isActive = true AND p.id > :lastId ORDER BY p.id ASC")
+    List<Product> findActiveAfterId(@Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.isActive = true AND p.id < :lastId ORDER BY p.id DESC")
+    List<Product> findActiveBeforeId(@Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.isActive = true AND (p.price, p.id) > (:price, :lastId) ORDER BY p.price ASC, p.id ASC")
+    List<Product> findActiveAfterPrice(@Param("price") BigDecimal price, @Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.content WHERE p.isActive = true AND (p.price, p.id) < (:price, :lastId) ORDER BY p.price DESC, p.id DESC")
+    List<Product> findActiveBeforePrice(@Param("price") BigDecimal price, @Param("lastId") Long lastId, Pageable limit);
+    
+    @EntityGraph(attributePaths = "content")
     @Query("SELECT p FROM Product p JOIN p.category c WHERE c.name = :categoryName AND p.isActive = true")
     Page<Product> findByCategoryNameAndIsActiveTrue(@Param("categoryName") String categoryName, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "content")
+    @Query("SELECT p FROM Product p WHERE p.category.id IN :categoryIds AND p.isActive = true")
+    Page<Product> findActiveByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
+    
+    // Bulk mutation: ids are streamed with a keyset scan, each chunk is updated with one statement.
+    // These bypass the entity listener, so callers publish ProductChangedEvent themselves.
+    @Query("SELECT p.id FROM Product p WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<Long> findIdsAfter(@Param("lastId") Long lastId, Pageable limit);
+    
+    @Query("SELECT p.sku FROM Product p")
+    List<String> findAllSkus();
+    
+    @Query("SELECT p.id FROM Product p WHERE p.sku IN :skus")
+    List<Long> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = :stockQuantity, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id IN :ids")
+    int updateStockByIdIn(@Param("ids") Collection<Long> ids, @Param("stockQuantity") Integer stockQuantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.price = :price, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id IN :ids")
+    int updatePriceByIdIn(@Param("ids") Collection<Long> ids, @Param("price") BigDecimal price);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.price = p.price * :factor, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id IN :ids")
+    int scalePriceByIdIn(@Param("ids") Collection<Long> ids, @Param("factor") BigDecimal factor);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.isActive = :active, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id IN :ids")
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") Boolean active);
 } 
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.project.repository;
+
+import com.example.project.dto.ReviewDTO;
+import com.example.project.entity.ProductReview;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductReviewRepository extends JpaRepository<ProductReview, Long> {
+
+    // Visible reviews of one product, matching the leading columns of idx_reviews_helpful / idx_reviews_newest.
+    // is_spam is compared by equality so the sort key is read in index order; NULLs are backfilled to false
+    // at startup (ReviewService.backfillListingKeys) and never written again
+    String VISIBLE = "FROM ProductReview r WHERE r.product.id = :productId AND r.isApproved = true "
+            + "AND r.isSpam = false ";
+
+    // Keyset positions only: (id, sort key) rows answered from the composite index, no TEXT columns touched
+    @Query("SELECT r.id, r.helpfulnessScore " + VISIBLE + "ORDER BY r.helpfulnessScore DESC, r.id DESC")
+    List<Object[]> findMostHelpfulKeys(@Param("productId") Long productId, Pageable limit);
+
+    @Query("SELECT r.id, r.helpfulnessScore " + VISIBLE
+            + "AND (r.helpfulnessScore, r.id) < (:score, :lastId) ORDER BY r.helpfulnessScore DESC, r.id DESC")
+    List<Object[]> findMostHelpfulKeysAfter(@Param("productId") Long productId, @Param("score") Double score,
+                                            @Param("lastId") Long lastId, Pageable limit);
+
+    @Query("SELECT r.id, r.createdAt " + VISIBLE + "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Object[]> findNewestKeys(@Param("productId") Long productId, Pageable limit);
+
+    @Query("SELECT r.id, r.createdAt " + VISIBLE
+            + "AND (r.createdAt, r.id) < (:createdAt, :lastId) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Object[]> findNewestKeysAfter(@Param("productId") Long productId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("lastId") Long lastId, Pageable limit);
+
+    // Page rows by id; the caller restores the keyset order
+    @Query("SELECT new com.example.project.dto.ReviewDTO(r.id, r.rating, r.title, r.content, r.verifiedPurchase, "
+            + "r.helpfulVotes, r.totalVotes, r.helpfulnessScore, r.createdAt, u.id, u.username) "
+            + "FROM ProductReview r LEFT JOIN r.user u WHERE r.id IN :ids")
+    List<ReviewDTO> findListingByIdIn(@Param("ids") Collection<Long> ids);
+}
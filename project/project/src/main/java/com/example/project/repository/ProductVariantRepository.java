@@ -0,0 +1,20 @@
+package com.example.project.repository;
+
+import com.example.project.entity.ProductVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+
+    @Query("SELECT v FROM ProductVariant v WHERE v.product.id = :productId AND v.isActive = true ORDER BY v.id")
+    List<ProductVariant> findActiveByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT v FROM ProductVariant v WHERE v.product.id IN :productIds AND v.isActive = true ORDER BY v.product.id, v.id")
+    List<ProductVariant> findActiveByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
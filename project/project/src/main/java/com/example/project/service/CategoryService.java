@@ -3,9 +3,11 @@ package com.example.project.service;
 import com.example.project.entity.Category;
 import com.example.project.repository.CategoryRepository;
 import com.example.project.repository.ProductRepository;
+import com.example.project.service.catalog.CategoryTree;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -13,10 +15,12 @@ import java.util.stream.Collectors;
 @Service
 public class CategoryService {
     private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, CategoryTree categoryTree) {
         this.categoryRepository = categoryRepository;
+        this.categoryTree = categoryTree;
     }
 
     public List<Category> getAllCategories() {
@@ -24,8 +28,14 @@ public class CategoryService {
     }
 
     public List<Map<String, Object>> getAllCategoriesWithProductCount(ProductRepository productRepository) {
+        // One grouped count, rolled up so each category includes the products of its subcategories
+        Map<Long, Long> directCounts = new HashMap<>();
+        for (Object[] row : productRepository.countActiveProductsGroupedByCategory()) {
+            directCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        Map<Long, Long> subtreeCounts = categoryTree.getSnapshot().subtreeTotals(directCounts);
         return categoryRepository.findAll().stream().map(category -> {
-            long productCount = productRepository.countActiveProductsByCategory(category.getId());
+            long productCount = subtreeCounts.getOrDefault(category.getId(), directCounts.getOrDefault(category.getId(), 0L));
             Map<String, Object> map = new java.util.HashMap<>();
             map.put("id", category.getId());
             map.put("name", category.getName());
@@ -0,0 +1,293 @@
+package com.example.project.service;
+
+import com.example.project.entity.OrderStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full-table exports for partners and BI jobs, streamed as NDJSON or CSV.
+ * Rows go from a forward-only JDBC cursor straight to the response stream, one at a time,
+ * so heap use stays flat whatever the size of the catalog or order history.
+ */
+@Service
+public class ExportService {
+
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    // CSV column names match ProductImportService, so an export can be imported elsewhere
+    private static final String[] PRODUCT_COLUMNS = {
+            "id", "sku", "name", "description", "price", "compareAtPrice", "stockQuantity", "isActive", "isFeatured",
+            "category", "brand", "tags", "imageUrl", "viewCount", "purchaseCount", "averageRating", "reviewCount",
+            "createdAt", "updatedAt"
+    };
+
+    private static final String PRODUCT_SQL = "SELECT p.id, p.sku, p.name, pc.description, p.price, p.compare_at_price, "
+            + "p.stock_quantity, p.is_active, p.is_featured, c.name, b.name, pc.tags, p.image_url, p.view_count, "
+            + "p.purchase_count, p.average_rating, p.review_count, p.created_at, p.updated_at "
+            + "FROM products p LEFT JOIN product_content pc ON pc.id = p.content_id "
+            + "LEFT JOIN categories c ON c.id = p.category_id LEFT JOIN brands b ON b.id = p.brand_id ";
+
+    private static final String[] ORDER_COLUMNS = {
+            "id", "orderNumber", "userId", "userEmail", "status", "paymentStatus", "paymentMethod", "subtotal",
+            "taxAmount", "shippingAmount", "discountAmount", "totalAmount", "itemCount", "shippingMethod",
+            "trackingNumber", "createdAt", "updatedAt", "deliveredDate", "cancelledDate"
+    };
+
+    private static final String ORDER_SQL = "SELECT o.id, o.order_number, o.user_id, u.email, o.order_status, "
+            + "o.payment_status, o.payment_method, o.subtotal, o.tax_amount, o.shipping_amount, o.discount_amount, "
+            + "o.total_amount, (SELECT COUNT(*) FROM order_items oi WHERE oi.order_id = o.id), o.shipping_method, "
+            + "o.tracking_number, o.created_at, o.updated_at, o.delivered_date, o.cancelled_date "
+            + "FROM orders o LEFT JOIN users u ON u.id = o.user_id ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Rows per round trip for drivers that honour a positive fetch size
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Stream products in id order, optionally only the active ones
+     */
+    public void exportProducts(OutputStream out, Format format, boolean activeOnly) throws IOException {
+        String sql = PRODUCT_SQL + (activeOnly ? "WHERE p.is_active = true " : "") + "ORDER BY p.id";
+        export(out, format, PRODUCT_COLUMNS, sql);
+    }
+
+    /**
+     * Stream orders in id order, optionally filtered by status
+     */
+    public void exportOrders(OutputStream out, Format format, OrderStatus status) throws IOException {
+        if (status != null) {
+            export(out, format, ORDER_COLUMNS, ORDER_SQL + "WHERE o.order_status = ? ORDER BY o.id", status.name());
+        } else {
+            export(out, format, ORDER_COLUMNS, ORDER_SQL + "ORDER BY o.id");
+        }
+    }
+
+    /**
+     * Wrap an export in a streaming response: attachment named after the dataset, gzipped on request
+     */
+    public static ResponseEntity<StreamingResponseBody> response(String dataset, Format format, boolean gzip, Exporter exporter) {
+        String filename = dataset + "-" + LocalDate.now() + "." + format.extension + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, WRITE_BUFFER)) {
+                    exporter.export(compressed);
+                }
+            } else {
+                exporter.export(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : format.mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private void export(OutputStream out, Format format, String[] columns, String sql, Object... args) throws IOException {
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(out, columns);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(streamingFetchSize(connection));
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; surface it as the IOException it is
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * MySQL Connector/J only streams row by row with Integer.MIN_VALUE; otherwise it buffers the whole result
+     */
+    private int streamingFetchSize(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase(Locale.ROOT).contains("mysql") ? Integer.MIN_VALUE : fetchSize;
+    }
+
+    // Inner classes
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv;charset=UTF-8"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public static Format parse(String raw) {
+            if (raw == null || raw.isBlank()) {
+                return NDJSON;
+            }
+            switch (raw.trim().toLowerCase(Locale.ROOT)) {
+                case "ndjson", "jsonl":
+                    return NDJSON;
+                case "csv":
+                    return CSV;
+                default:
+                    throw new IllegalArgumentException("Unsupported format: " + raw);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Exporter {
+        void export(OutputStream out) throws IOException;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final String[] columns;
+
+        NdjsonRowWriter(OutputStream out, String[] columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(columns[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof String text) {
+                    generator.writeString(text);
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.doubleValue());
+                } else if (value instanceof Boolean flag) {
+                    generator.writeBoolean(flag);
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final int columnCount;
+
+        CsvRowWriter(OutputStream out, String[] columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER);
+            this.columnCount = columns.length;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns[i]);
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    writer.write(timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writeEscaped(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.project.service;
 
+import com.example.project.dto.CursorPage;
 import com.example.project.entity.*;
 
 import com.example.project.repository.OrderRepository;
@@ -11,8 +12,10 @@ import com.example.project.entity.InventoryItem;
 import com.example.project.entity.Warehouse;
 import com.example.project.repository.WarehouseRepository;
 import com.example.project.service.ai.AIService;
+import com.example.project.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +33,8 @@ public class OrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
     
+    private static final String ORDER_CURSOR_SORT = "newest";
+    
     @Autowired
     private OrderRepository orderRepository;
     
@@ -56,6 +61,9 @@ public class OrderService {
     
     @Autowired
     private ShippingService shippingService;
+
+    @Autowired
+    private ProductCounterService productCounterService;
     
     @Autowired
     private AIService aiService;
@@ -108,6 +116,7 @@ public class OrderService {
             orderItem.setQuantity(itemRequest.quantity());
             orderItem.setPrice(product.getPrice());
             orderItems.add(orderItem);
+            productCounterService.recordPurchase(product.getId(), itemRequest.quantity());
         }
         
         // Add shipping fee
@@ -634,6 +643,45 @@ public class OrderService {
         return orderRepository.findAll(pageable);
     }
     
+    /**
+     * Keyset-paginated order listing, newest first, optionally filtered by status
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<Order> scrollOrders(OrderStatus status, String cursor, int size) {
+        Long lastId = decodeOrderCursor(cursor);
+        List<Order> rows = status != null
+                ? orderRepository.findByStatusBeforeId(status, lastId, PageRequest.of(0, size + 1))
+                : orderRepository.findBeforeId(lastId, PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size);
+    }
+    
+    /**
+     * Keyset-paginated orders of one user, newest first
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<Order> scrollUserOrders(Long userId, String cursor, int size) {
+        Long lastId = decodeOrderCursor(cursor);
+        return toCursorPage(orderRepository.findByUserIdBeforeId(userId, lastId, PageRequest.of(0, size + 1)), size);
+    }
+    
+    private Long decodeOrderCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        return CursorCodec.decode(cursor, ORDER_CURSOR_SORT).getLastId();
+    }
+    
+    private CursorPage<Order> toCursorPage(List<Order> rows, int size) {
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = CursorCodec.encode(ORDER_CURSOR_SORT, null, rows.get(size - 1).getId());
+        }
+        return new CursorPage<>(rows, size, nextCursor);
+    }
+    
     /**
      * Count orders by status
      */
@@ -0,0 +1,544 @@
+package com.example.project.service;
+
+import com.example.project.dto.BulkProductUpdateRequest;
+import com.example.project.event.ProductChangedEvent;
+import com.example.project.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk stock, price and active-flag updates, run as background jobs.
+ * Product ids are streamed in keyset chunks; each chunk is one set-based UPDATE (or one JDBC batch when
+ * every product gets its own value) in its own transaction. After each commit the job checkpoints the last
+ * id and publishes a {@link ProductChangedEvent} for the chunk, which evicts caches and patches the catalog
+ * indexes. A failed job can be resumed from its checkpoint.
+ * The plan and the checkpoint are also written to files under catalog.bulk.dir, so status polling and resume
+ * survive a restart; a job that was running when the application stopped comes back as failed.
+ */
+@Service
+public class ProductBulkUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkUpdateService.class);
+
+    // Finished jobs are kept for status polling until this many newer jobs have been submitted
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private static final String PLAN_SUFFIX = ".plan";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f-]{36}");
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${catalog.bulk.dir:${java.io.tmpdir}/catalog-bulk}")
+    private String bulkDir;
+
+    // One worker: bulk jobs run one after another so they never contend for the same rows
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-bulk-update");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, BulkUpdateJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BulkUpdateJob> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    });
+
+    /**
+     * Validate the request and queue it; throws IllegalArgumentException for an invalid request
+     */
+    public BulkUpdateJob submit(BulkProductUpdateRequest request) {
+        Plan plan = Plan.from(request);
+        long total = plan.productIds != null ? plan.productIds.length : productRepository.count();
+        BulkUpdateJob job = new BulkUpdateJob(UUID.randomUUID().toString(), plan, total, LocalDateTime.now());
+        jobs.put(job.getJobId(), job);
+        writePlan(job);
+        writeCheckpoint(job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    /**
+     * Set the stock of every product
+     */
+    public BulkUpdateJob updateAllStock(Integer stockQuantity) {
+        return submit(new BulkProductUpdateRequest("stock", "set", BigDecimal.valueOf(stockQuantity)));
+    }
+
+    /**
+     * Job status; after a restart it is read back from the checkpoint file
+     */
+    public BulkUpdateJob getJob(String jobId) {
+        BulkUpdateJob job = jobs.get(jobId);
+        if (job == null && JOB_ID.matcher(jobId).matches()) {
+            job = readCheckpoint(jobId);
+            if (job != null) {
+                jobs.put(jobId, job);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Re-queue a failed (or interrupted) job; it continues after the last committed chunk
+     */
+    public BulkUpdateJob resume(String jobId) {
+        BulkUpdateJob job = getJob(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (!job.markPending()) {
+            throw new IllegalStateException("Only failed jobs can be resumed, job is " + job.getStatus());
+        }
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupts the running job between chunks; it is left FAILED with its checkpoint
+        executor.shutdownNow();
+    }
+
+    private void run(BulkUpdateJob job) {
+        job.markRunning();
+        writeCheckpoint(job);
+        try {
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Interrupted by shutdown");
+                }
+                List<Long> ids = nextChunk(job.plan, job.getLastProductId());
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer updated = transactionTemplate.execute(status -> {
+                    int rows = apply(job.plan, ids);
+                    // Delivered after commit: cache eviction and index patching happen per chunk
+                    eventPublisher.publishEvent(new ProductChangedEvent(ids));
+                    return rows;
+                });
+                job.chunkCommitted(ids.get(ids.size() - 1), ids.size(), updated != null ? updated : 0);
+                writeCheckpoint(job);
+            }
+            job.markCompleted();
+            writeCheckpoint(job);
+            logger.info("Bulk {} update {} finished: {} products, {} rows updated",
+                    job.getField(), job.getJobId(), job.getProcessed(), job.getUpdated());
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            writeCheckpoint(job);
+            logger.error("Bulk {} update {} failed after product {}", job.getField(), job.getJobId(), job.getLastProductId(), e);
+        }
+    }
+
+    private List<Long> nextChunk(Plan plan, long lastId) {
+        if (plan.productIds == null) {
+            return productRepository.findIdsAfter(lastId, PageRequest.of(0, chunkSize));
+        }
+        int from = Arrays.binarySearch(plan.productIds, lastId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = Math.min(from + chunkSize, plan.productIds.length);
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(plan.productIds[i]);
+        }
+        return ids;
+    }
+
+    private int apply(Plan plan, List<Long> ids) {
+        if (plan.values != null) {
+            return applyBatch(plan, ids);
+        }
+        switch (plan.field) {
+            case STOCK:
+                return productRepository.updateStockByIdIn(ids, plan.value.intValueExact());
+            case PRICE:
+                if (plan.mode == Mode.PERCENT) {
+                    return productRepository.scalePriceByIdIn(ids, BigDecimal.ONE.add(plan.value.divide(HUNDRED)));
+                }
+                return productRepository.updatePriceByIdIn(ids, plan.value);
+            default:
+                return productRepository.updateActiveByIdIn(ids, plan.active);
+        }
+    }
+
+    /**
+     * Per-product values: one batched statement per chunk (add rewriteBatchedStatements=true on MySQL)
+     */
+    private int applyBatch(Plan plan, List<Long> ids) {
+        String column = plan.field == Field.STOCK ? "stock_quantity" : "price";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BigDecimal value = plan.values.get(id);
+            rows.add(new Object[] { plan.field == Field.STOCK ? (Object) value.intValueExact() : value, now, id });
+        }
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate("UPDATE products SET " + column + " = ?, updated_at = ? WHERE id = ?", rows)) {
+            // Rewritten batches report SUCCESS_NO_INFO (-2) per statement
+            updated += count >= 0 ? count : 1;
+        }
+        return updated;
+    }
+
+    // Job files: the plan written once at submit, the checkpoint replaced atomically after each chunk
+
+    private void writePlan(BulkUpdateJob job) {
+        write(job.jobId, PLAN_SUFFIX, job.plan.toProperties());
+    }
+
+    private void writeCheckpoint(BulkUpdateJob job) {
+        Properties properties = new Properties();
+        synchronized (job) {
+            properties.setProperty("status", job.status.name());
+            properties.setProperty("total", Long.toString(job.total));
+            properties.setProperty("processed", Long.toString(job.processed));
+            properties.setProperty("updated", Long.toString(job.updated));
+            properties.setProperty("lastProductId", Long.toString(job.lastProductId));
+            properties.setProperty("submittedAt", job.submittedAt.toString());
+            if (job.startedAt != null) {
+                properties.setProperty("startedAt", job.startedAt.toString());
+            }
+            if (job.finishedAt != null) {
+                properties.setProperty("finishedAt", job.finishedAt.toString());
+            }
+            if (job.error != null) {
+                properties.setProperty("error", job.error);
+            }
+        }
+        write(job.jobId, CHECKPOINT_SUFFIX, properties);
+    }
+
+    private void write(String jobId, String suffix, Properties properties) {
+        try {
+            Path dir = Files.createDirectories(Path.of(bulkDir));
+            Path file = dir.resolve(jobId + suffix);
+            Path temp = dir.resolve(jobId + suffix + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "bulk update " + jobId);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write {} for bulk update {}: {}", suffix.substring(1), jobId, e.getMessage());
+        }
+    }
+
+    private BulkUpdateJob readCheckpoint(String jobId) {
+        Properties checkpoint = read(jobId, CHECKPOINT_SUFFIX);
+        Properties plan = checkpoint != null ? read(jobId, PLAN_SUFFIX) : null;
+        if (plan == null) {
+            return null;
+        }
+        JobStatus status = JobStatus.valueOf(checkpoint.getProperty("status"));
+        BulkUpdateJob job = new BulkUpdateJob(jobId, Plan.from(plan),
+                Long.parseLong(checkpoint.getProperty("total", "0")),
+                LocalDateTime.parse(checkpoint.getProperty("submittedAt")));
+        job.processed = Long.parseLong(checkpoint.getProperty("processed", "0"));
+        job.updated = Long.parseLong(checkpoint.getProperty("updated", "0"));
+        job.lastProductId = Long.parseLong(checkpoint.getProperty("lastProductId", "0"));
+        job.startedAt = parseTime(checkpoint.getProperty("startedAt"));
+        job.finishedAt = parseTime(checkpoint.getProperty("finishedAt"));
+        job.error = checkpoint.getProperty("error");
+        // A job that was running when the application stopped is resumable like a failed one
+        job.status = status == JobStatus.COMPLETED ? JobStatus.COMPLETED : JobStatus.FAILED;
+        if (status != JobStatus.COMPLETED && job.error == null) {
+            job.error = "Interrupted by restart";
+        }
+        return job;
+    }
+
+    private Properties read(String jobId, String suffix) {
+        Path file = Path.of(bulkDir).resolve(jobId + suffix);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            return properties;
+        } catch (IOException e) {
+            logger.warn("Could not read {} for bulk update {}: {}", suffix.substring(1), jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    // Inner classes
+    public enum Field { STOCK, PRICE, ACTIVE }
+
+    public enum Mode { SET, PERCENT }
+
+    public enum JobStatus { PENDING, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * Validated, immutable form of a request
+     */
+    private static class Plan {
+        private Field field;
+        private Mode mode;
+        private BigDecimal value;
+        private Boolean active;
+        private long[] productIds;
+        private Map<Long, BigDecimal> values;
+
+        static Plan from(BulkProductUpdateRequest request) {
+            Plan plan = new Plan();
+            plan.field = parse(Field.class, request.getField(), null, "field");
+            plan.mode = parse(Mode.class, request.getMode(), Mode.SET, "mode");
+            if (plan.mode == Mode.PERCENT && plan.field != Field.PRICE) {
+                throw new IllegalArgumentException("percent mode only applies to price");
+            }
+
+            if (request.getValues() != null) {
+                if (plan.field == Field.ACTIVE || plan.mode != Mode.SET) {
+                    throw new IllegalArgumentException("values only applies to stock or price in set mode");
+                }
+                if (request.getValues().isEmpty()) {
+                    throw new IllegalArgumentException("values must not be empty");
+                }
+                request.getValues().forEach((id, value) -> checkValue(plan.field, value));
+                plan.values = Map.copyOf(request.getValues());
+                plan.productIds = sortedIds(plan.values.keySet());
+                return plan;
+            }
+
+            if (plan.field == Field.ACTIVE) {
+                if (request.getActive() == null) {
+                    throw new IllegalArgumentException("active is required");
+                }
+                plan.active = request.getActive();
+            } else if (request.getValue() == null) {
+                throw new IllegalArgumentException("value is required");
+            } else if (plan.mode == Mode.PERCENT) {
+                if (request.getValue().compareTo(HUNDRED.negate()) <= 0) {
+                    throw new IllegalArgumentException("percent must be greater than -100");
+                }
+                plan.value = request.getValue();
+            } else {
+                checkValue(plan.field, request.getValue());
+                plan.value = request.getValue();
+            }
+
+            if (request.getProductIds() != null) {
+                if (request.getProductIds().isEmpty()) {
+                    throw new IllegalArgumentException("productIds must not be empty");
+                }
+                plan.productIds = sortedIds(request.getProductIds());
+            }
+            return plan;
+        }
+
+        /**
+         * Read back a plan written by toProperties; it was validated when first submitted
+         */
+        static Plan from(Properties properties) {
+            Plan plan = new Plan();
+            plan.field = Field.valueOf(properties.getProperty("field"));
+            plan.mode = Mode.valueOf(properties.getProperty("mode"));
+            String value = properties.getProperty("value");
+            plan.value = value != null ? new BigDecimal(value) : null;
+            String active = properties.getProperty("active");
+            plan.active = active != null ? Boolean.valueOf(active) : null;
+            String values = properties.getProperty("values");
+            if (values != null) {
+                Map<Long, BigDecimal> parsed = new HashMap<>();
+                for (String pair : values.split(",")) {
+                    int separator = pair.indexOf('=');
+                    parsed.put(Long.valueOf(pair.substring(0, separator)), new BigDecimal(pair.substring(separator + 1)));
+                }
+                plan.values = Map.copyOf(parsed);
+                plan.productIds = sortedIds(plan.values.keySet());
+            } else if (properties.getProperty("productIds") != null) {
+                plan.productIds = Arrays.stream(properties.getProperty("productIds").split(","))
+                        .mapToLong(Long::parseLong).toArray();
+            }
+            return plan;
+        }
+
+        Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("field", field.name());
+            properties.setProperty("mode", mode.name());
+            if (value != null) {
+                properties.setProperty("value", value.toPlainString());
+            }
+            if (active != null) {
+                properties.setProperty("active", active.toString());
+            }
+            if (values != null) {
+                properties.setProperty("values", values.entrySet().stream()
+                        .map(entry -> entry.getKey() + "=" + entry.getValue().toPlainString())
+                        .collect(Collectors.joining(",")));
+            } else if (productIds != null) {
+                properties.setProperty("productIds", Arrays.stream(productIds)
+                        .mapToObj(Long::toString).collect(Collectors.joining(",")));
+            }
+            return properties;
+        }
+
+        private static void checkValue(Field field, BigDecimal value) {
+            if (value == null) {
+                throw new IllegalArgumentException("value is required");
+            }
+            if (field == Field.STOCK) {
+                if (value.signum() < 0 || value.stripTrailingZeros().scale() > 0) {
+                    throw new IllegalArgumentException("stock must be a non-negative integer: " + value);
+                }
+                value.intValueExact();
+            } else if (value.compareTo(MIN_PRICE) < 0) {
+                throw new IllegalArgumentException("price must be at least " + MIN_PRICE + ": " + value);
+            }
+        }
+
+        private static long[] sortedIds(Collection<Long> ids) {
+            return ids.stream().filter(id -> id != null).mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+
+        private static <E extends Enum<E>> E parse(Class<E> type, String raw, E fallback, String name) {
+            if (raw == null || raw.isBlank()) {
+                if (fallback == null) {
+                    throw new IllegalArgumentException(name + " is required");
+                }
+                return fallback;
+            }
+            try {
+                return Enum.valueOf(type, raw.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown " + name + ": " + raw);
+            }
+        }
+    }
+
+    /**
+     * Progress of one bulk update; serialized as the status endpoint's response
+     */
+    public static class BulkUpdateJob {
+        private final String jobId;
+        private final Plan plan;
+        private final long total;
+        private final LocalDateTime submittedAt;
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile long processed;
+        private volatile long updated;
+        private volatile long lastProductId;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        BulkUpdateJob(String jobId, Plan plan, long total, LocalDateTime submittedAt) {
+            this.jobId = jobId;
+            this.plan = plan;
+            this.total = total;
+            this.submittedAt = submittedAt;
+        }
+
+        synchronized void markRunning() {
+            status = JobStatus.RUNNING;
+            if (startedAt == null) {
+                startedAt = LocalDateTime.now();
+            }
+            finishedAt = null;
+            error = null;
+        }
+
+        synchronized boolean markPending() {
+            if (status != JobStatus.FAILED) {
+                return false;
+            }
+            status = JobStatus.PENDING;
+            return true;
+        }
+
+        synchronized void chunkCommitted(long lastId, int chunkProcessed, int chunkUpdated) {
+            lastProductId = lastId;
+            processed += chunkProcessed;
+            updated += chunkUpdated;
+        }
+
+        synchronized void markCompleted() {
+            status = JobStatus.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized void markFailed(String message) {
+            status = JobStatus.FAILED;
+            finishedAt = LocalDateTime.now();
+            error = message;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getField() { return plan.field.name().toLowerCase(Locale.ROOT); }
+        public String getMode() { return plan.mode.name().toLowerCase(Locale.ROOT); }
+        public JobStatus getStatus() { return status; }
+        public long getTotal() { return total; }
+        public long getProcessed() { return processed; }
+        public long getUpdated() { return updated; }
+        public long getLastProductId() { return lastProductId; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+
+        public int getProgressPercent() {
+            if (status == JobStatus.COMPLETED || total == 0) {
+                return status == JobStatus.COMPLETED ? 100 : 0;
+            }
+            return (int) Math.min(99, processed * 100 / total);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.project.service;
+
+import com.example.project.event.ProductCountersChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view and purchase counters.
+ * Increments land on a per-product LongAdder (no lock, no database write on the request path); a background
+ * flush writes the accumulated deltas with one batched {@code view_count = view_count + ?} UPDATE every few
+ * seconds. Each counter remembers how much of it has been flushed, so increments racing with a flush are
+ * simply picked up by the next one, and a failed flush is retried with the same deltas. Each written batch publishes
+ * a {@link ProductCountersChangedEvent} with its deltas, so the view/purchase orderings and suggestion ranking follow
+ * the new totals without reloading products or touching caches, and counters with nothing left to write are dropped
+ * from the map.
+ * The last flush runs when the application stops, after the web server has stopped taking requests.
+ */
+@Service
+public class ProductCounterService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCounterService.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET view_count = view_count + ?, purchase_count = purchase_count + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.counters.flush-interval:5s}")
+    private Duration flushInterval;
+
+    @Value("${catalog.counters.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, ProductCounters> counters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile long lastFlushMillis = System.currentTimeMillis();
+    private Timer flushTimer;
+    private Counter flushFailures;
+
+    /**
+     * Count one product detail view
+     */
+    public void recordView(Long productId) {
+        if (productId != null) {
+            // Incremented inside compute so a concurrent flush cannot drop the entry in between
+            counters.compute(productId, (id, productCounters) -> {
+                ProductCounters target = productCounters != null ? productCounters : new ProductCounters();
+                target.views.increment();
+                return target;
+            });
+        }
+    }
+
+    /**
+     * Count purchased units; inside a transaction they are counted only once it commits
+     */
+    public void recordPurchase(Long productId, int quantity) {
+        if (productId == null || quantity <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addPurchases(productId, quantity);
+                }
+            });
+        } else {
+            addPurchases(productId, quantity);
+        }
+    }
+
+    private void addPurchases(Long productId, int quantity) {
+        counters.compute(productId, (id, productCounters) -> {
+            ProductCounters target = productCounters != null ? productCounters : new ProductCounters();
+            target.purchases.add(quantity);
+            return target;
+        });
+    }
+
+    /**
+     * Write all pending deltas; returns the number of products updated. Safe to call concurrently with increments.
+     */
+    public synchronized int flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Long, ProductCounters> entry : counters.entrySet()) {
+            Delta delta = entry.getValue().pending();
+            if (delta.views != 0 || delta.purchases != 0) {
+                rows.add(new Object[] { delta.views, delta.purchases, entry.getKey() });
+                productIds.add(entry.getKey());
+                deltas.add(delta);
+            }
+        }
+        if (rows.isEmpty()) {
+            lastFlushMillis = System.currentTimeMillis();
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, rows.size());
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, rows.subList(from, to));
+                    // Plain JDBC skips the entity listener; the sort and suggest indexes add the deltas after commit
+                    long[] views = new long[to - from];
+                    long[] purchases = new long[to - from];
+                    for (int i = from; i < to; i++) {
+                        views[i - from] = deltas.get(i).views;
+                        purchases[i - from] = deltas.get(i).purchases;
+                    }
+                    eventPublisher.publishEvent(new ProductCountersChangedEvent(productIds.subList(from, to), views, purchases));
+                }
+            });
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            logger.warn("Counter flush of {} products failed, will retry: {}", rows.size(), e.getMessage());
+            return 0;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        // Only now are the deltas known to be durable
+        for (Delta delta : deltas) {
+            delta.commit();
+        }
+        for (Long productId : productIds) {
+            counters.computeIfPresent(productId, (id, productCounters) -> productCounters.isSettled() ? null : productCounters);
+        }
+        lastFlushMillis = System.currentTimeMillis();
+        return rows.size();
+    }
+
+    /**
+     * Views and purchases counted but not yet written, summed over all products
+     */
+    public long getPendingIncrements() {
+        long pending = 0;
+        for (ProductCounters productCounters : counters.values()) {
+            Delta delta = productCounters.pending();
+            pending += delta.views + delta.purchases;
+        }
+        return pending;
+    }
+
+    /**
+     * Seconds since the last successful flush
+     */
+    public double getLagSeconds() {
+        return (System.currentTimeMillis() - lastFlushMillis) / 1000.0;
+    }
+
+    @Override
+    public void start() {
+        flushTimer = Timer.builder("catalog.counters.flush.duration")
+                .description("Time to write pending view/purchase deltas")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("catalog.counters.flush.failures").register(meterRegistry);
+        Gauge.builder("catalog.counters.pending", this, ProductCounterService::getPendingIncrements)
+                .description("Counted increments not yet written to the database")
+                .register(meterRegistry);
+        Gauge.builder("catalog.counters.lag", this, ProductCounterService::getLagSeconds)
+                .description("Seconds since the last successful flush")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int flushed = flush();
+        logger.info("Flushed counters for {} products on shutdown, {} increments still pending", flushed, getPendingIncrements());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server (which stops at DEFAULT_PHASE - 2048), so no increments arrive after the last flush
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Counter flush failed: {}", e.getMessage());
+        }
+    }
+
+    // Inner classes
+    private static class ProductCounters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder purchases = new LongAdder();
+        // Totals already written; only touched under the flush lock
+        private long flushedViews;
+        private long flushedPurchases;
+
+        Delta pending() {
+            return new Delta(this, views.sum() - flushedViews, purchases.sum() - flushedPurchases);
+        }
+
+        // Called inside compute, so no increment can land between this check and the removal
+        boolean isSettled() {
+            return views.sum() == flushedViews && purchases.sum() == flushedPurchases;
+        }
+    }
+
+    private static class Delta {
+        private final ProductCounters owner;
+        private final long views;
+        private final long purchases;
+
+        Delta(ProductCounters owner, long views, long purchases) {
+            this.owner = owner;
+            this.views = views;
+            this.purchases = purchases;
+        }
+
+        void commit() {
+            owner.flushedViews += views;
+            owner.flushedPurchases += purchases;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.project.service;
+
+import com.example.project.config.CacheConfig;
+import com.example.project.dto.ProductDetailResponse;
+import com.example.project.entity.Product;
+import com.example.project.entity.ProductImage;
+import com.example.project.entity.ProductRatingSummary;
+import com.example.project.entity.ProductVariant;
+import com.example.project.repository.ProductImageRepository;
+import com.example.project.repository.ProductRatingSummaryRepository;
+import com.example.project.repository.ProductRepository;
+import com.example.project.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Product page read model. However many products are asked for, the aggregate costs four statements:
+ * products with category, brand and content (entity graph), then images, active variants and rating
+ * summaries, one IN query each. Collections are never join-fetched, so there is no cartesian product.
+ */
+@Service
+public class ProductDetailService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private ProductRatingSummaryRepository productRatingSummaryRepository;
+
+    /**
+     * The product page aggregate, cached as a unit until the product, its images, variants or reviews change
+     */
+    @Cacheable(CacheConfig.PRODUCT_DETAILS)
+    @Transactional(readOnly = true)
+    public Optional<ProductDetailResponse> getDetail(Long id) {
+        return Optional.ofNullable(getDetails(List.of(id)).get(id));
+    }
+
+    /**
+     * Aggregates for the given ids, in request order; unknown ids are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ProductDetailResponse> getDetails(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findDetailByIdIn(ids)) {
+            products.put(product.getId(), product);
+        }
+        if (products.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, List<ProductDetailResponse.Image>> images = new HashMap<>();
+        for (ProductImage image : productImageRepository.findByProductIdIn(products.keySet())) {
+            images.computeIfAbsent(image.getProduct().getId(), id -> new ArrayList<>()).add(new ProductDetailResponse.Image(image));
+        }
+        Map<Long, List<ProductDetailResponse.Variant>> variants = new HashMap<>();
+        for (ProductVariant variant : productVariantRepository.findActiveByProductIdIn(products.keySet())) {
+            variants.computeIfAbsent(variant.getProduct().getId(), id -> new ArrayList<>()).add(new ProductDetailResponse.Variant(variant));
+        }
+        Map<Long, ProductRatingSummary> summaries = new HashMap<>();
+        for (ProductRatingSummary summary : productRatingSummaryRepository.findAllById(products.keySet())) {
+            summaries.put(summary.getProductId(), summary);
+        }
+
+        Map<Long, ProductDetailResponse> details = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null && !details.containsKey(id)) {
+                // No summary row yet means no counted reviews
+                ProductRatingSummary summary = summaries.getOrDefault(id, new ProductRatingSummary(id));
+                details.put(id, new ProductDetailResponse(product, images.getOrDefault(id, List.of()),
+                        variants.getOrDefault(id, List.of()), new ProductDetailResponse.Rating(summary)));
+            }
+        }
+        return details;
+    }
+}
@@ -0,0 +1,826 @@
+package com.example.project.service;
+
+import com.example.project.event.ProductChangedEvent;
+import com.example.project.repository.BrandRepository;
+import com.example.project.repository.CategoryRepository;
+import com.example.project.repository.ProductRepository;
+import com.example.project.service.ai.ProductEnrichmentQueue;
+import com.example.project.util.CsvRecordReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming catalog import from CSV (first record is the header) or JSONL, one product per record.
+ * The upload is spooled to disk and then, per chunk of records: parsed as a stream, validated in parallel
+ * against cached category, brand and SKU sets, inserted with one JDBC batch in its own transaction, and handed
+ * to {@link ProductEnrichmentQueue} for embeddings and AI tags. Validation of the next chunk overlaps the insert
+ * of the current one. After every commit a checkpoint file records how many records are done, so a failed
+ * import, even one cut short by a restart, resumes after the last committed chunk.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int MAX_RETAINED_JOBS = 50;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f-]{36}");
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("100000000");
+
+    /**
+     * Recognised columns (CSV header names / JSONL keys, case-insensitive); the first four are required
+     */
+    public static final List<String> COLUMNS = List.of("name", "description", "sku", "price",
+            "compareAtPrice", "stockQuantity", "category", "brand", "tags", "imageUrl", "isActive", "isFeatured");
+
+    private static final String CONTENT_INSERT_SQL = "INSERT INTO product_content (description, tags) VALUES (?, ?)";
+
+    private static final String INSERT_SQL = "INSERT INTO products (name, content_id, sku, price, compare_at_price, "
+            + "stock_quantity, low_stock_threshold, is_active, is_featured, is_digital, requires_shipping, image_url, "
+            + "category_id, brand_id, view_count, purchase_count, average_rating, review_count, recommendation_score, "
+            + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, 10, ?, ?, false, true, ?, ?, ?, 0, 0, 0, 0, 0, ?, ?)";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductEnrichmentQueue enrichmentQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.import.dir:${java.io.tmpdir}/catalog-import}")
+    private String importDir;
+
+    // Larger uploads are rejected while being spooled
+    @Value("${catalog.import.max-upload-size:512MB}")
+    private DataSize maxUploadSize;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    // 0 = one validation thread per core
+    @Value("${catalog.import.parallelism:0}")
+    private int parallelism;
+
+    // Imports run one at a time; validation fans out on its own pool
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ForkJoinPool validationPool;
+
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        validationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // The running import stops between chunks and keeps its checkpoint
+        executor.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    public DataSize getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * Spool the upload to disk and queue it; format is "csv" or "jsonl"
+     *
+     * @throws UploadTooLargeException once the body passes catalog.import.max-upload-size; nothing is kept
+     */
+    public ImportJob submit(InputStream body, String format) throws IOException {
+        Format parsed = Format.parse(format);
+        String jobId = UUID.randomUUID().toString();
+        Path dir = Files.createDirectories(Path.of(importDir));
+        Path spool = dir.resolve(jobId + "." + parsed.extension);
+        spool(body, spool);
+
+        ImportJob job = new ImportJob(jobId, parsed, spool);
+        writeCheckpoint(job);
+        jobs.put(jobId, job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    private void spool(InputStream body, Path spool) throws IOException {
+        long limit = maxUploadSize.toBytes();
+        try (OutputStream out = Files.newOutputStream(spool, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[1 << 16];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) > 0) {
+                total += read;
+                if (total > limit) {
+                    throw new UploadTooLargeException("Import upload exceeds " + maxUploadSize.toMegabytes() + " MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    /**
+     * Job status; after a restart it is read back from the checkpoint file
+     */
+    public ImportJob getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null && JOB_ID.matcher(jobId).matches()) {
+            job = readCheckpoint(jobId);
+            if (job != null) {
+                jobs.put(jobId, job);
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Re-queue a failed (or interrupted) import; it continues after the last committed chunk
+     */
+    public ImportJob resume(String jobId) {
+        ImportJob job = getJob(jobId);
+        if (job == null) {
+            return null;
+        }
+        if (!Files.exists(job.spool)) {
+            throw new IllegalStateException("Upload for import " + jobId + " is no longer available");
+        }
+        if (!job.markPending()) {
+            throw new IllegalStateException("Only failed imports can be resumed, import is " + job.getStatus());
+        }
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    private void run(ImportJob job) {
+        job.markRunning();
+        try (BufferedReader reader = Files.newBufferedReader(job.spool, StandardCharsets.UTF_8)) {
+            writeCheckpoint(job);
+            Lookups lookups = loadLookups();
+            RecordSource source = job.format == Format.CSV ? new CsvSource(reader) : new JsonlSource(reader);
+            source.skip(job.recordsDone);
+
+            List<RawRecord> batch = source.read(batchSize);
+            CompletableFuture<List<Row>> validated = validate(batch, source, lookups);
+            while (!batch.isEmpty()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Interrupted by shutdown");
+                }
+                // Parse and validate the next chunk while this one is written
+                List<RawRecord> next = source.read(batchSize);
+                CompletableFuture<List<Row>> nextValidated = validate(next, source, lookups);
+                write(job, batch.get(batch.size() - 1).number, validated.join(), lookups);
+                batch = next;
+                validated = nextValidated;
+            }
+
+            job.markCompleted();
+            writeCheckpoint(job);
+            Files.deleteIfExists(job.spool);
+            logger.info("Import {} finished: {} records, {} inserted, {} rejected",
+                    job.getJobId(), job.getRecordsRead(), job.getInserted(), job.getRejected());
+        } catch (Exception e) {
+            String message = e instanceof CompletionException && e.getCause() != null
+                    ? e.getCause().getMessage() : e.getMessage();
+            job.markFailed(message);
+            writeCheckpoint(job);
+            logger.error("Import {} failed after record {}", job.getJobId(), job.getRecordsRead(), e);
+        }
+    }
+
+    private CompletableFuture<List<Row>> validate(List<RawRecord> batch, RecordSource source, Lookups lookups) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return CompletableFuture.supplyAsync(
+                () -> batch.parallelStream().map(record -> validateRecord(record, source, lookups)).toList(),
+                validationPool);
+    }
+
+    /**
+     * Insert the valid rows of one chunk, then checkpoint. Duplicate SKUs are settled here, in file order.
+     */
+    private void write(ImportJob job, long lastRecord, List<Row> rows, Lookups lookups) {
+        List<Row> accepted = new ArrayList<>(rows.size());
+        List<RowError> rejected = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.error != null) {
+                rejected.add(new RowError(row.number, row.sku, row.error));
+            } else if (!lookups.skus.add(row.skuKey())) {
+                rejected.add(new RowError(row.number, row.sku, "SKU already exists"));
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        List<Long> ids = List.of();
+        if (!accepted.isEmpty()) {
+            try {
+                ids = transactionTemplate.execute(status -> insert(accepted));
+            } catch (RuntimeException e) {
+                accepted.forEach(row -> lookups.skus.remove(row.skuKey()));
+                throw e;
+            }
+        }
+        int enqueued = ids.isEmpty() ? 0 : enrichmentQueue.enqueue(ids);
+        job.chunkCommitted(lastRecord, ids.size(), rejected, enqueued);
+        writeCheckpoint(job);
+    }
+
+    private List<Long> insert(List<Row> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> contentIds = insertContent(rows);
+        List<Object[]> params = new ArrayList<>(rows.size());
+        List<String> skus = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            params.add(new Object[] { row.name, contentIds.get(i), row.sku, row.price, row.compareAtPrice,
+                    row.stockQuantity, row.active, row.featured, row.imageUrl,
+                    row.categoryId, row.brandId, now, now });
+            skus.add(row.sku);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, params);
+        List<Long> ids = productRepository.findIdsBySkuIn(skus);
+        // Evicts caches and indexes the new products once the chunk commits
+        eventPublisher.publishEvent(new ProductChangedEvent(ids));
+        return ids;
+    }
+
+    // product_content rows first, in row order, so each product row can point at its content
+    private List<Long> insertContent(List<Row> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(CONTENT_INSERT_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, rows.get(i).description);
+                        ps.setString(2, rows.get(i).tags);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        if (ids.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated content ids, got " + ids.size());
+        }
+        return ids;
+    }
+
+    private Lookups loadLookups() {
+        Lookups lookups = new Lookups();
+        for (Object[] row : categoryRepository.findAllIdAndName()) {
+            lookups.categories.putIfAbsent(key((String) row[1]), (Long) row[0]);
+        }
+        for (Object[] row : brandRepository.findAllIdAndName()) {
+            lookups.brands.putIfAbsent(key((String) row[1]), (Long) row[0]);
+        }
+        for (String sku : productRepository.findAllSkus()) {
+            lookups.skus.add(key(sku));
+        }
+        return lookups;
+    }
+
+    private Row validateRecord(RawRecord record, RecordSource source, Lookups lookups) {
+        Row row = new Row(record.number);
+        try {
+            Map<String, String> fields = source.fields(record);
+            row.sku = fields.get("sku");
+            row.name = required(fields, "name", 3, 200);
+            row.description = required(fields, "description", 10, 2000);
+            row.sku = required(fields, "sku", 3, 50);
+            if (lookups.skus.contains(row.skuKey())) {
+                throw new IllegalArgumentException("SKU already exists");
+            }
+            row.price = price(fields.get("price"), "price", MIN_PRICE);
+            if (row.price == null) {
+                throw new IllegalArgumentException("price is required");
+            }
+            row.compareAtPrice = price(fields.get("compareatprice"), "compareAtPrice", BigDecimal.ZERO);
+            row.stockQuantity = fields.get("stockquantity") != null ? Integer.parseInt(fields.get("stockquantity")) : 0;
+            if (row.stockQuantity < 0) {
+                throw new IllegalArgumentException("stockQuantity must not be negative");
+            }
+            row.categoryId = reference(lookups.categories, fields.get("category"), "category");
+            row.brandId = reference(lookups.brands, fields.get("brand"), "brand");
+            row.tags = fields.get("tags");
+            row.imageUrl = fields.get("imageurl");
+            if (row.imageUrl != null && row.imageUrl.length() > 255) {
+                throw new IllegalArgumentException("imageUrl is longer than 255 characters");
+            }
+            row.active = bool(fields.get("isactive"), true);
+            row.featured = bool(fields.get("isfeatured"), false);
+        } catch (JsonProcessingException e) {
+            row.error = "Malformed JSON: " + e.getOriginalMessage();
+        } catch (NumberFormatException e) {
+            row.error = "Invalid number: " + e.getMessage();
+        } catch (IllegalArgumentException e) {
+            row.error = e.getMessage();
+        } catch (IOException e) {
+            row.error = "Malformed record: " + e.getMessage();
+        }
+        return row;
+    }
+
+    private static String required(Map<String, String> fields, String name, int min, int max) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        if (value.length() < min || value.length() > max) {
+            throw new IllegalArgumentException(name + " must be " + min + "-" + max + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal price(String raw, String name, BigDecimal min) {
+        if (raw == null) {
+            return null;
+        }
+        BigDecimal value = new BigDecimal(raw).setScale(2, RoundingMode.HALF_UP);
+        if (value.compareTo(min) < 0 || value.compareTo(MAX_PRICE) >= 0) {
+            throw new IllegalArgumentException(name + " is out of range: " + raw);
+        }
+        return value;
+    }
+
+    private static Long reference(Map<String, Long> ids, String name, String what) {
+        if (name == null) {
+            return null;
+        }
+        Long id = ids.get(key(name));
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown " + what + ": " + name);
+        }
+        return id;
+    }
+
+    private static boolean bool(String raw, boolean fallback) {
+        if (raw == null) {
+            return fallback;
+        }
+        switch (raw.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "y":
+                return true;
+            case "false", "0", "no", "n":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid boolean: " + raw);
+        }
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Checkpoint file: job state as properties, replaced atomically after each chunk
+
+    private void writeCheckpoint(ImportJob job) {
+        Properties properties = new Properties();
+        properties.setProperty("format", job.format.name());
+        properties.setProperty("status", job.getStatus().name());
+        properties.setProperty("recordsDone", Long.toString(job.recordsDone));
+        properties.setProperty("inserted", Long.toString(job.inserted));
+        properties.setProperty("rejected", Long.toString(job.rejected));
+        properties.setProperty("enqueued", Long.toString(job.enqueued));
+        properties.setProperty("submittedAt", job.submittedAt.toString());
+        if (job.error != null) {
+            properties.setProperty("error", job.error);
+        }
+        Path file = job.spool.resolveSibling(job.jobId + CHECKPOINT_SUFFIX);
+        Path temp = job.spool.resolveSibling(job.jobId + CHECKPOINT_SUFFIX + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "catalog import " + job.jobId);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write checkpoint for import {}: {}", job.jobId, e.getMessage());
+        }
+    }
+
+    private ImportJob readCheckpoint(String jobId) {
+        Path file = Path.of(importDir).resolve(jobId + CHECKPOINT_SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.warn("Could not read checkpoint for import {}: {}", jobId, e.getMessage());
+            return null;
+        }
+        Format format = Format.valueOf(properties.getProperty("format"));
+        ImportJob job = new ImportJob(jobId, format, file.resolveSibling(jobId + "." + format.extension),
+                LocalDateTime.parse(properties.getProperty("submittedAt")));
+        job.recordsDone = Long.parseLong(properties.getProperty("recordsDone", "0"));
+        job.inserted = Long.parseLong(properties.getProperty("inserted", "0"));
+        job.rejected = Long.parseLong(properties.getProperty("rejected", "0"));
+        job.enqueued = Long.parseLong(properties.getProperty("enqueued", "0"));
+        job.error = properties.getProperty("error");
+        JobStatus status = JobStatus.valueOf(properties.getProperty("status"));
+        // A job that was running when the application stopped is resumable like a failed one
+        job.status = status == JobStatus.COMPLETED ? JobStatus.COMPLETED : JobStatus.FAILED;
+        if (status != JobStatus.COMPLETED && job.error == null) {
+            job.error = "Interrupted by restart";
+        }
+        return job;
+    }
+
+    // Inner classes
+    public enum JobStatus { PENDING, RUNNING, COMPLETED, FAILED }
+
+    public enum Format {
+        CSV("csv"), JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        static Format parse(String raw) {
+            if (raw == null || raw.isBlank()) {
+                throw new IllegalArgumentException("format is required (csv or jsonl)");
+            }
+            switch (raw.trim().toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl", "ndjson":
+                    return JSONL;
+                default:
+                    throw new IllegalArgumentException("Unsupported format: " + raw);
+            }
+        }
+    }
+
+    private static class Lookups {
+        private final Map<String, Long> categories = new HashMap<>();
+        private final Map<String, Long> brands = new HashMap<>();
+        private final Set<String> skus = ConcurrentHashMap.newKeySet();
+    }
+
+    private static class RawRecord {
+        private final long number;
+        private final String[] values;
+        private final String line;
+
+        RawRecord(long number, String[] values, String line) {
+            this.number = number;
+            this.values = values;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Sequential record reader; fields() is called from the validation pool and must be thread-safe
+     */
+    private interface RecordSource {
+        List<RawRecord> read(int max) throws IOException;
+
+        void skip(long records) throws IOException;
+
+        Map<String, String> fields(RawRecord record) throws IOException;
+    }
+
+    private static class CsvSource implements RecordSource {
+        private final CsvRecordReader reader;
+        private final String[] columns;
+
+        CsvSource(Reader input) throws IOException {
+            reader = new CsvRecordReader(input);
+            String[] header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            columns = new String[header.length];
+            for (int i = 0; i < header.length; i++) {
+                String name = header[i].replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns[i] = COLUMNS.stream().anyMatch(c -> c.equalsIgnoreCase(name)) ? name : null;
+            }
+            for (String column : COLUMNS.subList(0, 4)) {
+                if (!Arrays.asList(columns).contains(column)) {
+                    throw new IllegalArgumentException("CSV header is missing column: " + column);
+                }
+            }
+        }
+
+        @Override
+        public List<RawRecord> read(int max) throws IOException {
+            List<RawRecord> records = new ArrayList<>(max);
+            String[] values;
+            while (records.size() < max && (values = reader.next()) != null) {
+                // Record numbers count data records only, the header is not one
+                records.add(new RawRecord(reader.getRecordNumber() - 1, values, null));
+            }
+            return records;
+        }
+
+        @Override
+        public void skip(long records) throws IOException {
+            while (reader.getRecordNumber() - 1 < records && reader.next() != null) {
+                // Already imported
+            }
+        }
+
+        @Override
+        public Map<String, String> fields(RawRecord record) {
+            if (record.values.length != columns.length) {
+                throw new IllegalArgumentException("Expected " + columns.length + " columns, found " + record.values.length);
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                String value = blankToNull(record.values[i]);
+                if (columns[i] != null && value != null) {
+                    fields.put(columns[i], value);
+                }
+            }
+            return fields;
+        }
+    }
+
+    private class JsonlSource implements RecordSource {
+        private final BufferedReader reader;
+        private long number;
+
+        JsonlSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<RawRecord> read(int max) throws IOException {
+            List<RawRecord> records = new ArrayList<>(max);
+            String line;
+            while (records.size() < max && (line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(new RawRecord(++number, null, line));
+                }
+            }
+            return records;
+        }
+
+        @Override
+        public void skip(long records) throws IOException {
+            String line;
+            while (number < records && (line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    number++;
+                }
+            }
+        }
+
+        @Override
+        public Map<String, String> fields(RawRecord record) throws IOException {
+            JsonNode node = objectMapper.readTree(record.line);
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Record is not a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, JsonNode> entry : node.properties()) {
+                String name = entry.getKey().toLowerCase(Locale.ROOT);
+                String value = entry.getValue().isNull() ? null : blankToNull(entry.getValue().asText());
+                if (value != null && COLUMNS.stream().anyMatch(c -> c.equalsIgnoreCase(name))) {
+                    fields.put(name, value);
+                }
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * A validated record: either ready to insert or carrying an error
+     */
+    private static class Row {
+        private final long number;
+        private String error;
+        private String name;
+        private String description;
+        private String sku;
+        private BigDecimal price;
+        private BigDecimal compareAtPrice;
+        private int stockQuantity;
+        private Long categoryId;
+        private Long brandId;
+        private String tags;
+        private String imageUrl;
+        private boolean active;
+        private boolean featured;
+
+        Row(long number) {
+            this.number = number;
+        }
+
+        String skuKey() {
+            return key(sku);
+        }
+    }
+
+    public static class RowError {
+        private final long record;
+        private final String sku;
+        private final String message;
+
+        RowError(long record, String sku, String message) {
+            this.record = record;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public long getRecord() { return record; }
+        public String getSku() { return sku; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * Progress of one import; serialized as the status endpoint's response
+     */
+    public static class ImportJob {
+        private final String jobId;
+        private final Format format;
+        private final Path spool;
+        private final LocalDateTime submittedAt;
+        private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile long recordsDone;
+        private volatile long inserted;
+        private volatile long rejected;
+        private volatile long enqueued;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        ImportJob(String jobId, Format format, Path spool) {
+            this(jobId, format, spool, LocalDateTime.now());
+        }
+
+        ImportJob(String jobId, Format format, Path spool, LocalDateTime submittedAt) {
+            this.jobId = jobId;
+            this.format = format;
+            this.spool = spool;
+            this.submittedAt = submittedAt;
+        }
+
+        synchronized void markRunning() {
+            status = JobStatus.RUNNING;
+            if (startedAt == null) {
+                startedAt = LocalDateTime.now();
+            }
+            finishedAt = null;
+            error = null;
+        }
+
+        synchronized boolean markPending() {
+            if (status != JobStatus.FAILED) {
+                return false;
+            }
+            status = JobStatus.PENDING;
+            return true;
+        }
+
+        synchronized void chunkCommitted(long lastRecord, int chunkInserted, List<RowError> chunkErrors, int chunkEnqueued) {
+            recordsDone = lastRecord;
+            inserted += chunkInserted;
+            rejected += chunkErrors.size();
+            enqueued += chunkEnqueued;
+            for (RowError rowError : chunkErrors) {
+                if (errors.size() >= MAX_REPORTED_ERRORS) {
+                    break;
+                }
+                errors.add(rowError);
+            }
+        }
+
+        synchronized void markCompleted() {
+            status = JobStatus.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized void markFailed(String message) {
+            status = JobStatus.FAILED;
+            finishedAt = LocalDateTime.now();
+            error = message;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getFormat() { return format.extension; }
+        public JobStatus getStatus() { return status; }
+        public long getRecordsRead() { return recordsDone; }
+        public long getInserted() { return inserted; }
+        public long getRejected() { return rejected; }
+        public long getEnqueuedForEnrichment() { return enqueued; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+
+        /**
+         * The first rejected records, for fixing the feed
+         */
+        public List<RowError> getErrors() {
+            synchronized (errors) {
+                return List.copyOf(errors);
+            }
+        }
+    }
+
+    public static class UploadTooLargeException extends RuntimeException {
+        public UploadTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.project.service;
+
+import com.example.project.config.CacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches finished JSON bodies for hot product endpoints, together with a strong ETag and a
+ * pre-gzipped copy. The gzip body is a different representation, so it gets its own ETag (suffixed "-gz").
+ * A matching If-None-Match, in either form, is answered with 304 straight from the cache.
+ * Entries are dropped by ProductCacheInvalidator when a product write commits. It bumps an epoch first, and a
+ * body loaded across a bump is evicted again after it is stored, so a load that raced with a write never
+ * stays cached.
+ */
+@Service
+public class ProductResponseCache {
+
+    // Bodies smaller than this are not worth compressing
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Taken before a body is loaded; every invalidation takes a new one
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Product detail body, keyed by product id
+     */
+    public ResponseEntity<byte[]> detail(Long productId, HttpServletRequest request, Supplier<Object> body) {
+        return respond(CacheConfig.PRODUCT_DETAIL_RESPONSES, productId, request, body);
+    }
+
+    /**
+     * Listing body, keyed by everything that shapes the page (e.g. "page:size:category:sort")
+     */
+    public ResponseEntity<byte[]> listing(String key, HttpServletRequest request, Supplier<Object> body) {
+        return respond(CacheConfig.PRODUCT_LIST_RESPONSES, key, request, body);
+    }
+
+    /**
+     * Called by the invalidator before it evicts, so loads already running do not keep what they read
+     */
+    public void invalidating() {
+        epoch.incrementAndGet();
+    }
+
+    private ResponseEntity<byte[]> respond(String region, Object key, HttpServletRequest request, Supplier<Object> body) {
+        Cache cache = cacheManager.getCache(region);
+        CachedBody cached = cache != null ? cache.get(key, CachedBody.class) : null;
+        if (cached == null) {
+            long seen = epoch.get();
+            Object value = body.get();
+            if (value == null) {
+                return ResponseEntity.notFound().build();
+            }
+            cached = serialize(value);
+            if (cache != null) {
+                cache.put(key, cached);
+                // Checked after the put: an invalidation either shows here or evicts the entry itself
+                if (epoch.get() != seen) {
+                    cache.evict(key);
+                }
+            }
+        }
+
+        boolean gzipped = cached.gzip != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzipped ? cached.gzipEtag : cached.etag;
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        // Either form proves the client holds this version; the reply names the one it would get now
+        if (matches(ifNoneMatch, cached.etag) || (cached.gzipEtag != null && matches(ifNoneMatch, cached.gzipEtag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzipped) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip);
+        }
+        return response.body(cached.json);
+    }
+
+    private CachedBody serialize(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String digest = DigestUtils.md5DigestAsHex(json);
+            byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+            return new CachedBody(json, gzip, "\"" + digest + "\"",
+                    gzip != null ? "\"" + digest + GZIP_ETAG_SUFFIX + "\"" : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so a W/ prefix sent back by a proxy still matches
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+
+    // Inner classes
+    private static class CachedBody {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        // Null when there is no gzip body
+        private final String gzipEtag;
+
+        CachedBody(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+        }
+    }
+}
@@ -1,75 +1,376 @@
 package com.example.project.service;
 
+import com.example.project.config.CacheConfig;
+import com.example.project.dto.CursorPage;
 import com.example.project.dto.ProductDTO;
+import com.example.project.dto.ProductSimpleResponse;
 import com.example.project.entity.Product;
 import com.example.project.repository.ProductRepository;
+import com.example.project.service.catalog.CategoryTree;
+import com.example.project.service.catalog.FacetSelection;
+import com.example.project.service.catalog.ProductFacetIndex;
+import com.example.project.service.catalog.ProductSearchIndex;
+import com.example.project.service.catalog.ProductSort;
+import com.example.project.service.catalog.ProductSortIndex;
+import com.example.project.service.catalog.ProductSuggestIndex;
+import com.example.project.service.catalog.SpellingDictionary;
+import com.example.project.util.CursorCodec;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.cache.annotation.Cacheable;
 
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductService {
     
+    // Listing order when the client passes no sort and no search term
+    private static final ProductSort DEFAULT_SORT = ProductSort.parse("id,asc");
+    
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductSortIndex productSortIndex;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private SpellingDictionary spellingDictionary;
+
+    // Retry searches without hits with the spelling-corrected query
+    @Value("${catalog.spelling.auto-correct:true}")
+    private boolean autoCorrectSearch;
+
+    @Autowired
+    private CategoryTree categoryTree;
+
     /**
      * Find product by ID
      */
-    @Cacheable("products")
     public Optional<Product> findById(Long id) {
-        return productRepository.findById(id);
+        return productRepository.findWithContentById(id);
+    }
+    
+    /**
+     * Product by ID as a detached DTO; the cache never holds managed entities
+     */
+    @Cacheable(CacheConfig.PRODUCT_BY_ID)
+    public Optional<ProductDTO> findDtoById(Long id) {
+        return productRepository.findWithContentById(id).map(ProductDTO::from);
     }
     
     /**
      * Find all active products with pagination
      */
-    @Cacheable("products")
     public Page<Product> findAllActive(Pageable pageable) {
         return productRepository.findByIsActiveTrue(pageable);
     }
     
     /**
-     * Find all active products with filters and pagination
+     * Find all active products with filters and pagination.
+     * Sort accepts one or more "field,dir" keys separated by ';' (see {@link ProductSort}); without a sort,
+     * search results keep relevance order and everything else is ordered by id.
      */
     public Page<Product> findAllActiveWithFilters(int page, int size, String search, String category, String sort) {
         Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+        String term = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        ProductSort productSort = resolveSort(sort, term);
+        String categoryName = category != null && !category.trim().isEmpty() ? category.trim() : null;
         
-        if (search != null && !search.trim().isEmpty()) {
-            // Search by name or description
-            return productRepository.findByNameContainingOrDescriptionContaining(search.trim(), search.trim(), pageable);
-        } else if (category != null && !category.trim().isEmpty()) {
-            // Filter by category name
-            return productRepository.findByCategoryNameAndIsActiveTrue(category.trim(), pageable);
+        Page<Long> indexed = findIndexedIds(term, categoryName, productSort, pageable);
+        if (indexed != null) {
+            return new PageImpl<>(loadInOrder(indexed.getContent()), pageable, indexed.getTotalElements());
+        }
+        if (term != null) {
+            // Search index is still building
+            return productRepository.searchActiveByNameOrDescription(term, withSort(pageable, productSort));
+        } else if (categoryName != null) {
+            // Filter by category name, including its subcategories
+            List<Long> categoryIds = categorySubtree(categoryName);
+            return categoryIds != null
+                    ? productRepository.findActiveByCategoryIdIn(categoryIds, withSort(pageable, productSort))
+                    : productRepository.findByCategoryNameAndIsActiveTrue(categoryName, withSort(pageable, productSort));
         } else {
             // Default: get all active products
-            return productRepository.findByIsActiveTrue(pageable);
+            return productRepository.findByIsActiveTrue(withSort(pageable, productSort));
+        }
+    }
+    
+    /**
+     * Same listing as {@link #findAllActiveWithFilters} but read through the card projection,
+     * so no Product entity (or lazy category/brand proxy) is ever materialized
+     */
+    public Page<ProductSimpleResponse> findActiveListing(int page, int size, String search, String category, String sort) {
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+        String term = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        ProductSort productSort = resolveSort(sort, term);
+        String categoryName = category != null && !category.trim().isEmpty() ? category.trim() : null;
+        
+        Page<Long> indexed = findIndexedIds(term, categoryName, productSort, pageable);
+        if (indexed != null) {
+            return new PageImpl<>(loadListingInOrder(indexed.getContent()), pageable, indexed.getTotalElements());
         }
+        if (term != null) {
+            return productRepository.searchActiveSimple(term, withSort(pageable, productSort));
+        } else if (categoryName != null) {
+            List<Long> categoryIds = categorySubtree(categoryName);
+            return categoryIds != null
+                    ? productRepository.findActiveSimpleByCategoryIdIn(categoryIds, withSort(pageable, productSort))
+                    : productRepository.findActiveSimpleByCategoryName(categoryName, withSort(pageable, productSort));
+        } else {
+            return productRepository.findActiveSimple(withSort(pageable, productSort));
+        }
+    }
+    
+    /**
+     * Resolve the ids of one listing page from the in-memory indexes.
+     * Returns null when the indexes cannot serve the request and the caller should query SQL.
+     */
+    private Page<Long> findIndexedIds(String term, String categoryName, ProductSort sort, Pageable pageable) {
+        if (term != null) {
+            if (!productSearchIndex.isReady()) {
+                return null;
+            }
+            ProductSearchIndex.RankedHits hits = searchIndex(term).getHits();
+            List<Long> pageIds;
+            if (sort == null || !productSortIndex.isReady()) {
+                pageIds = hits.page((int) pageable.getOffset(), pageable.getPageSize());
+            } else {
+                // Reorder the hits by the requested sort instead of relevance
+                List<Long> ordered = productSortIndex.order(sort, hits.getProductIds());
+                int from = (int) Math.min(pageable.getOffset(), ordered.size());
+                pageIds = ordered.subList(from, Math.min(from + pageable.getPageSize(), ordered.size()));
+            }
+            return new PageImpl<>(pageIds, pageable, hits.size());
+        }
+        if (sort != null) {
+            // Hot orderings come from precomputed permutations; a cold index falls back to indexed ORDER BY
+            List<Long> categoryIds = categoryName != null ? categorySubtree(categoryName) : null;
+            if (categoryName != null && categoryIds == null) {
+                // Unknown category; let SQL answer
+                return null;
+            }
+            ProductSortIndex.SortedPage sorted = productSortIndex.page(sort, categoryIds, (int) pageable.getOffset(), pageable.getPageSize());
+            if (sorted != null) {
+                return new PageImpl<>(sorted.getProductIds(), pageable, sorted.getTotal());
+            }
+        }
+        return null;
     }
     
+    /**
+     * Ids of the named category and everything below it, or null when the name is not in the tree
+     */
+    private List<Long> categorySubtree(String categoryName) {
+        CategoryTree.Snapshot tree = categoryTree.getSnapshot();
+        Long categoryId = tree.findIdByName(categoryName);
+        return categoryId != null ? tree.subtreeIds(categoryId) : null;
+    }
+    
+    /**
+     * Only an explicit sort reorders search hits; a search without one keeps BM25 relevance order
+     */
+    private static ProductSort resolveSort(String sort, String term) {
+        if (sort == null || sort.isBlank()) {
+            return term != null ? null : DEFAULT_SORT;
+        }
+        return ProductSort.parse(sort);
+    }
+    
+    private static Pageable withSort(Pageable pageable, ProductSort sort) {
+        return sort != null ? org.springframework.data.domain.PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.toSort()) : pageable;
+    }
+    
+    /**
+     * Find one page of active products together with facet counts for the whole match set.
+     * Search results keep relevance order, everything else is ordered by id.
+     */
+    public FacetedPage findActiveFaceted(int page, int size, String search, FacetSelection selection) {
+        Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+        if (!productFacetIndex.isReady()) {
+            // Indexes are still building; serve the plain listing without counts
+            String category = selection.getValues(ProductFacetIndex.CATEGORY).stream().findFirst().orElse(null);
+            return new FacetedPage(findAllActiveWithFilters(page, size, search, category, null), Map.of());
+        }
+
+        ProductSearchIndex.RankedHits hits = null;
+        RoaringBitmap candidates = null;
+        String correctedQuery = null;
+        if (search != null && !search.trim().isEmpty()) {
+            SearchOutcome outcome = searchIndex(search.trim());
+            hits = outcome.getHits();
+            correctedQuery = outcome.getCorrectedQuery();
+            candidates = new RoaringBitmap();
+            for (long id : hits.getProductIds()) {
+                candidates.add(Math.toIntExact(id));
+            }
+        }
+
+        ProductFacetIndex.FacetResult result = productFacetIndex.query(selection, candidates);
+        List<Long> pageIds;
+        if (hits == null) {
+            pageIds = result.page((int) pageable.getOffset(), size);
+        } else {
+            pageIds = new java.util.ArrayList<>();
+            long skip = pageable.getOffset();
+            for (long id : hits.getProductIds()) {
+                if (pageIds.size() == size) {
+                    break;
+                }
+                if (result.contains(id) && skip-- <= 0) {
+                    pageIds.add(id);
+                }
+            }
+        }
+        Page<Product> products = new PageImpl<>(loadInOrder(pageIds), pageable, result.getMatching().getLongCardinality());
+        return new FacetedPage(products, result.getCounts(), correctedQuery);
+    }
+
+    /**
+     * Keyset-paginated active listing. Supported sorts: "id" (oldest first), "newest", "price,asc", "price,desc".
+     * The cursor is the nextCursor of the previous slice, or null for the first one.
+     *
+     * @throws IllegalArgumentException for an unknown sort or a cursor that does not belong to it
+     */
+    public CursorPage<Product> scrollActive(String cursor, int size, String sort) {
+        String normalizedSort = sort == null || sort.isBlank() ? "id" : sort.trim().toLowerCase();
+        CursorCodec.Cursor position = cursor != null && !cursor.isBlank() ? CursorCodec.decode(cursor, normalizedSort) : null;
+        // Fetch one extra row to learn whether another slice exists without counting
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Product> rows;
+        switch (normalizedSort) {
+            case "id" -> rows = productRepository.findActiveAfterId(position != null ? position.getLastId() : 0L, limit);
+            case "newest" -> rows = productRepository.findActiveBeforeId(position != null ? position.getLastId() : Long.MAX_VALUE, limit);
+            case "price,asc" -> rows = position != null
+                    ? productRepository.findActiveAfterPrice(new BigDecimal(position.getLastKey()), position.getLastId(), limit)
+                    : productRepository.findActiveAfterPrice(BigDecimal.valueOf(-1), 0L, limit);
+            case "price,desc" -> rows = position != null
+                    ? productRepository.findActiveBeforePrice(new BigDecimal(position.getLastKey()), position.getLastId(), limit)
+                    : productRepository.findActiveBeforePrice(new BigDecimal("1E12"), Long.MAX_VALUE, limit);
+            default -> throw new IllegalArgumentException("Unsupported sort for cursor pagination: " + sort);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Product last = rows.get(size - 1);
+            String lastKey = normalizedSort.startsWith("price") ? last.getPrice().toPlainString() : null;
+            nextCursor = CursorCodec.encode(normalizedSort, lastKey, last.getId());
+        }
+        return new CursorPage<>(rows, size, nextCursor);
+    }
+
+    /**
+     * Spelling correction for a search query ("did you mean"), or null when it looks right or the dictionary is not built yet
+     */
+    public String correctSpelling(String query) {
+        if (query == null || query.isBlank() || !spellingDictionary.isReady()) {
+            return null;
+        }
+        return spellingDictionary.correct(query);
+    }
+
+    /**
+     * Rank the query against the search index; a query with no hits is retried once with its spelling corrected
+     */
+    private SearchOutcome searchIndex(String term) {
+        ProductSearchIndex.RankedHits hits = productSearchIndex.search(term);
+        if (hits.size() == 0 && autoCorrectSearch && spellingDictionary.isReady()) {
+            String corrected = spellingDictionary.correct(term);
+            if (corrected != null) {
+                ProductSearchIndex.RankedHits retried = productSearchIndex.search(corrected);
+                if (retried.size() > 0) {
+                    return new SearchOutcome(retried, corrected);
+                }
+            }
+        }
+        return new SearchOutcome(hits, null);
+    }
+
+    /**
+     * Search-box completions for a prefix; empty until the suggest index has been built
+     */
+    public List<ProductSuggestIndex.Suggestion> suggest(String prefix, int limit, boolean byPurchases) {
+        int capped = Math.min(Math.max(limit, 1), ProductSuggestIndex.MAX_SUGGESTIONS);
+        return productSuggestIndex.suggest(prefix, capped, byPurchases);
+    }
+
+    /**
+     * Price bucket labels in display order
+     */
+    public List<String> getPriceBuckets() {
+        return productFacetIndex.getPriceBuckets();
+    }
+
+    /**
+     * Load products with category and brand, preserving the order of the given ids
+     */
+    public List<Product> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        List<Product> products = new java.util.ArrayList<>(productRepository.findWithCategoryAndBrandByIdIn(ids));
+        products.sort(Comparator.comparing(p -> positions.get(p.getId())));
+        return products;
+    }
+
+    /**
+     * Load listing cards in one statement, preserving the order of the given ids
+     */
+    public List<ProductSimpleResponse> loadListingInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        List<ProductSimpleResponse> cards = new java.util.ArrayList<>(productRepository.findSimpleByIdIn(ids));
+        cards.sort(Comparator.comparing(c -> positions.get(c.getId())));
+        return cards;
+    }
+
     /**
      * Count active products
      */
-    @Cacheable("products")
+    @Cacheable(CacheConfig.ACTIVE_PRODUCT_COUNT)
     public Long countActiveProducts() {
         return productRepository.countByIsActiveTrue();
     }
 
     /**
-     * Find all products with eager loading
+     * Find all products with eager loading (not cached: the whole catalog is no single cache entry)
      */
-    @Cacheable("products")
     public List<Product> findAllWithEagerLoading() {
-        return productRepository.findAll(); // Use findAll for now, eager loading can be configured in repository
+        return productRepository.findAllWithContent();
     }
 
     /**
-     * Save product
+     * Save product; cached regions are invalidated by ProductCacheInvalidator once the write commits
      */
     public Product save(Product product) {
         return productRepository.save(product);
@@ -78,20 +379,43 @@ public class ProductService {
     /**
      * Check if product exists by ID
      */
-    @Cacheable("products")
+    @Cacheable(CacheConfig.PRODUCT_EXISTS)
     public boolean existsById(Long id) {
         return productRepository.existsById(id);
     }
 
-    /**
-     * Update stock for all products
-     */
-    public int updateAllStock(Integer stockQuantity) {
-        List<Product> products = productRepository.findAll();
-        for (Product product : products) {
-            product.setStockQuantity(stockQuantity);
+    // Inner classes
+    public static class FacetedPage {
+        private final Page<Product> page;
+        private final Map<String, Map<String, Integer>> facets;
+        private final String correctedQuery;
+
+        public FacetedPage(Page<Product> page, Map<String, Map<String, Integer>> facets) {
+            this(page, facets, null);
+        }
+
+        public FacetedPage(Page<Product> page, Map<String, Map<String, Integer>> facets, String correctedQuery) {
+            this.page = page;
+            this.facets = facets;
+            this.correctedQuery = correctedQuery;
         }
-        productRepository.saveAll(products);
-        return products.size();
+
+        public Page<Product> getPage() { return page; }
+        public Map<String, Map<String, Integer>> getFacets() { return facets; }
+        // The query actually searched when the original one had no hits and was spelling-corrected, else null
+        public String getCorrectedQuery() { return correctedQuery; }
+    }
+
+    private static class SearchOutcome {
+        private final ProductSearchIndex.RankedHits hits;
+        private final String correctedQuery;
+
+        SearchOutcome(ProductSearchIndex.RankedHits hits, String correctedQuery) {
+            this.hits = hits;
+            this.correctedQuery = correctedQuery;
+        }
+
+        ProductSearchIndex.RankedHits getHits() { return hits; }
+        String getCorrectedQuery() { return correctedQuery; }
     }
-} 
\ No newline at end of file
+}
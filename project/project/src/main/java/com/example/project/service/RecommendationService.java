@@ -7,6 +7,7 @@ import com.example.project.repository.ProductRepository;
 import com.example.project.repository.UserRepository;
 import com.example.project.service.ai.AIService;
 import com.example.project.service.ai.VectorStoreService;
+import com.example.project.service.recommendation.ItemCooccurrenceIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +32,9 @@ public class RecommendationService {
     @Autowired
     private VectorStoreService vectorStoreService;
     
+    @Autowired
+    private ItemCooccurrenceIndex itemCooccurrenceIndex;
+    
     /**
      * Get personalized product recommendations for user
      */
@@ -177,29 +181,56 @@ public class RecommendationService {
     }
     
     /**
-     * Get recommendations for users who viewed this product
+     * Get recommendations for users who viewed this product: the products most often viewed, carted or bought
+     * by the same users (item-item co-occurrence), topped up from the product's category while there is too
+     * little behavior to go on
      */
     public List<ProductRecommendation> getViewedAlsoViewedRecommendations(Long productId, int limit) {
-        // This would typically use collaborative filtering
-        // For now, we'll use category-based recommendations
         Optional<Product> productOpt = productRepository.findById(productId);
         if (productOpt.isEmpty()) {
             return List.of();
         }
         
         Product product = productOpt.get();
-        List<Product> categoryProducts = productRepository.findActiveByCategoryId(product.getCategory().getId());
-        
-        return categoryProducts.stream()
-                .filter(p -> !p.getId().equals(productId))
-                .limit(limit)
-                .map(p -> new ProductRecommendation(
-                        p,
-                        0.7,
-                        "Others who viewed this also viewed",
-                        RecommendationType.COLLABORATIVE
-                ))
-                .collect(Collectors.toList());
+        List<ProductRecommendation> recommendations = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        seen.add(productId);
+        
+        ItemCooccurrenceIndex.Neighbours neighbours = itemCooccurrenceIndex.getNeighbours(productId);
+        if (neighbours.size() > 0) {
+            List<Long> ids = new ArrayList<>(neighbours.size());
+            for (int i = 0; i < neighbours.size(); i++) {
+                ids.add(neighbours.getProductId(i));
+            }
+            Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, p -> p));
+            for (int i = 0; i < neighbours.size() && recommendations.size() < limit; i++) {
+                Product neighbour = products.get(neighbours.getProductId(i));
+                if (neighbour != null && Boolean.TRUE.equals(neighbour.getIsActive()) && seen.add(neighbour.getId())) {
+                    recommendations.add(new ProductRecommendation(
+                            neighbour,
+                            neighbours.getScore(i),
+                            "Others who viewed this also viewed",
+                            RecommendationType.COLLABORATIVE
+                    ));
+                }
+            }
+        }
+        
+        if (recommendations.size() < limit) {
+            productRepository.findActiveByCategoryId(product.getCategory().getId()).stream()
+                    .filter(p -> seen.add(p.getId()))
+                    .limit(limit - recommendations.size())
+                    .map(p -> new ProductRecommendation(
+                            p,
+                            0.7,
+                            "Others who viewed this also viewed",
+                            RecommendationType.COLLABORATIVE
+                    ))
+                    .forEach(recommendations::add);
+        }
+        
+        return recommendations;
     }
     
     /**
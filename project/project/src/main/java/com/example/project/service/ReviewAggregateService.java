@@ -0,0 +1,530 @@
+package com.example.project.service;
+
+import com.example.project.entity.ProductRatingSummary;
+import com.example.project.event.ProductChangedEvent;
+import com.example.project.event.ProductReviewChangedEvent;
+import com.example.project.repository.ProductRatingSummaryRepository;
+import com.example.project.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps per-product rating histograms, averages, review counts and verified-purchase counts in step with
+ * review writes, without AVG queries over product_reviews.
+ * Every committed review change arrives as a {@link ProductReviewChangedEvent} delta; deltas are merged per
+ * product in memory and written in batches every few seconds (and on shutdown). The derived average and count
+ * are copied onto the product row so listings and sort indexes see them.
+ * A catalog-wide rebuild recomputes everything from product_reviews in parallel id ranges, for recovery; deltas
+ * for ranges it has yet to read are dropped rather than counted twice. It also runs once by itself when the
+ * application starts on reviews that predate the summaries, so no first delta starts from an empty row.
+ */
+@Service
+public class ReviewAggregateService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewAggregateService.class);
+
+    // Delta slots: stars 1-5, then verified purchases
+    private static final int VERIFIED = 5;
+
+    private static final String INSERT_SQL = "INSERT INTO product_rating_summaries (product_id, stars_1, stars_2, stars_3, "
+            + "stars_4, stars_5, verified_count, review_count, average_rating, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INCREMENT_SQL = "UPDATE product_rating_summaries SET stars_1 = stars_1 + ?, "
+            + "stars_2 = stars_2 + ?, stars_3 = stars_3 + ?, stars_4 = stars_4 + ?, stars_5 = stars_5 + ?, "
+            + "verified_count = verified_count + ?, updated_at = ? WHERE product_id = ?";
+
+    private static final String DERIVED_SQL = "UPDATE product_rating_summaries SET review_count = ?, average_rating = ? "
+            + "WHERE product_id = ?";
+
+    private static final String PRODUCT_SQL = "UPDATE products SET review_count = ?, average_rating = ? WHERE id = ?";
+
+    // Same visibility rule as ProductReviewRepository.VISIBLE (NULL is_spam is backfilled to false at startup)
+    private static final String REBUILD_SELECT_SQL = "SELECT product_id, rating, verified_purchase, COUNT(*) "
+            + "FROM product_reviews WHERE product_id BETWEEN ? AND ? AND is_approved = true "
+            + "AND is_spam = false AND rating BETWEEN 1 AND 5 "
+            + "GROUP BY product_id, rating, verified_purchase";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductRatingSummaryRepository summaryRepository;
+
+    @Value("${catalog.reviews.flush-interval:5s}")
+    private Duration flushInterval;
+
+    @Value("${catalog.reviews.batch-size:500}")
+    private int batchSize;
+
+    @Value("${catalog.reviews.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    @Value("${catalog.reviews.rebuild-parallelism:0}")
+    private int rebuildParallelism;
+
+    // Pending deltas per product; guarded by itself
+    private final Map<Long, long[]> pending = new HashMap<>();
+    // Held while writing summaries, so a flush and a rebuild never interleave
+    private final Object writeLock = new Object();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "review-aggregate-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile RebuildJob lastRebuild;
+    // Reviews exist but no summary does yet; decided before the first flush can insert a row
+    private volatile boolean bootstrapNeeded;
+    // Ranges of the running rebuild; guarded by pending, null when no rebuild runs
+    private RebuildProgress rebuildProgress;
+
+    /**
+     * Merge a committed review change into the pending deltas
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(ProductReviewChangedEvent event) {
+        synchronized (pending) {
+            if (rebuildProgress != null && rebuildProgress.willRead(event.getProductId())) {
+                // Already committed, so the rebuild of this product's range will count it
+                return;
+            }
+            long[] delta = pending.computeIfAbsent(event.getProductId(), id -> new long[VERIFIED + 1]);
+            if (event.getOldRating() > 0) {
+                delta[event.getOldRating() - 1]--;
+                if (event.isOldVerified()) {
+                    delta[VERIFIED]--;
+                }
+            }
+            if (event.getNewRating() > 0) {
+                delta[event.getNewRating() - 1]++;
+                if (event.isNewVerified()) {
+                    delta[VERIFIED]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the summaries of reviews written before product_rating_summaries existed. Runs after the review
+     * listing keys are backfilled (is_spam NULL counts as not spam only after that), and replaces any rows a
+     * flush has written since start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void bootstrapSummaries() {
+        if (!bootstrapNeeded) {
+            return;
+        }
+        bootstrapNeeded = false;
+        try {
+            RebuildJob job = startRebuild();
+            logger.info("No review aggregates yet; building them from existing reviews (rebuild {})", job.getJobId());
+        } catch (IllegalStateException e) {
+            logger.info("Review aggregate rebuild already running: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write all pending deltas; returns the number of products updated. Failed batches are kept for the next flush.
+     */
+    public int flush() {
+        synchronized (writeLock) {
+            Map<Long, long[]> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = new HashMap<>(pending);
+                pending.clear();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyDeltas(batch));
+                return batch.size();
+            } catch (RuntimeException e) {
+                synchronized (pending) {
+                    batch.forEach((productId, delta) -> {
+                        long[] merged = pending.computeIfAbsent(productId, id -> new long[VERIFIED + 1]);
+                        for (int i = 0; i < merged.length; i++) {
+                            merged[i] += delta[i];
+                        }
+                    });
+                }
+                logger.warn("Review aggregate flush of {} products failed, will retry: {}", batch.size(), e.getMessage());
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Current summary, or an empty one when the product has no counted reviews
+     */
+    public ProductRatingSummary getSummary(Long productId) {
+        return summaryRepository.findById(productId).orElseGet(() -> new ProductRatingSummary(productId));
+    }
+
+    /**
+     * Start a catalog-wide rebuild from product_reviews
+     *
+     * @throws IllegalStateException if a rebuild is already running
+     */
+    public synchronized RebuildJob startRebuild() {
+        RebuildJob current = lastRebuild;
+        if (current != null && (current.status == JobStatus.PENDING || current.status == JobStatus.RUNNING)) {
+            throw new IllegalStateException("Rebuild " + current.jobId + " is still running");
+        }
+        RebuildJob job = new RebuildJob(UUID.randomUUID().toString());
+        lastRebuild = job;
+        rebuildExecutor.submit(() -> runRebuild(job));
+        return job;
+    }
+
+    public Optional<RebuildJob> getLastRebuild() {
+        return Optional.ofNullable(lastRebuild);
+    }
+
+    private void applyDeltas(Map<Long, long[]> batch) {
+        List<Long> productIds = new ArrayList<>(batch.keySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + batchSize, productIds.size()));
+            // Create missing rows first, so every delta is a plain increment
+            Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT product_id FROM product_rating_summaries WHERE product_id IN (" + placeholders(chunk.size()) + ")",
+                    Long.class, chunk.toArray()));
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> increments = new ArrayList<>(chunk.size());
+            for (Long productId : chunk) {
+                if (!existing.contains(productId)) {
+                    inserts.add(new Object[] { productId, 0, 0, 0, 0, 0, 0, 0, 0.0, now });
+                }
+                long[] delta = batch.get(productId);
+                increments.add(new Object[] { delta[0], delta[1], delta[2], delta[3], delta[4], delta[VERIFIED], now, productId });
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+
+            List<Object[]> derived = new ArrayList<>(chunk.size());
+            jdbcTemplate.query("SELECT product_id, stars_1, stars_2, stars_3, stars_4, stars_5 FROM product_rating_summaries "
+                    + "WHERE product_id IN (" + placeholders(chunk.size()) + ")", rs -> {
+                long[] stars = new long[5];
+                for (int i = 0; i < 5; i++) {
+                    stars[i] = rs.getLong(i + 2);
+                }
+                long count = reviewCount(stars);
+                derived.add(new Object[] { count, average(stars, count), rs.getLong(1) });
+            }, chunk.toArray());
+            writeDerived(derived);
+        }
+        // Listings, caches and the rating sort/facet indexes read the product columns
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+    }
+
+    private void writeDerived(List<Object[]> derived) {
+        jdbcTemplate.batchUpdate(DERIVED_SQL, derived);
+        List<Object[]> products = new ArrayList<>(derived.size());
+        for (Object[] row : derived) {
+            products.add(new Object[] { Math.toIntExact((Long) row[0]), row[1], row[2] });
+        }
+        jdbcTemplate.batchUpdate(PRODUCT_SQL, products);
+    }
+
+    private void runRebuild(RebuildJob job) {
+        job.markRunning();
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(rebuildParallelism > 0 ? rebuildParallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            synchronized (writeLock) {
+                List<List<Long>> ranges = new ArrayList<>();
+                Long lastId = 0L;
+                List<Long> ids;
+                while (!(ids = productRepository.findIdsAfter(lastId, PageRequest.of(0, rebuildChunkSize))).isEmpty()) {
+                    ranges.add(ids);
+                    lastId = ids.get(ids.size() - 1);
+                }
+                RebuildProgress progress = new RebuildProgress(ranges);
+                synchronized (pending) {
+                    // Everything pending is already committed and will be re-read; so is every later delta
+                    // until its range has started reading
+                    pending.keySet().removeIf(progress::willRead);
+                    rebuildProgress = progress;
+                }
+                job.totalChunks = ranges.size();
+                try {
+                    pool.submit(() -> IntStream.range(0, ranges.size()).parallel().forEach(index -> {
+                        int products = transactionTemplate.execute(status -> rebuildRange(ranges.get(index), () -> {
+                            synchronized (pending) {
+                                progress.started[index] = true;
+                            }
+                        }));
+                        job.chunkCompleted(products);
+                    })).get();
+                } finally {
+                    synchronized (pending) {
+                        rebuildProgress = null;
+                    }
+                }
+            }
+            job.markCompleted();
+            logger.info("Rebuilt review aggregates for {} products in {} ms", job.products, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markFailed("Interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("Review aggregate rebuild {} failed", job.jobId, cause);
+            job.markFailed(cause.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Recompute one id range from product_reviews and replace its summary rows.
+     * onSnapshot runs once the transaction's read snapshot is fixed and before the range is counted.
+     */
+    private int rebuildRange(List<Long> productIds, Runnable onSnapshot) {
+        Long first = productIds.get(0);
+        Long last = productIds.get(productIds.size() - 1);
+        // Under REPEATABLE READ the first consistent read fixes the snapshot for the whole transaction: reviews
+        // committed before it are counted below and their deltas dropped, later ones keep their deltas
+        jdbcTemplate.queryForList("SELECT id FROM product_reviews WHERE product_id = ? LIMIT 1", Long.class, first);
+        onSnapshot.run();
+        Map<Long, long[]> counts = new HashMap<>();
+        jdbcTemplate.query(REBUILD_SELECT_SQL, rs -> {
+            long[] row = counts.computeIfAbsent(rs.getLong(1), id -> new long[VERIFIED + 1]);
+            long reviews = rs.getLong(4);
+            row[rs.getInt(2) - 1] += reviews;
+            if (rs.getBoolean(3)) {
+                row[VERIFIED] += reviews;
+            }
+        }, first, last);
+
+        jdbcTemplate.update("DELETE FROM product_rating_summaries WHERE product_id BETWEEN ? AND ?", first, last);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>(counts.size());
+        List<Object[]> derived = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            long[] row = counts.getOrDefault(productId, new long[VERIFIED + 1]);
+            long count = reviewCount(row);
+            double average = average(row, count);
+            if (count > 0) {
+                inserts.add(new Object[] { productId, row[0], row[1], row[2], row[3], row[4], row[VERIFIED], count, average, now });
+            }
+            derived.add(new Object[] { count, average, productId });
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        List<Object[]> products = new ArrayList<>(derived.size());
+        for (Object[] row : derived) {
+            products.add(new Object[] { Math.toIntExact((Long) row[0]), row[1], row[2] });
+        }
+        jdbcTemplate.batchUpdate(PRODUCT_SQL, products);
+        eventPublisher.publishEvent(new ProductChangedEvent(productIds));
+        return productIds.size();
+    }
+
+    private static long reviewCount(long[] stars) {
+        return stars[0] + stars[1] + stars[2] + stars[3] + stars[4];
+    }
+
+    private static double average(long[] stars, long count) {
+        if (count <= 0) {
+            return 0.0;
+        }
+        double sum = stars[0] + 2.0 * stars[1] + 3.0 * stars[2] + 4.0 * stars[3] + 5.0 * stars[4];
+        return Math.round(sum / count * 100.0) / 100.0;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @Override
+    public void start() {
+        bootstrapNeeded = jdbcTemplate.queryForList("SELECT product_id FROM product_rating_summaries LIMIT 1", Long.class).isEmpty()
+                && !jdbcTemplate.queryForList("SELECT id FROM product_reviews LIMIT 1", Long.class).isEmpty();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "review-aggregate-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server, like the view counters, so the last review writes are flushed
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Review aggregate flush failed: {}", e.getMessage());
+        }
+    }
+
+    // Inner classes
+    /**
+     * Id ranges of a running rebuild and which of them have started reading. A range is marked right after its
+     * transaction has fixed its read snapshot, so a delta is dropped only for a review that snapshot can see,
+     * and kept for one committed too late to be counted.
+     */
+    private static class RebuildProgress {
+        private final long[] firstIds;
+        private final long[] lastIds;
+        private final boolean[] started;
+
+        RebuildProgress(List<List<Long>> ranges) {
+            firstIds = new long[ranges.size()];
+            lastIds = new long[ranges.size()];
+            started = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                List<Long> range = ranges.get(i);
+                firstIds[i] = range.get(0);
+                lastIds[i] = range.get(range.size() - 1);
+            }
+        }
+
+        /**
+         * True when the product lies in a range that has not started reading yet
+         */
+        boolean willRead(Long productId) {
+            int index = Arrays.binarySearch(firstIds, productId);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index >= 0 && productId <= lastIds[index] && !started[index];
+        }
+    }
+
+    public enum JobStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    public static class RebuildJob {
+        private final String jobId;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile int totalChunks;
+        private volatile int completedChunks;
+        private volatile long products;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        RebuildJob(String jobId) {
+            this.jobId = jobId;
+        }
+
+        synchronized void markRunning() {
+            status = JobStatus.RUNNING;
+            startedAt = LocalDateTime.now();
+        }
+
+        synchronized void chunkCompleted(int chunkProducts) {
+            completedChunks++;
+            products += chunkProducts;
+        }
+
+        synchronized void markCompleted() {
+            status = JobStatus.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized void markFailed(String message) {
+            status = JobStatus.FAILED;
+            finishedAt = LocalDateTime.now();
+            error = message;
+        }
+
+        public String getJobId() { return jobId; }
+        public JobStatus getStatus() { return status; }
+        public int getTotalChunks() { return totalChunks; }
+        public int getCompletedChunks() { return completedChunks; }
+        public long getProducts() { return products; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.project.service;
+
+import com.example.project.dto.CursorPage;
+import com.example.project.dto.ReviewDTO;
+import com.example.project.repository.ProductReviewRepository;
+import com.example.project.util.CursorCodec;
+import com.example.project.util.WilsonScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Product review listing and helpfulness votes.
+ * Listings are keyset-paginated in two steps: the page's ids come from the composite index for the chosen
+ * order, then only those rows are read, through a projection without the AI TEXT columns.
+ */
+@Service
+public class ReviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
+
+    public static final String SORT_HELPFUL = "helpful";
+    public static final String SORT_NEWEST = "newest";
+
+    private static final int BACKFILL_BATCH = 1000;
+
+    @Autowired
+    private ProductReviewRepository productReviewRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * One slice of a product's approved, non-spam reviews, "helpful" (default) or "newest" first
+     *
+     * @throws IllegalArgumentException for an unknown sort or a cursor that does not belong to it
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewDTO> listReviews(Long productId, String sort, String cursor, int size) {
+        String normalizedSort = sort == null || sort.isBlank() ? SORT_HELPFUL : sort.trim().toLowerCase(Locale.ROOT);
+        CursorCodec.Cursor position = cursor != null && !cursor.isBlank() ? CursorCodec.decode(cursor, normalizedSort) : null;
+        // One extra key tells whether another slice exists
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Object[]> keys;
+        switch (normalizedSort) {
+            case SORT_HELPFUL -> keys = position != null
+                    ? productReviewRepository.findMostHelpfulKeysAfter(productId, parseScore(position), position.getLastId(), limit)
+                    : productReviewRepository.findMostHelpfulKeys(productId, limit);
+            case SORT_NEWEST -> keys = position != null
+                    ? productReviewRepository.findNewestKeysAfter(productId, parseCreatedAt(position), position.getLastId(), limit)
+                    : productReviewRepository.findNewestKeys(productId, limit);
+            default -> throw new IllegalArgumentException("Unsupported review sort: " + sort);
+        }
+
+        String nextCursor = null;
+        if (keys.size() > size) {
+            keys = keys.subList(0, size);
+            Object[] last = keys.get(size - 1);
+            nextCursor = CursorCodec.encode(normalizedSort, String.valueOf(last[1]), (Long) last[0]);
+        }
+
+        List<Long> ids = new ArrayList<>(keys.size());
+        Map<Long, Integer> positions = new HashMap<>();
+        for (Object[] key : keys) {
+            positions.put((Long) key[0], ids.size());
+            ids.add((Long) key[0]);
+        }
+        List<ReviewDTO> reviews = ids.isEmpty() ? List.of() : new ArrayList<>(productReviewRepository.findListingByIdIn(ids));
+        reviews.sort(Comparator.comparing(review -> positions.get(review.getId())));
+        return new CursorPage<>(reviews, size, nextCursor);
+    }
+
+    /**
+     * Count one helpful / not-helpful vote and re-score the review in the same transaction.
+     * The increment is done in SQL, so concurrent votes are never lost.
+     *
+     * @return false if the review does not exist
+     */
+    @Transactional
+    public boolean recordVote(Long reviewId, boolean helpful) {
+        int updated = jdbcTemplate.update("UPDATE product_reviews SET helpful_votes = COALESCE(helpful_votes, 0) + ?, "
+                + "total_votes = COALESCE(total_votes, 0) + 1 WHERE id = ?", helpful ? 1 : 0, reviewId);
+        if (updated == 0) {
+            return false;
+        }
+        // The row stays locked by the increment until commit, so these counts are current
+        Map<String, Object> votes = jdbcTemplate.queryForMap(
+                "SELECT helpful_votes, total_votes FROM product_reviews WHERE id = ?", reviewId);
+        double score = WilsonScore.lowerBound(((Number) votes.get("helpful_votes")).longValue(),
+                ((Number) votes.get("total_votes")).longValue());
+        jdbcTemplate.update("UPDATE product_reviews SET helpfulness_score = ? WHERE id = ?", score, reviewId);
+        return true;
+    }
+
+    /**
+     * Fill the listing keys of reviews written without them: is_spam NULL becomes false, so the listings can match
+     * it by equality and read the sort key in index order, and a NULL created_at (written before it was set on
+     * insert) becomes the best known time, so "newest" cursors always carry a timestamp.
+     * Runs before the other startup listeners, which read these columns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillListingKeys() {
+        try {
+            long spam = updateInBatches("UPDATE product_reviews SET is_spam = false WHERE is_spam IS NULL LIMIT " + BACKFILL_BATCH);
+            long created = updateInBatches("UPDATE product_reviews SET created_at = COALESCE(updated_at, approved_at, "
+                    + "CURRENT_TIMESTAMP) WHERE created_at IS NULL LIMIT " + BACKFILL_BATCH);
+            if (spam > 0 || created > 0) {
+                logger.info("Backfilled is_spam for {} reviews and created_at for {} reviews", spam, created);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to backfill review listing keys", e);
+        }
+    }
+
+    private long updateInBatches(String sql) {
+        long total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(sql);
+            total += updated;
+        } while (updated == BACKFILL_BATCH);
+        return total;
+    }
+
+    /**
+     * Score reviews written before the helpfulness_score column existed; rows with a NULL key would
+     * otherwise never appear in the "helpful" listing
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillHelpfulnessScores() {
+        try {
+            long scored = 0;
+            List<Object[]> batch;
+            do {
+                batch = jdbcTemplate.query("SELECT id, helpful_votes, total_votes FROM product_reviews "
+                        + "WHERE helpfulness_score IS NULL ORDER BY id LIMIT " + BACKFILL_BATCH, (rs, rowNum) -> {
+                    double score = WilsonScore.lowerBound(rs.getLong(2), rs.getLong(3));
+                    return new Object[] { score, rs.getLong(1) };
+                });
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE product_reviews SET helpfulness_score = ? WHERE id = ?", batch);
+                    scored += batch.size();
+                }
+            } while (batch.size() == BACKFILL_BATCH);
+            if (scored > 0) {
+                logger.info("Backfilled helpfulness scores for {} reviews", scored);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to backfill review helpfulness scores", e);
+        }
+    }
+
+    private static Double parseScore(CursorCodec.Cursor position) {
+        try {
+            return Double.valueOf(position.getLastKey());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static LocalDateTime parseCreatedAt(CursorCodec.Cursor position) {
+        try {
+            return LocalDateTime.parse(position.getLastKey());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
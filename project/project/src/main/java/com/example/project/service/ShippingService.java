@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import com.example.project.entity.Warehouse;
 import com.example.project.repository.WarehouseRepository;
+import com.example.project.util.TextAnalyzer;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.concurrent.ConcurrentHashMap;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -376,9 +377,10 @@ public class ShippingService {
                 return allProvinces;
             }
             
-            String lowerSearchTerm = searchTerm.toLowerCase().trim();
+            // "ha noi" matches "Hà Nội"
+            String foldedSearchTerm = TextAnalyzer.normalize(searchTerm);
             return allProvinces.stream()
-                .filter(province -> province.getProvinceName().toLowerCase().contains(lowerSearchTerm))
+                .filter(province -> TextAnalyzer.normalize(province.getProvinceName()).contains(foldedSearchTerm))
                 .collect(java.util.stream.Collectors.toList());
         } catch (Exception e) {
             System.err.println("Error searching provinces: " + e.getMessage());
@@ -395,9 +397,9 @@ public class ShippingService {
             if (searchTerm == null || searchTerm.trim().isEmpty()) {
                 return allCommunes;
             }
-            String lowerSearchTerm = searchTerm.toLowerCase().trim();
+            String foldedSearchTerm = TextAnalyzer.normalize(searchTerm);
             return allCommunes.stream()
-                .filter(commune -> ((String) commune.get("wardName")).toLowerCase().contains(lowerSearchTerm))
+                .filter(commune -> TextAnalyzer.normalize((String) commune.get("wardName")).contains(foldedSearchTerm))
                 .toList();
         } catch (Exception e) {
             System.err.println("Error searching communes: " + e.getMessage());
@@ -0,0 +1,107 @@
+package com.example.project.service.ai;
+
+import com.example.project.service.ai.VectorStoreService.DocumentData;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary form of a {@link DocumentData} for vector store snapshots and the write-ahead log.
+ * Metadata values keep their type for null, String, Long, Integer, Double and Boolean (callers cast
+ * productId to Long); anything else is stored as its toString().
+ */
+final class DocumentCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+
+    private DocumentCodec() {
+    }
+
+    static void write(DataOutput out, DocumentData document) throws IOException {
+        writeString(out, document.getId());
+        writeString(out, document.getContent());
+        Map<String, Object> metadata = document.getMetadata() != null ? document.getMetadata() : Map.of();
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    static DocumentData read(DataInput in) throws IOException {
+        String id = readString(in);
+        String content = readString(in);
+        int size = in.readInt();
+        Map<String, Object> metadata = new HashMap<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            metadata.put(key, readValue(in));
+        }
+        return new DocumentData(id, content, Collections.unmodifiableMap(metadata));
+    }
+
+    // Length-prefixed UTF-8; writeUTF caps strings at 64 KB
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(flag);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case DOUBLE -> in.readDouble();
+            case BOOLEAN -> in.readBoolean();
+            default -> throw new IOException("Unknown metadata value type " + type);
+        };
+    }
+}
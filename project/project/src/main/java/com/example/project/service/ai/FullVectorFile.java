@@ -0,0 +1,116 @@
+package com.example.project.service.ai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+/**
+ * Full-precision vectors of a quantized {@link HnswIndex}, kept off the heap in a file of little-endian float32
+ * rows addressed by slot. Rows are read back with positional reads only to re-rank the final candidates of a
+ * search, so the page cache rather than the heap holds whatever part of the file is hot.
+ * Slots of removed vectors are reused. Reads are thread-safe; the caller serializes writes.
+ */
+final class FullVectorFile implements Closeable {
+
+    private final Path path;
+    private final boolean temporary;
+    private final int dimension;
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private FileChannel channel;
+    private int slots;
+
+    /**
+     * @param path file to hold the rows, replaced if it exists; null for a temp file deleted on close
+     */
+    FullVectorFile(Path path, int dimension) throws IOException {
+        this.temporary = path == null;
+        this.path = temporary ? Files.createTempFile("full-vectors", ".f32") : path;
+        this.dimension = dimension;
+        if (!temporary && this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Store a vector
+     *
+     * @return its slot
+     */
+    int append(float[] vector) throws IOException {
+        int slot = freeSlots.isEmpty() ? slots++ : freeSlots.poll();
+        ByteBuffer row = ByteBuffer.allocate(dimension * 4).order(ByteOrder.LITTLE_ENDIAN);
+        row.asFloatBuffer().put(vector, 0, dimension);
+        long position = (long) slot * dimension * 4;
+        while (row.hasRemaining()) {
+            position += channel.write(row, position);
+        }
+        return slot;
+    }
+
+    void release(int slot) {
+        freeSlots.add(slot);
+    }
+
+    float[] read(int slot) throws IOException {
+        ByteBuffer row = ByteBuffer.allocate(dimension * 4).order(ByteOrder.LITTLE_ENDIAN);
+        long position = (long) slot * dimension * 4;
+        while (row.hasRemaining()) {
+            int read = channel.read(row, position);
+            if (read < 0) {
+                throw new IOException("Vector slot " + slot + " is past the end of " + path);
+            }
+            position += read;
+        }
+        float[] vector = new float[dimension];
+        row.flip();
+        row.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * Replace the contents with rows copied from a file of the same layout, starting at offset.
+     * Row i becomes slot i.
+     */
+    void copyFrom(Path source, long offset, int rows) throws IOException {
+        reset();
+        long bytes = (long) rows * dimension * 4;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long copied = 0;
+            while (copied < bytes) {
+                long transferred = in.transferTo(offset + copied, bytes - copied, channel);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of " + source);
+                }
+                copied += transferred;
+            }
+        }
+        slots = rows;
+    }
+
+    void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        freeSlots.clear();
+        slots = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (temporary) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,1153 @@
+package com.example.project.service.ai;
+
+import com.example.project.service.ai.VectorStoreService.DocumentData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * In-process approximate nearest-neighbour index over float vectors (HNSW, Malkov and Yashunin), cosine similarity.
+ * Every document sits on layer 0 and, with exponentially decreasing probability, on the layers above; a search
+ * descends greedily from the top layer's entry point and runs a best-first search of width efSearch on layer 0.
+ * Each layer keeps at most m links per node (2m on layer 0), chosen with the diversity heuristic so clusters
+ * stay connected to each other.
+ * <p>
+ * Writes are serialized by one lock; reads take no lock at all. A node's links on each layer are an immutable
+ * array replaced as a whole, and a node is fully linked before any other node points to it, so a search running
+ * during an insert or delete sees either the old or the new neighbourhood, never a torn one.
+ * A deleted node is flagged and unlinked from its neighbours, which are relinked among themselves; links other
+ * nodes may still hold to it keep routing searches but it never appears in a result. Those links are swept
+ * in batches, and only after a sweep and once every search that started before it has finished is the
+ * node's ordinal handed out again.
+ * <p>
+ * {@link #save} writes the live graph as segment files: vectors packed as little-endian float32, adjacency as
+ * little-endian int arrays of dense node numbers, documents alongside. {@link #load} maps those files back
+ * instead of inserting every vector again.
+ * <p>
+ * With {@link Quantization} INT8 or PQ, the first trainingSize vectors train a {@link VectorCodec} and from then
+ * on nodes keep only their code on the heap; full-precision vectors move to a {@link FullVectorFile} on disk.
+ * The graph is walked with asymmetric distances (full query against codes) and the best k x rerank candidates
+ * are re-scored exactly from the file, which recovers most of the recall lost to quantization.
+ * Snapshots then also hold codes.seg, so a restore maps codes without training again.
+ */
+public class HnswIndex implements Closeable {
+
+    // Beyond this the top layers hold a single node anyway
+    private static final int MAX_LEVEL = 16;
+    // Deleted nodes collected before their incoming links are swept, at least; otherwise an eighth of the index
+    private static final int MIN_SWEEP = 64;
+
+    private static final SimilarityKernel KERNEL = SimilarityKernels.preferred();
+
+    public static final String VECTORS_FILE = "vectors.seg";
+    public static final String GRAPH_FILE = "graph.seg";
+    public static final String DOCUMENTS_FILE = "documents.seg";
+    public static final String CODES_FILE = "codes.seg";
+
+    private static final int SEGMENT_MAGIC = 0x484E5357;
+    private static final int SEGMENT_VERSION = 1;
+    // vectors.seg: magic, version, count, dimension; graph.seg: magic, version, count, m, entry point
+    private static final int VECTORS_HEADER_BYTES = 16;
+    private static final int GRAPH_HEADER_BYTES = 20;
+    // A single mapping is limited to 2 GB, so vectors are mapped in windows of whole vectors
+    private static final long MAP_WINDOW_BYTES = 1L << 30;
+
+    private final Quantization quantization;
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Node ordinals index the per-thread visited marks; a deleted node's ordinal is handed out again only when
+    // no search can reach the node any more, or a live node sharing it would read as already visited
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private int nextOrdinal;
+    // Deleted nodes that other nodes may still link to
+    private final List<Node> retired = new ArrayList<>();
+    // Swept nodes whose ordinal and full-vector slot are free once the searches registered in drainingPhase
+    // have finished; until then a search may still re-rank them from their slot
+    private final List<Node> draining = new ArrayList<>();
+    private int drainingPhase;
+    // Searches in flight per phase; a sweep moves new searches to the other phase
+    private final AtomicInteger[] searches = { new AtomicInteger(), new AtomicInteger() };
+    private volatile int searchPhase;
+    private final ThreadLocal<VisitedMarks> visitedMarks = ThreadLocal.withInitial(VisitedMarks::new);
+
+    private volatile Node entryPoint;
+    // Fixed by the first insert, reset by clear()
+    private volatile int dimension;
+    // Set once trainingSize vectors are indexed, when quantized; reset by clear()
+    private volatile VectorCodec codec;
+    // Full-precision rows of a quantized index, opened by the first insert
+    private volatile FullVectorFile fullVectors;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this(m, efConstruction, efSearch, Quantization.none());
+    }
+
+    public HnswIndex(int m, int efConstruction, int efSearch, Quantization quantization) {
+        if (m < 2 || efConstruction < m || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW needs m >= 2, efConstruction >= m and efSearch >= 1");
+        }
+        this.quantization = quantization;
+        this.m = m;
+        this.maxLinksLayer0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    /**
+     * Whether vectors are held as codes, i.e. the index is quantized and has reached its training size
+     */
+    public boolean isQuantized() {
+        return codec != null;
+    }
+
+    /**
+     * Heap bytes of the vectors and codes of stored documents, not counting links and documents
+     */
+    public long vectorBytes() {
+        long bytes = 0;
+        for (Node node : nodes.values()) {
+            float[] vector = node.vector;
+            byte[] code = node.code;
+            bytes += (vector != null ? 4L * vector.length : 0) + (code != null ? code.length : 0);
+        }
+        return bytes;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * Candidate list width for searches; higher trades latency for recall
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("efSearch must be at least 1");
+        }
+        this.efSearch = efSearch;
+    }
+
+    public DocumentData get(String id) {
+        Node node = nodes.get(id);
+        return node != null ? node.document : null;
+    }
+
+    /**
+     * Snapshot of the stored document ids
+     */
+    public Set<String> ids() {
+        return new HashSet<>(nodes.keySet());
+    }
+
+    /**
+     * Insert the document or replace the one with the same id. Replacing with an unchanged vector
+     * only swaps the document; a new vector relinks the node.
+     */
+    public void upsert(DocumentData document, float[] vector) {
+        float[] normalized = normalize(vector);
+        writeLock.lock();
+        try {
+            if (dimension == 0) {
+                dimension = normalized.length;
+            } else if (normalized.length != dimension) {
+                throw new IllegalArgumentException("Expected a vector of dimension " + dimension + ", got " + normalized.length);
+            }
+            Node existing = nodes.get(document.getId());
+            if (existing != null) {
+                if (Arrays.equals(fullVector(existing), normalized)) {
+                    existing.document = document;
+                    return;
+                }
+                unlink(existing);
+            }
+            insert(newNode(document, normalized, randomLevel()), normalized);
+            if (codec == null && quantization.mode != Quantization.Mode.NONE && nodes.size() >= quantization.trainingSize) {
+                train();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write full-precision vector", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return whether a document with that id was stored
+     */
+    public boolean remove(String id) {
+        writeLock.lock();
+        try {
+            Node node = nodes.get(id);
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replace the document stored under its id, keeping the vector
+     *
+     * @return whether a document with that id was stored
+     */
+    public boolean updateDocument(DocumentData document) {
+        writeLock.lock();
+        try {
+            Node node = nodes.get(document.getId());
+            if (node == null) {
+                return false;
+            }
+            node.document = document;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void clear() {
+        writeLock.lock();
+        try {
+            for (Node node : nodes.values()) {
+                node.deleted = true;
+            }
+            nodes.clear();
+            freeOrdinals.clear();
+            retired.clear();
+            draining.clear();
+            nextOrdinal = 0;
+            entryPoint = null;
+            dimension = 0;
+            codec = null;
+            closeFullVectors();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Release the full-precision vector file; a temporary one is deleted
+     */
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            closeFullVectors();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The k documents most similar to the query among those the filter accepts, most similar first.
+     * A selective filter widens the walk until k matches are found, up to the whole graph when few match.
+     */
+    public List<Match> search(float[] query, int k, Predicate<DocumentData> filter) {
+        // Registered before the entry point is read, so no node this search reaches can have its ordinal reused
+        int phase = enterSearch();
+        try {
+            Node entry = entryPoint;
+            if (entry == null || k < 1) {
+                return List.of();
+            }
+            float[] normalized = normalize(query);
+            if (normalized.length != dimension) {
+                throw new IllegalArgumentException("Expected a query of dimension " + dimension + ", got " + normalized.length);
+            }
+            return search(entry, normalized, k, filter);
+        } finally {
+            searches[phase].decrementAndGet();
+        }
+    }
+
+    private List<Match> search(Node entry, float[] normalized, int k, Predicate<DocumentData> filter) {
+        // Codes are only compared asymmetrically while quantized; exact scores replace theirs when re-ranking
+        boolean rerank = codec != null && quantization.rerank > 0;
+        int depth = rerank ? k * quantization.rerank : k;
+        Probe probe = probe(normalized);
+        Candidate current = new Candidate(entry, probe.distance(entry));
+        for (int level = entry.level; level > 0; level--) {
+            current = greedyClosest(probe, current, level);
+        }
+        Predicate<Node> accept = node -> !node.deleted && (filter == null || filter.test(node.document));
+        PriorityQueue<Candidate> found = searchLayer(probe, List.of(current), Math.max(efSearch, depth), 0, accept);
+
+        List<Candidate> sorted = new ArrayList<>(found);
+        sorted.sort(Comparator.comparingDouble(c -> c.distance));
+        if (rerank) {
+            sorted = rerank(normalized, sorted.subList(0, Math.min(depth, sorted.size())));
+        }
+        List<Match> matches = new ArrayList<>(Math.min(k, sorted.size()));
+        for (Candidate candidate : sorted) {
+            if (matches.size() == k) {
+                break;
+            }
+            matches.add(new Match(candidate.node.document, 1 - candidate.distance));
+        }
+        return matches;
+    }
+
+    // Exact distances from the full-precision vectors, nearest first
+    private List<Candidate> rerank(float[] query, List<Candidate> candidates) {
+        List<Candidate> exact = new ArrayList<>(candidates.size());
+        try {
+            for (Candidate candidate : candidates) {
+                exact.add(new Candidate(candidate.node, distance(query, fullVector(candidate.node))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read full-precision vectors", e);
+        }
+        exact.sort(Comparator.comparingDouble(c -> c.distance));
+        return exact;
+    }
+
+    /**
+     * Write the live graph into the directory as vectors.seg, graph.seg and documents.seg, plus codes.seg once
+     * quantized, replacing those files. vectors.seg always holds the full-precision vectors.
+     * Nodes are numbered densely in the files; links to deleted nodes are dropped. Writers wait, searches go on.
+     */
+    public void save(Path directory) throws IOException {
+        writeLock.lock();
+        try {
+            List<Node> live = new ArrayList<>(nodes.values());
+            int[] dense = new int[nextOrdinal];
+            Arrays.fill(dense, -1);
+            for (int i = 0; i < live.size(); i++) {
+                dense[live.get(i).ordinal] = i;
+            }
+            Node entry = entryPoint;
+            writeVectors(directory.resolve(VECTORS_FILE), live);
+            writeGraph(directory.resolve(GRAPH_FILE), live, dense, entry != null ? dense[entry.ordinal] : -1);
+            writeDocuments(directory.resolve(DOCUMENTS_FILE), live);
+            VectorCodec current = codec;
+            if (current != null) {
+                writeCodes(directory.resolve(CODES_FILE), live, current);
+            } else {
+                Files.deleteIfExists(directory.resolve(CODES_FILE));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index with the graph saved in the directory. Vectors and links are read from the mapped
+     * segments; if the graph was built with another m, the saved vectors are inserted again instead.
+     * A quantized index takes the saved codes when they match its mode and copies the full-precision vectors
+     * to its file without reading them onto the heap; otherwise it reads the vectors and trains if large enough.
+     */
+    public void load(Path directory) throws IOException {
+        List<DocumentData> documents = readDocuments(directory.resolve(DOCUMENTS_FILE));
+        Path vectorsFile = directory.resolve(VECTORS_FILE);
+        int savedDimension;
+        try (FileChannel channel = FileChannel.open(vectorsFile, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, VECTORS_HEADER_BYTES);
+            int count = header.getInt();
+            savedDimension = header.getInt();
+            if (count != documents.size()) {
+                throw new IOException("Vector snapshot holds " + count + " vectors for " + documents.size() + " documents");
+            }
+            long expected = VECTORS_HEADER_BYTES + 4L * savedDimension * count;
+            if (channel.size() != expected) {
+                throw new IOException("Vector snapshot is " + channel.size() + " bytes, expected " + expected);
+            }
+        }
+        Path codesFile = directory.resolve(CODES_FILE);
+        Codes codes = quantization.mode != Quantization.Mode.NONE && Files.exists(codesFile)
+                ? readCodes(codesFile, documents.size()) : null;
+        if (codes != null && !quantization.accepts(codes.codec)) {
+            codes = null;
+        }
+
+        writeLock.lock();
+        try {
+            clear();
+            if (documents.isEmpty()) {
+                return;
+            }
+            dimension = savedDimension;
+            try (FileChannel channel = FileChannel.open(directory.resolve(GRAPH_FILE), StandardOpenOption.READ)) {
+                ByteBuffer header = readHeader(channel, GRAPH_HEADER_BYTES);
+                int count = header.getInt();
+                int savedM = header.getInt();
+                int entry = header.getInt();
+                if (count != documents.size()) {
+                    throw new IOException("Graph snapshot holds " + count + " nodes for " + documents.size() + " documents");
+                }
+                if (savedM != m) {
+                    float[][] vectors = readVectors(vectorsFile, count, savedDimension);
+                    for (int i = 0; i < count; i++) {
+                        insert(newNode(documents.get(i), vectors[i], randomLevel()), vectors[i]);
+                    }
+                    if (codec == null && quantization.mode != Quantization.Mode.NONE && count >= quantization.trainingSize) {
+                        train();
+                    }
+                    return;
+                }
+                if (quantization.mode != Quantization.Mode.NONE) {
+                    openFullVectors().copyFrom(vectorsFile, VECTORS_HEADER_BYTES, count);
+                }
+                float[][] vectors = codes == null ? readVectors(vectorsFile, count, savedDimension) : null;
+                IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, GRAPH_HEADER_BYTES,
+                        channel.size() - GRAPH_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                restoreGraph(ints, documents, vectors, codes != null ? codes.codes : null, entry);
+                if (codes != null) {
+                    codec = codes.codec;
+                } else if (quantization.mode != Quantization.Mode.NONE && count >= quantization.trainingSize) {
+                    train();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller holds the write lock; every node is created before links are resolved, since links point forwards too.
+    // Node i keeps either its vector or its code, and slot i in a quantized index's file.
+    private void restoreGraph(IntBuffer ints, List<DocumentData> documents, float[][] vectors, byte[][] codes, int entry)
+            throws IOException {
+        int count = documents.size();
+        boolean spilled = quantization.mode != Quantization.Mode.NONE;
+        Node[] restored = new Node[count];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = ints.position();
+            int level = ints.get();
+            if (level < 0 || level > MAX_LEVEL) {
+                throw new IOException("Corrupt graph snapshot: level " + level + " for node " + i);
+            }
+            for (int layer = 0; layer <= level; layer++) {
+                int size = ints.get();
+                ints.position(ints.position() + size);
+            }
+            restored[i] = new Node(documents.get(i), vectors != null ? vectors[i] : null, codes != null ? codes[i] : null,
+                    level, i, spilled ? i : -1);
+        }
+        for (int i = 0; i < count; i++) {
+            ints.position(offsets[i] + 1);
+            for (int layer = 0; layer <= restored[i].level; layer++) {
+                Node[] links = new Node[ints.get()];
+                for (int j = 0; j < links.length; j++) {
+                    links[j] = restored[ints.get()];
+                }
+                restored[i].links.set(layer, links);
+            }
+            nodes.put(restored[i].document.getId(), restored[i]);
+        }
+        nextOrdinal = count;
+        entryPoint = entry >= 0 ? restored[entry] : null;
+    }
+
+    private void writeVectors(Path file, List<Node> live) throws IOException {
+        long vectorBytes = 4L * dimension;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(VECTORS_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).putInt(live.size()).putInt(dimension).flip();
+            channel.write(header, 0);
+            int perWindow = (int) Math.max(1, MAP_WINDOW_BYTES / Math.max(1, vectorBytes));
+            for (int start = 0; start < live.size(); start += perWindow) {
+                int count = Math.min(perWindow, live.size() - start);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE,
+                        VECTORS_HEADER_BYTES + start * vectorBytes, count * vectorBytes);
+                FloatBuffer floats = window.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                for (int i = start; i < start + count; i++) {
+                    floats.put(fullVector(live.get(i)));
+                }
+                window.force();
+            }
+            channel.force(true);
+        }
+    }
+
+    // Sizes were checked against the header by load
+    private static float[][] readVectors(Path file, int count, int dimension) throws IOException {
+        long vectorBytes = 4L * dimension;
+        float[][] vectors = new float[count][];
+        int perWindow = (int) Math.max(1, MAP_WINDOW_BYTES / Math.max(1, vectorBytes));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int start = 0; start < count; start += perWindow) {
+                int windowCount = Math.min(perWindow, count - start);
+                FloatBuffer floats = channel.map(FileChannel.MapMode.READ_ONLY, VECTORS_HEADER_BYTES + start * vectorBytes,
+                        windowCount * vectorBytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+                for (int i = start; i < start + windowCount; i++) {
+                    vectors[i] = new float[dimension];
+                    floats.get(vectors[i]);
+                }
+            }
+        }
+        return vectors;
+    }
+
+    private void writeGraph(Path file, List<Node> live, int[] dense, int entry) throws IOException {
+        // Links to deleted nodes are dropped; their ordinal may belong to a live node by now
+        int[][][] adjacency = new int[live.size()][][];
+        long ints = 0;
+        for (int i = 0; i < live.size(); i++) {
+            Node node = live.get(i);
+            adjacency[i] = new int[node.level + 1][];
+            ints += 1 + node.level + 1;
+            for (int layer = 0; layer <= node.level; layer++) {
+                Node[] links = node.links.get(layer);
+                int[] targets = new int[links.length];
+                int size = 0;
+                for (Node linked : links) {
+                    if (!linked.deleted) {
+                        targets[size++] = dense[linked.ordinal];
+                    }
+                }
+                adjacency[i][layer] = Arrays.copyOf(targets, size);
+                ints += size;
+            }
+        }
+        if (ints * 4 > Integer.MAX_VALUE - GRAPH_HEADER_BYTES) {
+            throw new IOException("Graph of " + live.size() + " nodes is too large for one segment");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, GRAPH_HEADER_BYTES + ints * 4);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).putInt(live.size()).putInt(m).putInt(entry);
+            IntBuffer out = mapped.asIntBuffer();
+            for (int[][] layers : adjacency) {
+                out.put(layers.length - 1);
+                for (int[] targets : layers) {
+                    out.put(targets.length);
+                    out.put(targets);
+                }
+            }
+            mapped.force();
+        }
+    }
+
+    private static void writeDocuments(Path file, List<Node> live) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(live.size());
+            for (Node node : live) {
+                DocumentCodec.write(out, node.document);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static List<DocumentData> readDocuments(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SEGMENT_MAGIC) {
+                throw new IOException("Not a document segment: " + file);
+            }
+            int count = in.readInt();
+            List<DocumentData> documents = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                documents.add(DocumentCodec.read(in));
+            }
+            return documents;
+        }
+    }
+
+    // codes.seg: magic, count, the codec, then each node's code in dense order
+    private static void writeCodes(Path file, List<Node> live, VectorCodec codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(live.size());
+            codec.write(out);
+            for (Node node : live) {
+                out.write(node.code);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static Codes readCodes(Path file, int expected) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SEGMENT_MAGIC) {
+                throw new IOException("Not a code segment: " + file);
+            }
+            int count = in.readInt();
+            if (count != expected) {
+                throw new IOException("Code snapshot holds " + count + " codes for " + expected + " documents");
+            }
+            VectorCodec codec = VectorCodec.read(in);
+            byte[][] codes = new byte[count][codec.codeSize()];
+            for (byte[] code : codes) {
+                in.readFully(code);
+            }
+            return new Codes(codec, codes);
+        }
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, int bytes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(header, 0) != bytes) {
+            throw new IOException("Truncated segment header");
+        }
+        header.flip();
+        if (header.getInt() != SEGMENT_MAGIC || header.getInt() != SEGMENT_VERSION) {
+            throw new IOException("Not a vector segment of version " + SEGMENT_VERSION);
+        }
+        return header;
+    }
+
+    // Caller holds the write lock
+    private Node newNode(DocumentData document, float[] vector, int level) throws IOException {
+        reclaimOrdinals();
+        Integer free = freeOrdinals.poll();
+        int ordinal = free != null ? free : nextOrdinal++;
+        int slot = quantization.mode != Quantization.Mode.NONE ? openFullVectors().append(vector) : -1;
+        VectorCodec current = codec;
+        return current == null
+                ? new Node(document, vector, null, level, ordinal, slot)
+                : new Node(document, null, current.encode(vector), level, ordinal, slot);
+    }
+
+    // Caller holds the write lock; vector is the node's unit vector, which a quantized node no longer holds
+    private void insert(Node node, float[] vector) {
+        Node entry = entryPoint;
+        if (entry == null) {
+            nodes.put(node.document.getId(), node);
+            entryPoint = node;
+            return;
+        }
+        Probe probe = probe(vector);
+        Candidate current = new Candidate(entry, probe.distance(entry));
+        for (int level = entry.level; level > node.level; level--) {
+            current = greedyClosest(probe, current, level);
+        }
+        List<Candidate> entryPoints = List.of(current);
+        for (int level = Math.min(node.level, entry.level); level >= 0; level--) {
+            PriorityQueue<Candidate> found = searchLayer(probe, entryPoints, efConstruction, level, n -> !n.deleted);
+            if (found.isEmpty()) {
+                continue;
+            }
+            Node[] links = selectNeighbours(new ArrayList<>(found), maxLinks(level));
+            // Own links first, so any node that can reach this one can also leave it
+            node.links.set(level, links);
+            for (Node neighbour : links) {
+                connect(neighbour, node, level);
+            }
+            entryPoints = new ArrayList<>(found);
+        }
+        nodes.put(node.document.getId(), node);
+        if (node.level > entry.level) {
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Train the codec on up to trainingSize stored vectors, encode every stored node and drop its vector.
+     * The codec is published after every node has its code and before any vector is dropped, so a search
+     * in flight always finds one or the other. Caller holds the write lock.
+     */
+    private void train() {
+        List<Node> live = new ArrayList<>(nodes.values());
+        List<float[]> sample = new ArrayList<>(Math.min(live.size(), quantization.trainingSize));
+        for (int i = 0; i < live.size() && sample.size() < quantization.trainingSize; i++) {
+            sample.add(live.get(i).vector);
+        }
+        VectorCodec trained = quantization.mode == Quantization.Mode.PQ
+                ? ProductQuantizer.train(sample, quantization.pqSubDimension, 42)
+                : ScalarQuantizer.train(sample);
+        for (Node node : live) {
+            node.code = trained.encode(node.vector);
+        }
+        codec = trained;
+        for (Node node : live) {
+            node.vector = null;
+        }
+    }
+
+    // Caller holds the write lock
+    private void unlink(Node node) {
+        nodes.remove(node.document.getId());
+        node.deleted = true;
+        retired.add(node);
+        for (int level = 0; level <= node.level; level++) {
+            for (Node neighbour : node.links.get(level)) {
+                if (!neighbour.deleted) {
+                    repair(neighbour, node, level);
+                }
+            }
+        }
+        if (entryPoint == node) {
+            Node highest = null;
+            for (Node candidate : nodes.values()) {
+                if (highest == null || candidate.level > highest.level) {
+                    highest = candidate;
+                }
+            }
+            entryPoint = highest;
+        }
+        reclaimOrdinals();
+    }
+
+    /**
+     * Free the ordinals and full-vector slots of the last sweep once its searches are done, then sweep the retired
+     * nodes when enough have gathered: every link to them is dropped, so searches starting from now on cannot
+     * reach them.
+     * Caller holds the write lock.
+     */
+    private void reclaimOrdinals() {
+        if (!draining.isEmpty() && searches[drainingPhase].get() == 0) {
+            for (Node node : draining) {
+                freeOrdinals.add(node.ordinal);
+                if (node.slot >= 0 && fullVectors != null) {
+                    fullVectors.release(node.slot);
+                }
+            }
+            draining.clear();
+        }
+        if (!draining.isEmpty() || retired.size() < Math.max(MIN_SWEEP, nodes.size() / 8)) {
+            return;
+        }
+        Set<Node> swept = new HashSet<>(retired);
+        for (Node node : nodes.values()) {
+            for (int level = 0; level <= node.level; level++) {
+                Node[] links = node.links.get(level);
+                int kept = 0;
+                for (Node linked : links) {
+                    if (!swept.contains(linked)) {
+                        kept++;
+                    }
+                }
+                if (kept < links.length) {
+                    Node[] remaining = new Node[kept];
+                    int i = 0;
+                    for (Node linked : links) {
+                        if (!swept.contains(linked)) {
+                            remaining[i++] = linked;
+                        }
+                    }
+                    node.links.set(level, remaining);
+                }
+            }
+        }
+        draining.addAll(retired);
+        retired.clear();
+        drainingPhase = searchPhase;
+        searchPhase = drainingPhase ^ 1;
+    }
+
+    // Register a search in the current phase; the re-check makes sure a sweep flipping the phase meanwhile
+    // either sees this search counted or this search sees the swept graph
+    private int enterSearch() {
+        while (true) {
+            int phase = searchPhase;
+            searches[phase].incrementAndGet();
+            if (searchPhase == phase) {
+                return phase;
+            }
+            searches[phase].decrementAndGet();
+        }
+    }
+
+    // Add the link neighbour -> node, pruning the neighbour's links back to the layer maximum
+    private void connect(Node neighbour, Node node, int level) {
+        Node[] current = neighbour.links.get(level);
+        int max = maxLinks(level);
+        if (current.length < max) {
+            Node[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = node;
+            neighbour.links.set(level, grown);
+            return;
+        }
+        float[] base = unit(neighbour);
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (Node linked : current) {
+            if (!linked.deleted) {
+                candidates.add(new Candidate(linked, distance(base, unit(linked))));
+            }
+        }
+        candidates.add(new Candidate(node, distance(base, unit(node))));
+        neighbour.links.set(level, selectNeighbours(candidates, max));
+    }
+
+    // Replace the neighbour's link to a deleted node with the best of both neighbourhoods
+    private void repair(Node neighbour, Node deleted, int level) {
+        Node[] current = neighbour.links.get(level);
+        boolean linked = false;
+        for (Node node : current) {
+            if (node == deleted) {
+                linked = true;
+                break;
+            }
+        }
+        if (!linked) {
+            return;
+        }
+        Set<Node> pool = new HashSet<>();
+        for (Node node : current) {
+            if (!node.deleted) {
+                pool.add(node);
+            }
+        }
+        for (Node node : deleted.links.get(level)) {
+            if (node != neighbour && !node.deleted) {
+                pool.add(node);
+            }
+        }
+        float[] base = unit(neighbour);
+        List<Candidate> candidates = new ArrayList<>(pool.size());
+        for (Node node : pool) {
+            candidates.add(new Candidate(node, distance(base, unit(node))));
+        }
+        neighbour.links.set(level, selectNeighbours(candidates, maxLinks(level)));
+    }
+
+    /**
+     * Neighbour selection heuristic: walking candidates from nearest, keep one only if it is closer to the base
+     * than to every neighbour kept so far, then top up with the skipped ones. Distances are to the base node.
+     */
+    private Node[] selectNeighbours(List<Candidate> candidates, int max) {
+        candidates.sort(Comparator.comparingDouble(c -> c.distance));
+        List<Node> selected = new ArrayList<>(max);
+        List<float[]> selectedUnits = new ArrayList<>(max);
+        List<Node> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == max) {
+                break;
+            }
+            float[] unit = unit(candidate.node);
+            boolean diverse = true;
+            for (float[] kept : selectedUnits) {
+                if (distance(unit, kept) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+                selectedUnits.add(unit);
+            } else {
+                skipped.add(candidate.node);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected.toArray(new Node[0]);
+    }
+
+    private Candidate greedyClosest(Probe probe, Candidate start, int level) {
+        Candidate best = start;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbour : best.node.links.get(level)) {
+                float d = probe.distance(neighbour);
+                if (d < best.distance) {
+                    best = new Candidate(neighbour, d);
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one layer. Every reachable node is walked, deleted and filtered ones included,
+     * but only accepted nodes enter the result heap (farthest on top, at most ef).
+     */
+    private PriorityQueue<Candidate> searchLayer(Probe probe, List<Candidate> entryPoints, int ef, int level,
+                                                 Predicate<Node> accept) {
+        VisitedMarks visited = visitedMarks.get();
+        visited.clear();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+        for (Candidate entry : entryPoints) {
+            if (visited.add(entry.node.ordinal)) {
+                candidates.add(entry);
+                if (accept.test(entry.node)) {
+                    results.add(entry);
+                }
+            }
+        }
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.distance > results.peek().distance) {
+                break;
+            }
+            for (Node neighbour : closest.node.links.get(level)) {
+                if (!visited.add(neighbour.ordinal)) {
+                    continue;
+                }
+                float d = probe.distance(neighbour);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbour, d);
+                    candidates.add(candidate);
+                    if (accept.test(neighbour)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxLinksLayer0 : m;
+    }
+
+    private int randomLevel() {
+        double uniform = ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1 - uniform) * levelMultiplier));
+    }
+
+    // Cosine distance of unit vectors; the norms are folded in once, at insert and query time
+    private static float distance(float[] a, float[] b) {
+        return 1 - KERNEL.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Distances from a query to nodes: exact while the index holds vectors, asymmetric against codes once
+     * quantized. A node without a code is a deleted one from before training, which kept its vector.
+     */
+    private Probe probe(float[] query) {
+        VectorCodec current = codec;
+        if (current == null) {
+            return node -> distance(query, unit(node));
+        }
+        VectorCodec.Scorer scorer = current.scorer(query);
+        return node -> {
+            byte[] code = node.code;
+            return code != null ? 1 - scorer.dot(code) : distance(query, node.vector);
+        };
+    }
+
+    // The node's unit vector, approximated from its code once quantized
+    private float[] unit(Node node) {
+        float[] vector = node.vector;
+        return vector != null ? vector : codec.decode(node.code);
+    }
+
+    private float[] fullVector(Node node) throws IOException {
+        float[] vector = node.vector;
+        return vector != null ? vector : fullVectors.read(node.slot);
+    }
+
+    // Caller holds the write lock
+    private FullVectorFile openFullVectors() throws IOException {
+        if (fullVectors == null) {
+            fullVectors = new FullVectorFile(quantization.fullVectorsFile, dimension);
+        }
+        return fullVectors;
+    }
+
+    // Caller holds the write lock
+    private void closeFullVectors() {
+        if (fullVectors != null) {
+            try {
+                fullVectors.close();
+            } catch (IOException e) {
+                // Nothing to recover: the file is truncated when reopened
+            }
+            fullVectors = null;
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = vector.length > 0 ? KERNEL.dot(vector, vector) : 0;
+        if (norm == 0 || Double.isNaN(norm) || Double.isInfinite(norm)) {
+            throw new IllegalArgumentException("Cannot index an empty, zero or NaN vector");
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    // Inner classes
+    public static class Match {
+        private final DocumentData document;
+        private final double score;
+
+        public Match(DocumentData document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        public DocumentData getDocument() { return document; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * How vectors are held: NONE keeps float32 vectors on the heap, INT8 ({@link ScalarQuantizer}) one byte
+     * per dimension, PQ ({@link ProductQuantizer}) one byte per pqSubDimension dimensions. Quantized indexes
+     * train once trainingSize vectors are stored and re-rank k x rerank candidates exactly (0 turns that off);
+     * full-precision vectors go to fullVectorsFile, or a temp file when null.
+     */
+    public static class Quantization {
+        public enum Mode { NONE, INT8, PQ }
+
+        private final Mode mode;
+        private final int trainingSize;
+        private final int rerank;
+        private final int pqSubDimension;
+        private final Path fullVectorsFile;
+
+        public Quantization(Mode mode, int trainingSize, int rerank, int pqSubDimension, Path fullVectorsFile) {
+            if (trainingSize < 1 || rerank < 0 || pqSubDimension < 1) {
+                throw new IllegalArgumentException("Quantization needs trainingSize >= 1, rerank >= 0 and pqSubDimension >= 1");
+            }
+            this.mode = mode;
+            this.trainingSize = trainingSize;
+            this.rerank = rerank;
+            this.pqSubDimension = pqSubDimension;
+            this.fullVectorsFile = fullVectorsFile;
+        }
+
+        public static Quantization none() {
+            return new Quantization(Mode.NONE, 1, 0, 1, null);
+        }
+
+        public Mode getMode() { return mode; }
+        public int getTrainingSize() { return trainingSize; }
+        public int getRerank() { return rerank; }
+        public int getPqSubDimension() { return pqSubDimension; }
+        public Path getFullVectorsFile() { return fullVectorsFile; }
+
+        boolean accepts(VectorCodec codec) {
+            return mode == Mode.INT8 ? codec instanceof ScalarQuantizer : mode == Mode.PQ && codec instanceof ProductQuantizer;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Probe {
+        float distance(Node node);
+    }
+
+    private static final class Codes {
+        final VectorCodec codec;
+        final byte[][] codes;
+
+        Codes(VectorCodec codec, byte[][] codes) {
+            this.codec = codec;
+            this.codes = codes;
+        }
+    }
+
+    private static final class Node {
+        // Unit vector until the index is quantized, then the code; a quantized index also keeps the slot
+        // of the full-precision vector in its file
+        volatile float[] vector;
+        volatile byte[] code;
+        final int slot;
+        final int level;
+        final int ordinal;
+        // Links per layer, each array immutable once published
+        final AtomicReferenceArray<Node[]> links;
+        volatile DocumentData document;
+        volatile boolean deleted;
+
+        Node(DocumentData document, float[] vector, byte[] code, int level, int ordinal, int slot) {
+            this.document = document;
+            this.vector = vector;
+            this.code = code;
+            this.slot = slot;
+            this.level = level;
+            this.ordinal = ordinal;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                links.set(i, new Node[0]);
+            }
+        }
+    }
+
+    private static final class Candidate {
+        final Node node;
+        final float distance;
+
+        Candidate(Node node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Visited set of one search, reused by the thread: a node counts as visited when its mark equals the epoch.
+     * Ordinals are unique among the nodes one search can reach, since a deleted node's ordinal is only reused
+     * once it is unreachable (see reclaimOrdinals).
+     */
+    private static final class VisitedMarks {
+        int[] marks = new int[1024];
+        int epoch;
+
+        void clear() {
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean add(int ordinal) {
+            if (ordinal >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(ordinal + 1, marks.length * 2));
+            }
+            if (marks[ordinal] == epoch) {
+                return false;
+            }
+            marks[ordinal] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.project.service.ai;
+
+import com.example.project.entity.Product;
+import com.example.project.event.ProductChangedEvent;
+import com.example.project.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downstream stage for new products: generates embeddings and AI tags off the request path.
+ * Ids are queued in memory and drained in batches by one background worker, so a bulk import
+ * commits at database speed and AI calls happen at whatever rate the provider allows.
+ * Queued ids are lost on restart; those products simply keep a null ai_embedding until re-queued.
+ */
+@Service
+public class ProductEnrichmentQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductEnrichmentQueue.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    private AIContentService aiContentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.enrichment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.enrichment.batch-size:32}")
+    private int batchSize;
+
+    @Value("${catalog.enrichment.capacity:200000}")
+    private int capacity;
+
+    private BlockingQueue<Long> queue;
+    private Thread worker;
+    private final AtomicLong enriched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(capacity);
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::drain, "product-enrichment");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queue products for enrichment; returns how many were accepted (the rest are dropped when the queue is full)
+     */
+    public int enqueue(Collection<Long> productIds) {
+        if (!enabled) {
+            return 0;
+        }
+        int accepted = 0;
+        for (Long id : productIds) {
+            if (queue.offer(id)) {
+                accepted++;
+            }
+        }
+        if (accepted < productIds.size()) {
+            dropped.addAndGet(productIds.size() - accepted);
+            logger.warn("Enrichment queue full, dropped {} products", productIds.size() - accepted);
+        }
+        return accepted;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public long getEnriched() {
+        return enriched.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                enrich(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                logger.warn("Failed to enrich products {}: {}", batch, e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void enrich(List<Long> productIds) {
+        List<Product> products = productRepository.findWithCategoryAndBrandByIdIn(productIds);
+        if (products.isEmpty()) {
+            return;
+        }
+
+        // One embedding call for the whole batch
+        List<String> texts = new ArrayList<>(products.size());
+        for (Product product : products) {
+            texts.add(product.getName() + "\n" + (product.getDescription() != null ? product.getDescription() : ""));
+        }
+        List<List<Double>> embeddings;
+        try {
+            embeddings = aiService.generateEmbeddings(texts);
+        } catch (Exception e) {
+            // Keep going with tags only; embeddings can be regenerated later
+            logger.debug("Embedding generation failed for products {}: {}", productIds, e.getMessage());
+            embeddings = List.of();
+        }
+
+        List<Object[]> rows = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            String embedding = i < embeddings.size() ? embeddings.get(i).toString() : product.getAiEmbedding();
+            String tags = product.getAiTags();
+            if (tags == null || tags.isBlank()) {
+                tags = generateTags(product);
+            }
+            rows.add(new Object[] { embedding, tags, product.getId() });
+        }
+
+        List<Long> ids = products.stream().map(Product::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("UPDATE product_content SET ai_embedding = ?, ai_tags = ? "
+                    + "WHERE id = (SELECT content_id FROM products WHERE id = ?)", rows);
+            // AI tags are searchable, so the catalog indexes pick them up after commit
+            eventPublisher.publishEvent(new ProductChangedEvent(ids));
+        });
+        enriched.addAndGet(products.size());
+    }
+
+    private String generateTags(Product product) {
+        try {
+            List<String> tags = aiContentService.generateProductTags(
+                    product.getName(),
+                    product.getCategory() != null ? product.getCategory().getName() : "",
+                    product.getBrand() != null ? product.getBrand().getName() : "",
+                    product.getDescription());
+            String joined = String.join(",", tags).trim();
+            return joined.isEmpty() ? null : joined;
+        } catch (Exception e) {
+            logger.debug("Tag generation failed for product {}: {}", product.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.project.service.ai;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Product quantization: the vector is cut into subspaces of a few dimensions each and every subspace is
+ * replaced by the nearest of 256 k-means centroids, one byte per subspace (with 8 dimensions per subspace,
+ * 32x smaller than float32). A query precomputes its dot product with every centroid once, after which
+ * scoring a code is one table lookup per subspace.
+ */
+final class ProductQuantizer implements VectorCodec {
+
+    static final byte TYPE = 2;
+
+    private static final int CENTROIDS = 256;
+    private static final int ITERATIONS = 10;
+
+    private static final SimilarityKernel KERNEL = SimilarityKernels.preferred();
+
+    private final int dimension;
+    // Subspace s covers dimensions offsets[s] until offsets[s + 1]
+    private final int[] offsets;
+    // centroids[s] holds CENTROIDS rows of that subspace's width
+    private final float[][] centroids;
+
+    private ProductQuantizer(int dimension, int[] offsets, float[][] centroids) {
+        this.dimension = dimension;
+        this.offsets = offsets;
+        this.centroids = centroids;
+    }
+
+    /**
+     * Run k-means per subspace over the sample. Subspaces are subDimension wide; the last one takes any remainder.
+     */
+    static ProductQuantizer train(List<float[]> sample, int subDimension, long seed) {
+        int dimension = sample.get(0).length;
+        int width = Math.max(1, Math.min(subDimension, dimension));
+        int subspaces = dimension / width;
+        int[] offsets = new int[subspaces + 1];
+        for (int s = 0; s < subspaces; s++) {
+            offsets[s] = s * width;
+        }
+        offsets[subspaces] = dimension;
+
+        Random random = new Random(seed);
+        float[][] centroids = new float[subspaces][];
+        for (int s = 0; s < subspaces; s++) {
+            centroids[s] = kMeans(sample, offsets[s], offsets[s + 1] - offsets[s], random);
+        }
+        return new ProductQuantizer(dimension, offsets, centroids);
+    }
+
+    @Override
+    public int codeSize() {
+        return centroids.length;
+    }
+
+    @Override
+    public byte[] encode(float[] vector) {
+        byte[] code = new byte[centroids.length];
+        for (int s = 0; s < centroids.length; s++) {
+            code[s] = (byte) nearest(centroids[s], vector, offsets[s], offsets[s + 1] - offsets[s]);
+        }
+        return code;
+    }
+
+    @Override
+    public float[] decode(byte[] code) {
+        float[] vector = new float[dimension];
+        for (int s = 0; s < centroids.length; s++) {
+            int width = offsets[s + 1] - offsets[s];
+            System.arraycopy(centroids[s], (code[s] & 0xFF) * width, vector, offsets[s], width);
+        }
+        return vector;
+    }
+
+    @Override
+    public Scorer scorer(float[] query) {
+        int subspaces = centroids.length;
+        float[] table = new float[subspaces * CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            int width = offsets[s + 1] - offsets[s];
+            for (int c = 0; c < CENTROIDS; c++) {
+                table[s * CENTROIDS + c] = KERNEL.dot(query, offsets[s], centroids[s], c * width, width);
+            }
+        }
+        return code -> {
+            float sum = 0;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * CENTROIDS + (code[s] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(TYPE);
+        out.writeInt(dimension);
+        out.writeInt(centroids.length);
+        for (int s = 0; s < centroids.length; s++) {
+            out.writeInt(offsets[s]);
+        }
+        for (float[] subspace : centroids) {
+            for (float value : subspace) {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    static ProductQuantizer read(DataInput in) throws IOException {
+        int dimension = in.readInt();
+        int subspaces = in.readInt();
+        int[] offsets = new int[subspaces + 1];
+        for (int s = 0; s < subspaces; s++) {
+            offsets[s] = in.readInt();
+        }
+        offsets[subspaces] = dimension;
+        float[][] centroids = new float[subspaces][];
+        for (int s = 0; s < subspaces; s++) {
+            centroids[s] = new float[CENTROIDS * (offsets[s + 1] - offsets[s])];
+            for (int i = 0; i < centroids[s].length; i++) {
+                centroids[s][i] = in.readFloat();
+            }
+        }
+        return new ProductQuantizer(dimension, offsets, centroids);
+    }
+
+    // Lloyd's algorithm on one subspace, seeded with random sample points; an empty cluster is reseeded
+    private static float[] kMeans(List<float[]> sample, int offset, int width, Random random) {
+        int n = sample.size();
+        float[] centers = new float[CENTROIDS * width];
+        for (int c = 0; c < CENTROIDS; c++) {
+            System.arraycopy(sample.get(random.nextInt(n)), offset, centers, c * width, width);
+        }
+        int[] assignment = new int[n];
+        float[] sums = new float[CENTROIDS * width];
+        int[] counts = new int[CENTROIDS];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            for (int i = 0; i < n; i++) {
+                assignment[i] = nearest(centers, sample.get(i), offset, width);
+            }
+            Arrays.fill(sums, 0);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                float[] vector = sample.get(i);
+                int base = assignment[i] * width;
+                for (int d = 0; d < width; d++) {
+                    sums[base + d] += vector[offset + d];
+                }
+                counts[assignment[i]]++;
+            }
+            for (int c = 0; c < CENTROIDS; c++) {
+                if (counts[c] == 0) {
+                    System.arraycopy(sample.get(random.nextInt(n)), offset, centers, c * width, width);
+                    continue;
+                }
+                for (int d = 0; d < width; d++) {
+                    centers[c * width + d] = sums[c * width + d] / counts[c];
+                }
+            }
+        }
+        return centers;
+    }
+
+    // Centroid closest in Euclidean distance
+    private static int nearest(float[] centers, float[] vector, int offset, int width) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < CENTROIDS; c++) {
+            float distance = 0;
+            int base = c * width;
+            for (int d = 0; d < width; d++) {
+                float difference = vector[offset + d] - centers[base + d];
+                distance += difference * difference;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.project.service.ai;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * int8 scalar quantization: each dimension's trained range is split into 256 steps, one signed byte per
+ * dimension (4x smaller than float32). The query side folds the per-dimension offset and step into one
+ * weight vector and a constant, so a score is a single float-by-byte dot product.
+ */
+final class ScalarQuantizer implements VectorCodec {
+
+    static final byte TYPE = 1;
+
+    private static final SimilarityKernel KERNEL = SimilarityKernels.preferred();
+
+    private final float[] minimums;
+    private final float[] steps;
+
+    private ScalarQuantizer(float[] minimums, float[] steps) {
+        this.minimums = minimums;
+        this.steps = steps;
+    }
+
+    /**
+     * Per-dimension minimum and maximum of the sample; values outside are clamped when encoded
+     */
+    static ScalarQuantizer train(List<float[]> sample) {
+        int dimension = sample.get(0).length;
+        float[] minimums = new float[dimension];
+        float[] maximums = new float[dimension];
+        Arrays.fill(minimums, Float.POSITIVE_INFINITY);
+        Arrays.fill(maximums, Float.NEGATIVE_INFINITY);
+        for (float[] vector : sample) {
+            for (int i = 0; i < dimension; i++) {
+                minimums[i] = Math.min(minimums[i], vector[i]);
+                maximums[i] = Math.max(maximums[i], vector[i]);
+            }
+        }
+        float[] steps = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            // A constant dimension still needs a non-zero step to decode
+            steps[i] = Math.max((maximums[i] - minimums[i]) / 255f, 1e-9f);
+        }
+        return new ScalarQuantizer(minimums, steps);
+    }
+
+    @Override
+    public int codeSize() {
+        return minimums.length;
+    }
+
+    @Override
+    public byte[] encode(float[] vector) {
+        byte[] code = new byte[minimums.length];
+        for (int i = 0; i < code.length; i++) {
+            int level = Math.round((vector[i] - minimums[i]) / steps[i]);
+            code[i] = (byte) (Math.max(0, Math.min(255, level)) - 128);
+        }
+        return code;
+    }
+
+    @Override
+    public float[] decode(byte[] code) {
+        float[] vector = new float[code.length];
+        for (int i = 0; i < code.length; i++) {
+            vector[i] = minimums[i] + (code[i] + 128) * steps[i];
+        }
+        return vector;
+    }
+
+    // q . x = sum q[i] * (min[i] + 128 * step[i]) + sum (q[i] * step[i]) * code[i]
+    @Override
+    public Scorer scorer(float[] query) {
+        float[] weights = new float[query.length];
+        float constant = 0;
+        for (int i = 0; i < query.length; i++) {
+            weights[i] = query[i] * steps[i];
+            constant += query[i] * (minimums[i] + 128 * steps[i]);
+        }
+        float base = constant;
+        return code -> base + KERNEL.dot(weights, code, 0, weights.length);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(TYPE);
+        out.writeInt(minimums.length);
+        for (int i = 0; i < minimums.length; i++) {
+            out.writeFloat(minimums[i]);
+            out.writeFloat(steps[i]);
+        }
+    }
+
+    static ScalarQuantizer read(DataInput in) throws IOException {
+        int dimension = in.readInt();
+        float[] minimums = new float[dimension];
+        float[] steps = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            minimums[i] = in.readFloat();
+            steps[i] = in.readFloat();
+        }
+        return new ScalarQuantizer(minimums, steps);
+    }
+}
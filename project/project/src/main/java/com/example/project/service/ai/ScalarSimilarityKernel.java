@@ -0,0 +1,51 @@
+package com.example.project.service.ai;
+
+/**
+ * Plain-loop kernel, used when the Vector API is not available. Four independent accumulators
+ * let the CPU overlap the multiply-adds instead of waiting on one running sum.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (int upper = length & ~3; i < upper; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float dot(float[] weights, byte[] codes, int codeOffset, int length) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        for (int upper = length & ~3; i < upper; i += 4) {
+            s0 += weights[i] * codes[codeOffset + i];
+            s1 += weights[i + 1] * codes[codeOffset + i + 1];
+            s2 += weights[i + 2] * codes[codeOffset + i + 2];
+            s3 += weights[i + 3] * codes[codeOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += weights[i] * codes[codeOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
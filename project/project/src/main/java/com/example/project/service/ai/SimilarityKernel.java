@@ -0,0 +1,28 @@
+package com.example.project.service.ai;
+
+/**
+ * Dot product over float arrays, the inner loop of every vector comparison.
+ * Obtain one from {@link SimilarityKernels}; implementations are stateless and thread-safe.
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Dot product of length elements of a from aOffset and b from bOffset
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    default float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vectors must have the same dimension");
+        }
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Dot product of length float weights with signed byte codes from codeOffset, the inner loop of
+     * asymmetric distance against int8-quantized vectors
+     */
+    float dot(float[] weights, byte[] codes, int codeOffset, int length);
+
+    String name();
+}
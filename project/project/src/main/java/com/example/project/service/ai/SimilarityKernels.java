@@ -0,0 +1,52 @@
+package com.example.project.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the dot-product kernel once per JVM. The Vector API kernel needs the incubator module in the boot
+ * layer (--add-modules jdk.incubator.vector, set by the build, the Docker image and the benchmarks);
+ * without it, or with -Dvectors.simd=false, the scalar kernel is used and results are the same up to
+ * float rounding.
+ */
+public final class SimilarityKernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityKernels.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final SimilarityKernel SCALAR = new ScalarSimilarityKernel();
+    private static final SimilarityKernel PREFERRED = load();
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * The fastest kernel this JVM supports
+     */
+    public static SimilarityKernel preferred() {
+        return PREFERRED;
+    }
+
+    public static SimilarityKernel scalar() {
+        return SCALAR;
+    }
+
+    private static SimilarityKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty("vectors.simd", "true"))
+                || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            logger.info("Similarity kernel: scalar ({} not enabled)", VECTOR_MODULE);
+            return SCALAR;
+        }
+        try {
+            // By name, so this class never links against the incubator module
+            SimilarityKernel kernel = (SimilarityKernel) Class.forName(SimilarityKernels.class.getPackageName()
+                    + ".VectorApiSimilarityKernel").getDeclaredConstructor().newInstance();
+            logger.info("Similarity kernel: {}", kernel.name());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Vector API kernel unavailable, using scalar: {}", e.toString());
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.project.service.ai;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel on the JDK Vector API (jdk.incubator.vector): fused multiply-adds across the widest lanes the CPU
+ * has (8 floats with AVX2, 16 with AVX-512), two accumulators deep, scalar tail. Byte codes are widened
+ * lane for lane from a byte vector with as many lanes; below 8 lanes there is no such shape and the scalar
+ * loop is used for them.
+ * Only ever loaded reflectively by {@link SimilarityKernels}, after checking the module is present.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Bytes per step equal float lanes, so one byte vector widens into one float vector
+    private static final VectorSpecies<Byte> BYTE_SPECIES = SPECIES.length() >= 8
+            ? ByteVector.SPECIES_MAX.withShape(VectorShape.forBitSize(SPECIES.length() * 8)) : null;
+
+    private final SimilarityKernel scalar = new ScalarSimilarityKernel();
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int lanes = SPECIES.length();
+        FloatVector acc0 = FloatVector.zero(SPECIES);
+        FloatVector acc1 = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int upper = length - 2 * lanes; i <= upper; i += 2 * lanes) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+            acc1 = FloatVector.fromArray(SPECIES, a, aOffset + i + lanes)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i + lanes), acc1);
+        }
+        for (int upper = SPECIES.loopBound(length); i < upper; i += lanes) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .fma(FloatVector.fromArray(SPECIES, b, bOffset + i), acc0);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] weights, byte[] codes, int codeOffset, int length) {
+        if (BYTE_SPECIES == null) {
+            return scalar.dot(weights, codes, codeOffset, length);
+        }
+        int lanes = SPECIES.length();
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += lanes) {
+            FloatVector widened = (FloatVector) ByteVector.fromArray(BYTE_SPECIES, codes, codeOffset + i)
+                    .convertShape(VectorOperators.B2F, SPECIES, 0);
+            acc = FloatVector.fromArray(SPECIES, weights, i).fma(widened, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += weights[i] * codes[codeOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector-api(" + SPECIES.vectorBitSize() + " bit)";
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.project.service.ai;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compressed form of the unit vectors a quantized {@link HnswIndex} keeps on the heap.
+ * Scoring is asymmetric: the query stays full precision and is compared with codes directly,
+ * so only the stored side carries quantization error.
+ */
+public interface VectorCodec {
+
+    /**
+     * Bytes per encoded vector
+     */
+    int codeSize();
+
+    byte[] encode(float[] vector);
+
+    /**
+     * Approximate vector for a code
+     */
+    float[] decode(byte[] code);
+
+    /**
+     * Approximate dot products of one query with any number of codes
+     */
+    Scorer scorer(float[] query);
+
+    void write(DataOutput out) throws IOException;
+
+    static VectorCodec read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case ScalarQuantizer.TYPE -> ScalarQuantizer.read(in);
+            case ProductQuantizer.TYPE -> ProductQuantizer.read(in);
+            default -> throw new IOException("Unknown vector codec " + type);
+        };
+    }
+
+    @FunctionalInterface
+    interface Scorer {
+        float dot(byte[] code);
+    }
+}
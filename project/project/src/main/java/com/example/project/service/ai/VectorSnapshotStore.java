@@ -0,0 +1,299 @@
+package com.example.project.service.ai;
+
+import com.example.project.service.ai.VectorStoreService.DocumentData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk state of the vector store: the latest {@link HnswIndex} snapshot and a write-ahead log of changes since.
+ * The directory holds snapshot-N/ (the index segments), wal-N.log (changes from snapshot N on) and CURRENT naming N.
+ * A checkpoint first {@link #rotate rotates} to an empty wal-N+1.log, then {@link #snapshot snapshots} the index as
+ * snapshot-N+1 and replaces CURRENT atomically; a restore replays every log from CURRENT's onwards, so a crash at
+ * any point leaves a complete snapshot and the logs that follow it.
+ * Log records are length-prefixed and checksummed; a torn record left by a crash is cut off on replay.
+ * Records reach the OS on every write but are not fsynced, so a power loss can drop the newest ones;
+ * product vectors are reconciled with the database at startup anyway.
+ * Not thread-safe: the caller serializes appends and rotations. A snapshot may run alongside appends, but not
+ * alongside another snapshot.
+ */
+final class VectorSnapshotStore implements Closeable {
+
+    private static final String CURRENT_FILE = "CURRENT";
+
+    private static final byte UPSERT = 1;
+    private static final byte DOCUMENT = 2;
+    private static final byte REMOVE = 3;
+
+    private final Path directory;
+    // Generation named by CURRENT, and the one whose log takes appends (ahead while a snapshot is written)
+    private volatile long generation;
+    private long logGeneration;
+    private FileChannel logChannel;
+    private DataOutputStream log;
+    private int pending;
+
+    VectorSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Changes logged since the last snapshot
+     */
+    int pendingChanges() {
+        return pending;
+    }
+
+    /**
+     * Load the current snapshot into the index, replay the logs from its generation onwards and open the newest
+     * log for appending. Without a CURRENT file the index is left empty and logging starts at generation 0.
+     *
+     * @return the number of log records replayed
+     */
+    int restore(HnswIndex index) throws IOException {
+        Files.createDirectories(directory);
+        Path current = directory.resolve(CURRENT_FILE);
+        generation = Files.exists(current) ? Long.parseLong(Files.readString(current, StandardCharsets.UTF_8).strip()) : 0;
+        // Newer files are left by a checkpoint that crashed before replacing CURRENT; a failed restore rotates past them
+        logGeneration = Math.max(generation, newestGeneration());
+        Path snapshot = snapshotDir(generation);
+        if (Files.isDirectory(snapshot)) {
+            index.load(snapshot);
+        } else {
+            index.clear();
+        }
+        pending = 0;
+        for (long wal = generation; wal <= logGeneration; wal++) {
+            pending += replay(walFile(wal), index);
+        }
+        openLog(logGeneration);
+        return pending;
+    }
+
+    void logUpsert(DocumentData document, float[] vector) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + vector.length * 4);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(UPSERT);
+        DocumentCodec.write(payload, document);
+        payload.writeInt(vector.length);
+        ByteBuffer packed = ByteBuffer.allocate(vector.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        packed.asFloatBuffer().put(vector);
+        payload.write(packed.array());
+        append(bytes.toByteArray());
+    }
+
+    void logDocument(DocumentData document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(DOCUMENT);
+        DocumentCodec.write(payload, document);
+        append(bytes.toByteArray());
+    }
+
+    void logRemove(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(REMOVE);
+        DocumentCodec.writeString(payload, id);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Rotate and snapshot in one go
+     */
+    void checkpoint(HnswIndex index) throws IOException {
+        snapshot(index, rotate());
+    }
+
+    /**
+     * Switch appends to an empty log of the next generation
+     *
+     * @return the generation to {@link #snapshot} next
+     */
+    long rotate() throws IOException {
+        long next = logGeneration + 1;
+        closeLog();
+        Files.deleteIfExists(walFile(next));
+        openLog(next);
+        logGeneration = next;
+        pending = 0;
+        return next;
+    }
+
+    /**
+     * Save the index as the given generation's snapshot, make it CURRENT and delete older snapshots and logs.
+     * Records appended to that generation's log meanwhile may already be in the snapshot; replaying them again
+     * is harmless, since every record sets one document's state outright.
+     */
+    void snapshot(HnswIndex index, long next) throws IOException {
+        Path snapshot = snapshotDir(next);
+        deleteRecursively(snapshot);
+        Files.createDirectories(snapshot);
+        index.save(snapshot);
+
+        Path temp = directory.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(next), StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                long fileGeneration = generationOf(file.getFileName().toString());
+                if (fileGeneration >= 0 && fileGeneration < next) {
+                    deleteRecursively(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeLog();
+    }
+
+    private void append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        log.writeInt(payload.length);
+        log.writeInt((int) crc.getValue());
+        log.write(payload);
+        log.flush();
+        pending++;
+    }
+
+    // Apply every intact record; a torn or corrupt tail is truncated so new records follow the last good one
+    private static int replay(Path wal, HnswIndex index) throws IOException {
+        if (!Files.exists(wal)) {
+            return 0;
+        }
+        int applied = 0;
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(wal), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < 1) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(payload, index);
+                applied++;
+                good += 8 + payload.length;
+            }
+        }
+        if (Files.size(wal) > good) {
+            try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+                channel.truncate(good);
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(byte[] payload, HnswIndex index) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        switch (op) {
+            case UPSERT -> {
+                DocumentData document = DocumentCodec.read(in);
+                byte[] packed = new byte[in.readInt() * 4];
+                in.readFully(packed);
+                float[] vector = new float[packed.length / 4];
+                ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+                index.upsert(document, vector);
+            }
+            case DOCUMENT -> index.updateDocument(DocumentCodec.read(in));
+            case REMOVE -> index.remove(DocumentCodec.readString(in));
+            default -> throw new IOException("Unknown vector log record " + op);
+        }
+    }
+
+    private void openLog(long generation) throws IOException {
+        logChannel = FileChannel.open(walFile(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        log = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(logChannel), 1 << 16));
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.flush();
+            logChannel.force(false);
+            log.close();
+            log = null;
+            logChannel = null;
+        }
+    }
+
+    private long newestGeneration() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> generationOf(file.getFileName().toString())).max().orElse(0);
+        }
+    }
+
+    // Generation of a snapshot directory or log file name, -1 for anything else
+    private static long generationOf(String name) {
+        String digits = name.startsWith("snapshot-") ? name.substring("snapshot-".length())
+                : name.startsWith("wal-") && name.endsWith(".log") ? name.substring("wal-".length(), name.length() - ".log".length())
+                : null;
+        if (digits == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path snapshotDir(long generation) {
+        return directory.resolve("snapshot-" + generation);
+    }
+
+    private Path walFile(long generation) {
+        return directory.resolve("wal-" + generation + ".log");
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -1,114 +1,520 @@
 package com.example.project.service.ai;
 
+import com.example.project.entity.Product;
+import com.example.project.service.catalog.CatalogIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
+/**
+ * Vector store backed by an in-process {@link HnswIndex}.
+ * Documents are embedded with {@link AIService}; active products are indexed from the ai_embedding the
+ * enrichment queue stored, kept in sync as a {@link CatalogIndex}, so no embedding call is made per product.
+ * Without an embedding model, text cannot be embedded: stores are skipped and text searches return nothing.
+ * <p>
+ * With catalog.vectors.dir set, the index is restored at startup from its last snapshot plus write-ahead log
+ * ({@link VectorSnapshotStore}) instead of being rebuilt from JSON. Product documents carry a SHA-256 digest of
+ * the stored embedding text, so the startup catalog rebuild only parses and inserts embeddings that changed.
+ * Changes are appended to the log as they are applied; snapshots are written by a background thread once
+ * enough have gathered, so index writes never wait for one beyond the index's own write lock.
+ * <p>
+ * catalog.vectors.quantization (none, int8 or pq) shrinks the vectors held on the heap once the index reaches
+ * its training size, for products and user behavior embeddings alike; full-precision vectors are kept in
+ * full-vectors.f32 under the snapshot directory (a temp file without one) for re-ranking.
+ * PQ codes rank candidates much more coarsely than int8, so PQ re-ranks more of them (catalog.vectors.pq-rerank).
+ */
 @Service
-public class VectorStoreService {
-    
+public class VectorStoreService implements CatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorStoreService.class);
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_USER_BEHAVIOR = "user_behavior";
+
+    private static final String PRODUCT_ID_PREFIX = "product-";
+    private static final String EMBEDDING_DIGEST = "embeddingSha256";
+    private static final String FULL_VECTORS_FILE = "full-vectors.f32";
+
     @Autowired
     private AIService aiService;
-    
+
+    private final HnswIndex index;
+    private final int checkpointAfter;
+    // Null when persistence is off
+    private VectorSnapshotStore store;
+    // Held for a whole checkpoint, so snapshots never overlap; taken before the service monitor, never inside it
+    private final Object checkpointLock = new Object();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+    private final ExecutorService checkpointExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VectorStoreService(@Value("${catalog.vectors.m:16}") int m,
+                              @Value("${catalog.vectors.ef-construction:200}") int efConstruction,
+                              @Value("${catalog.vectors.ef-search:64}") int efSearch,
+                              @Value("${catalog.vectors.dir:}") String directory,
+                              @Value("${catalog.vectors.checkpoint-after:10000}") int checkpointAfter,
+                              @Value("${catalog.vectors.quantization:int8}") String quantization,
+                              @Value("${catalog.vectors.training-size:5000}") int trainingSize,
+                              @Value("${catalog.vectors.rerank:4}") int rerank,
+                              @Value("${catalog.vectors.pq-sub-dimension:8}") int pqSubDimension,
+                              @Value("${catalog.vectors.pq-rerank:16}") int pqRerank) {
+        Path fullVectors = directory == null || directory.isBlank() ? null : Path.of(directory, FULL_VECTORS_FILE);
+        HnswIndex.Quantization.Mode mode = HnswIndex.Quantization.Mode.valueOf(quantization.trim().toUpperCase(Locale.ROOT));
+        this.index = new HnswIndex(m, efConstruction, efSearch, new HnswIndex.Quantization(mode, trainingSize,
+                mode == HnswIndex.Quantization.Mode.PQ ? pqRerank : rerank, pqSubDimension, fullVectors));
+        this.checkpointAfter = checkpointAfter;
+        this.store = directory == null || directory.isBlank() ? null : new VectorSnapshotStore(Path.of(directory));
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Map the last snapshot and replay the log written since. An unreadable snapshot leaves the index empty,
+     * to be filled by the catalog rebuild, and starts a fresh generation.
+     */
+    @PostConstruct
+    public void restore() {
+        synchronized (this) {
+            if (store == null) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                int replayed = store.restore(index);
+                logger.info("Restored {} vectors ({} KB on heap{}) from snapshot {} and {} logged changes in {} ms",
+                        index.size(), index.vectorBytes() / 1024, index.isQuantized() ? ", quantized" : "",
+                        store.getGeneration(), replayed, System.currentTimeMillis() - start);
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not restore vector snapshot, starting empty: {}", e.getMessage());
+                index.clear();
+            }
+        }
+        checkpoint();
+    }
+
+    @PreDestroy
+    public void close() {
+        checkpointExecutor.shutdown();
+        try {
+            checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeStore();
+            index.close();
+        }
+    }
+
+    /**
+     * Start an empty log and write a snapshot of the index, so the next start replays only what is logged from
+     * here on. Runs on the calling thread; writes meanwhile go to the new log and only wait while the index saves.
+     */
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            VectorSnapshotStore current;
+            long generation;
+            synchronized (this) {
+                current = store;
+                if (current == null) {
+                    return;
+                }
+                try {
+                    generation = current.rotate();
+                } catch (IOException e) {
+                    // Without a usable directory, keep serving from memory only
+                    logger.warn("Could not start a new vector log, persistence disabled: {}", e.getMessage());
+                    closeStore();
+                    store = null;
+                    return;
+                }
+            }
+            try {
+                current.snapshot(index, generation);
+            } catch (IOException e) {
+                // The logs since the last good snapshot are all kept, so a restart still recovers everything
+                logger.warn("Could not write vector snapshot {}, keeping the logs: {}", generation, e.getMessage());
+            }
+        }
+    }
+
     /**
-     * Store document with embedding (placeholder implementation)
+     * Store document with embedding
      */
     public void storeDocument(String id, String content, Map<String, Object> metadata) {
-        // Placeholder implementation - in production, this would store to a real vector database
-        System.out.println("Vector store not available - document storage skipped: " + id);
+        float[] vector = embed(content);
+        if (vector == null) {
+            logger.debug("No embedding model, document {} not stored", id);
+            return;
+        }
+        put(new DocumentData(id, content, copy(metadata)), vector);
     }
-    
+
     /**
-     * Store multiple documents with embeddings (placeholder implementation)
+     * Store multiple documents with embeddings, one embedding call for the batch
      */
     public void storeDocuments(List<DocumentData> documents) {
-        // Placeholder implementation - in production, this would store to a real vector database
-        System.out.println("Vector store not available - document storage skipped for " + documents.size() + " documents");
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<List<Double>> embeddings;
+        try {
+            embeddings = aiService.generateEmbeddings(documents.stream().map(DocumentData::getContent).toList());
+        } catch (Exception e) {
+            throw new VectorStoreException("Failed to embed documents: " + e.getMessage(), e);
+        }
+        if (embeddings.size() != documents.size()) {
+            logger.debug("No embedding model, {} documents not stored", documents.size());
+            return;
+        }
+        for (int i = 0; i < documents.size(); i++) {
+            DocumentData document = documents.get(i);
+            put(new DocumentData(document.getId(), document.getContent(), copy(document.getMetadata())),
+                    toArray(embeddings.get(i)));
+        }
     }
-    
-        /**
-     * Search similar documents by text query (placeholder implementation)
+
+    /**
+     * Search similar documents by text query
      */
     public List<DocumentData> searchSimilar(String query, int limit) {
-        // Placeholder implementation - in production, this would search a real vector database
-        System.out.println("Vector store not available - returning empty search results for: " + query);
-            return List.of();
-        }
+        return search(query, limit, -1.0, null);
+    }
 
     /**
-     * Search similar documents by text query with threshold (placeholder implementation)
+     * Search similar documents by text query, keeping those with cosine similarity of at least threshold
      */
     public List<DocumentData> searchSimilar(String query, int limit, double threshold) {
-        // Placeholder implementation - in production, this would search a real vector database
-        System.out.println("Vector store not available - returning empty search results for: " + query);
-            return List.of();
-        }
-    
+        return search(query, limit, threshold, null);
+    }
+
     /**
-     * Delete document by ID (placeholder implementation)
+     * Delete document by ID
      */
     public void deleteDocument(String id) {
-        // Placeholder implementation - in production, this would delete from a real vector database
-        System.out.println("Vector store not available - document deletion skipped: " + id);
+        delete(id);
     }
-    
+
     /**
-     * Delete multiple documents by IDs (placeholder implementation)
+     * Delete multiple documents by IDs
      */
     public void deleteDocuments(List<String> ids) {
-        // Placeholder implementation - in production, this would delete from a real vector database
-        System.out.println("Vector store not available - document deletion skipped for " + ids.size() + " documents");
+        for (String id : ids) {
+            delete(id);
+        }
     }
-    
+
     /**
-     * Update document content and metadata (placeholder implementation)
+     * Update document content and metadata
      */
     public void updateDocument(String id, String content, Map<String, Object> metadata) {
-        // Placeholder implementation - in production, this would update a real vector database
-        System.out.println("Vector store not available - document update skipped: " + id);
+        storeDocument(id, content, metadata);
     }
-    
+
     /**
-     * Store product embedding for recommendations (placeholder implementation)
+     * Store product embedding for recommendations
      */
-    public void storeProductEmbedding(Long productId, String productName, String description, 
+    public void storeProductEmbedding(Long productId, String productName, String description,
                                     String category, String brand, List<String> tags) {
-        // Placeholder implementation - in production, this would store to a real vector database
-        System.out.println("Vector store not available - product embedding storage skipped: " + productId);
+        String content = productName + "\n" + (description != null ? description : "")
+                + (tags != null && !tags.isEmpty() ? "\n" + String.join(", ", tags) : "");
+        storeDocument(PRODUCT_ID_PREFIX + productId, content, productMetadata(productId, productName, category, brand));
     }
-    
+
     /**
-     * Store user behavior embedding (placeholder implementation)
+     * Store user behavior embedding; the latest one per user and behavior type is kept
      */
-    public void storeUserBehaviorEmbedding(Long userId, String behaviorType, 
+    public void storeUserBehaviorEmbedding(Long userId, String behaviorType,
                                          String productInfo, Map<String, Object> context) {
-        // Placeholder implementation - in production, this would store to a real vector database
-        System.out.println("Vector store not available - user behavior embedding storage skipped: " + userId);
+        Map<String, Object> metadata = new HashMap<>(context != null ? context : Map.of());
+        metadata.put("type", TYPE_USER_BEHAVIOR);
+        metadata.put("userId", userId);
+        metadata.put("behaviorType", behaviorType);
+        storeDocument("user-" + userId + "-" + behaviorType, behaviorType + ": " + productInfo, metadata);
     }
-    
+
     /**
-     * Find similar products for recommendation (placeholder implementation)
+     * Find similar products for recommendation; metadata carries productId and score
      */
     public List<DocumentData> findSimilarProducts(String query, int limit) {
-        // Placeholder implementation - in production, this would search a real vector database
-        System.out.println("Vector store not available - returning empty similar products for: " + query);
-        return List.of();
+        return search(query, limit, -1.0, document -> TYPE_PRODUCT.equals(document.getMetadata().get("type")));
     }
-    
+
     /**
-     * Find products based on user preferences (placeholder implementation)
+     * Find products matching the user's preferences, optionally within one category
      */
     public List<DocumentData> findProductsForUser(Long userId, List<String> preferences,
                                             String category, int limit) {
-        // Placeholder implementation - in production, this would search a real vector database
-        System.out.println("Vector store not available - returning empty products for user: " + userId);
-        return List.of();
+        if (preferences == null || preferences.isEmpty()) {
+            return List.of();
+        }
+        Predicate<DocumentData> filter = document -> TYPE_PRODUCT.equals(document.getMetadata().get("type"))
+                && (category == null || category.equalsIgnoreCase((String) document.getMetadata().get("category")));
+        return search(String.join(" ", preferences), limit, -1.0, filter);
     }
-    
+
+    @Override
+    public synchronized void rebuild(List<Product> activeProducts) {
+        Set<String> stale = new HashSet<>();
+        for (String id : index.ids()) {
+            if (id.startsWith(PRODUCT_ID_PREFIX)) {
+                stale.add(id);
+            }
+        }
+        for (Product product : activeProducts) {
+            stale.remove(PRODUCT_ID_PREFIX + product.getId());
+        }
+        for (String id : stale) {
+            delete(id);
+        }
+        int indexed = indexProducts(activeProducts);
+        logger.info("Vector index holds {} of {} active products", indexed, activeProducts.size());
+        if (store != null && store.pendingChanges() > 0) {
+            scheduleCheckpoint();
+        }
+    }
+
+    @Override
+    public synchronized void upsert(List<Product> products) {
+        indexProducts(products);
+    }
+
+    @Override
+    public synchronized void remove(Collection<Long> productIds) {
+        for (Long id : productIds) {
+            delete(PRODUCT_ID_PREFIX + id);
+        }
+    }
+
+    /**
+     * Index products from their stored embedding; products without one are dropped from the index.
+     * An embedding whose text hash matches the indexed one is not parsed again, only its document refreshed.
+     */
+    private int indexProducts(List<Product> products) {
+        int indexed = 0;
+        for (Product product : products) {
+            String id = PRODUCT_ID_PREFIX + product.getId();
+            String embedding = product.getAiEmbedding();
+            if (embedding == null) {
+                delete(id);
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(productMetadata(product.getId(), product.getName(),
+                    product.getCategory() != null ? product.getCategory().getName() : null,
+                    product.getBrand() != null ? product.getBrand().getName() : null));
+            metadata.put(EMBEDDING_DIGEST, digest(embedding));
+            DocumentData document = new DocumentData(id, product.getName(), Collections.unmodifiableMap(metadata));
+
+            DocumentData existing = index.get(id);
+            if (existing != null && metadata.get(EMBEDDING_DIGEST).equals(existing.getMetadata().get(EMBEDDING_DIGEST))) {
+                if (!metadata.equals(existing.getMetadata()) || !Objects.equals(document.getContent(), existing.getContent())) {
+                    refresh(document);
+                }
+                indexed++;
+                continue;
+            }
+            float[] vector = parseEmbedding(embedding);
+            if (vector == null) {
+                logger.debug("Skipping malformed embedding of product {}", product.getId());
+                delete(id);
+                continue;
+            }
+            try {
+                put(document, vector);
+                indexed++;
+            } catch (IllegalArgumentException e) {
+                // Embedding from another model, or corrupt; it gets replaced on the next enrichment
+                logger.debug("Skipping embedding of product {}: {}", product.getId(), e.getMessage());
+                delete(id);
+            }
+        }
+        return indexed;
+    }
+
+    // Every index write goes through these, so the log records changes in the order they were applied
+    private synchronized void put(DocumentData document, float[] vector) {
+        index.upsert(document, vector);
+        log(() -> store.logUpsert(document, vector));
+    }
+
+    private synchronized void refresh(DocumentData document) {
+        if (index.updateDocument(document)) {
+            log(() -> store.logDocument(document));
+        }
+    }
+
+    private synchronized void delete(String id) {
+        if (index.remove(id)) {
+            log(() -> store.logRemove(id));
+        }
+    }
+
+    private void closeStore() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.warn("Could not close vector log: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void log(LogWrite write) {
+        if (store == null) {
+            return;
+        }
+        try {
+            write.run();
+        } catch (IOException e) {
+            logger.warn("Could not log vector change, persistence disabled: {}", e.getMessage());
+            closeStore();
+            store = null;
+            return;
+        }
+        if (store.pendingChanges() >= checkpointAfter) {
+            scheduleCheckpoint();
+        }
+    }
+
+    // Checkpoint on the background thread, at most one queued at a time
+    private void scheduleCheckpoint() {
+        if (!checkpointQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            checkpointExecutor.execute(() -> {
+                checkpointQueued.set(false);
+                checkpoint();
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the log already holds every change
+            checkpointQueued.set(false);
+        }
+    }
+
+    private List<DocumentData> search(String query, int limit, double threshold, Predicate<DocumentData> filter) {
+        if (query == null || query.isBlank() || limit < 1 || index.size() == 0) {
+            return List.of();
+        }
+        float[] vector = embed(query);
+        if (vector == null || vector.length != index.getDimension()) {
+            return List.of();
+        }
+        List<DocumentData> documents = new ArrayList<>();
+        for (HnswIndex.Match match : index.search(vector, limit, filter)) {
+            if (match.getScore() < threshold) {
+                break;
+            }
+            DocumentData document = match.getDocument();
+            Map<String, Object> metadata = new LinkedHashMap<>(document.getMetadata());
+            metadata.put("score", match.getScore());
+            documents.add(new DocumentData(document.getId(), document.getContent(), metadata));
+        }
+        return documents;
+    }
+
+    // Query or document vector, or null when no embedding model is configured
+    private float[] embed(String text) {
+        List<Double> embedding;
+        try {
+            embedding = aiService.generateEmbedding(text);
+        } catch (Exception e) {
+            throw new VectorStoreException("Failed to embed text: " + e.getMessage(), e);
+        }
+        return embedding.isEmpty() ? null : toArray(embedding);
+    }
+
+    private static Map<String, Object> productMetadata(Long productId, String name, String category, String brand) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("type", TYPE_PRODUCT);
+        metadata.put("productId", productId);
+        metadata.put("name", name);
+        if (category != null) {
+            metadata.put("category", category);
+        }
+        if (brand != null) {
+            metadata.put("brand", brand);
+        }
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    private static String digest(String embedding) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(embedding.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> metadata) {
+        return metadata != null ? Collections.unmodifiableMap(new HashMap<>(metadata)) : Map.of();
+    }
+
+    private static float[] toArray(List<Double> embedding) {
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Parse a stored embedding, written as a list's toString ("[0.1, -0.2, ...]"); null when absent or malformed
+     */
+    static float[] parseEmbedding(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        String body = stored.strip();
+        if (body.length() < 3 || body.charAt(0) != '[' || body.charAt(body.length() - 1) != ']') {
+            return null;
+        }
+        String[] parts = body.substring(1, body.length() - 1).split(",");
+        float[] vector = new float[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                vector[i] = Float.parseFloat(parts[i].strip());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return vector;
+    }
+
     /**
      * Get embedding vector for text
      */
@@ -137,21 +543,18 @@ public class VectorStoreService {
         if (vector1.size() != vector2.size()) {
             throw new IllegalArgumentException("Vectors must have the same dimension");
         }
-        
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-        
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
-            norm1 += Math.pow(vector1.get(i), 2);
-            norm2 += Math.pow(vector2.get(i), 2);
-        }
-        
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        float[] a = toArray(vector1);
+        float[] b = toArray(vector2);
+        SimilarityKernel kernel = SimilarityKernels.preferred();
+        return kernel.dot(a, b) / Math.sqrt((double) kernel.dot(a, a) * kernel.dot(b, b));
     }
     
     // Inner classes
+    @FunctionalInterface
+    private interface LogWrite {
+        void run() throws IOException;
+    }
+
     public static class DocumentData {
         private final String id;
         private final String content;
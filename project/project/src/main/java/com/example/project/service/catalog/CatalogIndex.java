@@ -0,0 +1,29 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An in-memory structure derived from the active product catalog.
+ * Implementations are fed by {@link CatalogIndexCoordinator}; products passed in
+ * always have their category and brand initialized.
+ */
+public interface CatalogIndex {
+
+    /**
+     * Replace the whole index with the given active products
+     */
+    void rebuild(List<Product> activeProducts);
+
+    /**
+     * Add or replace the given active products
+     */
+    void upsert(List<Product> products);
+
+    /**
+     * Drop products that were deleted or deactivated
+     */
+    void remove(Collection<Long> productIds);
+}
@@ -0,0 +1,86 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import com.example.project.event.ProductChangedEvent;
+import com.example.project.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds every {@link CatalogIndex} at startup and keeps them in sync with product writes.
+ * Products are loaded once per change and fanned out to all indexes.
+ */
+@Component
+public class CatalogIndexCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndexCoordinator.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired(required = false)
+    private List<CatalogIndex> indexes = List.of();
+
+    /**
+     * Build all indexes from the active catalog once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuildAll() {
+        long start = System.currentTimeMillis();
+        try {
+            List<Product> products = productRepository.findActiveProductsWithCategoryAndBrand();
+            for (CatalogIndex index : indexes) {
+                index.rebuild(products);
+            }
+            logger.info("Built {} catalog indexes over {} products in {} ms",
+                    indexes.size(), products.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to build catalog indexes", e);
+        }
+    }
+
+    /**
+     * Apply product writes once the surrounding transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (indexes.isEmpty() || event.getProductIds().isEmpty()) {
+            return;
+        }
+        try {
+            List<Product> loaded = productRepository.findWithCategoryAndBrandByIdIn(event.getProductIds());
+            List<Product> active = new ArrayList<>();
+            Set<Long> removed = new HashSet<>(event.getProductIds());
+            for (Product product : loaded) {
+                if (Boolean.TRUE.equals(product.getIsActive())) {
+                    active.add(product);
+                    removed.remove(product.getId());
+                }
+            }
+            for (CatalogIndex index : indexes) {
+                if (!removed.isEmpty()) {
+                    index.remove(removed);
+                }
+                if (!active.isEmpty()) {
+                    index.upsert(active);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to update catalog indexes for products {}", event.getProductIds(), e);
+        }
+    }
+}
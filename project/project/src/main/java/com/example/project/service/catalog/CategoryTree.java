@@ -0,0 +1,222 @@
+package com.example.project.service.catalog;
+
+import com.example.project.event.CategoryChangedEvent;
+import com.example.project.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable in-memory snapshot of the category hierarchy, numbered in pre-order.
+ * Every subtree occupies one contiguous range [position, end) of the numbering, so "all categories
+ * under X" is a sub-list and "is A under X" is two integer comparisons, without walking parent links.
+ * The snapshot is rebuilt from one query whenever a category changes and swapped in atomically.
+ */
+@Component
+public class CategoryTree {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTree.class);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Current snapshot; built on first use if the startup build has not run yet
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build(categoryRepository.findTreeRows());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Snapshot rebuilt = build(categoryRepository.findTreeRows());
+        synchronized (this) {
+            snapshot = rebuilt;
+        }
+        logger.info("Category tree rebuilt: {} categories", rebuilt.size());
+    }
+
+    /**
+     * Rebuild once the category write has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild category tree after change to category {}", event.getCategoryId(), e);
+        }
+    }
+
+    /**
+     * Number (id, parentId, name) rows in pre-order. Children keep the row order; categories whose parent
+     * is missing become roots, and a parent cycle is cut where it is first entered.
+     */
+    static Snapshot build(List<Object[]> rows) {
+        Map<Long, String> names = new LinkedHashMap<>();
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            names.put(id, (String) row[2]);
+            if (row[1] != null) {
+                parents.put(id, ((Number) row[1]).longValue());
+            }
+        }
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+        for (Long id : names.keySet()) {
+            Long parent = parents.get(id);
+            if (parent == null || !names.containsKey(parent) || parent.equals(id)) {
+                roots.add(id);
+            } else {
+                children.computeIfAbsent(parent, p -> new ArrayList<>()).add(id);
+            }
+        }
+
+        int n = names.size();
+        Long[] order = new Long[n];
+        int[] ends = new int[n];
+        Map<Long, Integer> positions = new HashMap<>(n * 2);
+        int next = 0;
+        // Roots first, then anything only reachable through a cycle
+        List<Long> starts = new ArrayList<>(roots);
+        starts.addAll(names.keySet());
+        Deque<long[]> stack = new ArrayDeque<>();
+        for (Long start : starts) {
+            if (positions.containsKey(start)) {
+                continue;
+            }
+            positions.put(start, next);
+            order[next++] = start;
+            stack.push(new long[] { start, 0 });
+            while (!stack.isEmpty()) {
+                long[] frame = stack.peek();
+                List<Long> kids = children.getOrDefault(frame[0], List.of());
+                Long child = null;
+                while (frame[1] < kids.size() && child == null) {
+                    Long candidate = kids.get((int) frame[1]++);
+                    if (!positions.containsKey(candidate)) {
+                        child = candidate;
+                    }
+                }
+                if (child != null) {
+                    positions.put(child, next);
+                    order[next++] = child;
+                    stack.push(new long[] { child, 0 });
+                } else {
+                    stack.pop();
+                    ends[positions.get(frame[0])] = next;
+                }
+            }
+        }
+
+        Map<String, Long> byName = new HashMap<>();
+        for (Long id : order) {
+            byName.putIfAbsent(normalize(names.get(id)), id);
+        }
+        return new Snapshot(List.of(order), ends, positions, names, byName);
+    }
+
+    // Category names compare case-insensitively, like MySQL's default collation
+    private static String normalize(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    // Inner classes
+    public static class Snapshot {
+        private final List<Long> order;
+        private final int[] ends;
+        private final Map<Long, Integer> positions;
+        private final Map<Long, String> names;
+        private final Map<String, Long> idsByName;
+
+        Snapshot(List<Long> order, int[] ends, Map<Long, Integer> positions, Map<Long, String> names, Map<String, Long> idsByName) {
+            this.order = order;
+            this.ends = ends;
+            this.positions = Collections.unmodifiableMap(positions);
+            this.names = Collections.unmodifiableMap(names);
+            this.idsByName = Collections.unmodifiableMap(idsByName);
+        }
+
+        public int size() {
+            return order.size();
+        }
+
+        public boolean contains(Long categoryId) {
+            return categoryId != null && positions.containsKey(categoryId);
+        }
+
+        /**
+         * Id of the first category (in tree order) with this name, or null
+         */
+        public Long findIdByName(String name) {
+            return name != null ? idsByName.get(normalize(name)) : null;
+        }
+
+        public String getName(Long categoryId) {
+            return names.get(categoryId);
+        }
+
+        /**
+         * The category and all its descendants, in pre-order; empty for an unknown id
+         */
+        public List<Long> subtreeIds(Long categoryId) {
+            Integer position = categoryId != null ? positions.get(categoryId) : null;
+            return position != null ? order.subList(position, ends[position]) : List.of();
+        }
+
+        /**
+         * Whether the category is the ancestor itself or lies anywhere below it
+         */
+        public boolean isWithin(Long categoryId, Long ancestorId) {
+            Integer position = categoryId != null ? positions.get(categoryId) : null;
+            Integer ancestor = ancestorId != null ? positions.get(ancestorId) : null;
+            return position != null && ancestor != null && position >= ancestor && position < ends[ancestor];
+        }
+
+        /**
+         * Turn per-category counts into subtree totals with one prefix sum over the pre-order numbering
+         */
+        public Map<Long, Long> subtreeTotals(Map<Long, Long> directCounts) {
+            long[] prefix = new long[order.size() + 1];
+            for (int i = 0; i < order.size(); i++) {
+                prefix[i + 1] = prefix[i] + directCounts.getOrDefault(order.get(i), 0L);
+            }
+            Map<Long, Long> totals = new HashMap<>(order.size() * 2);
+            for (int i = 0; i < order.size(); i++) {
+                totals.put(order.get(i), prefix[ends[i]] - prefix[i]);
+            }
+            return totals;
+        }
+    }
+}
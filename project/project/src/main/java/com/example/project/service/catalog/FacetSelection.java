@@ -0,0 +1,51 @@
+package com.example.project.service.catalog;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selected facet values per dimension. Values within a dimension are OR-ed,
+ * dimensions are AND-ed.
+ */
+public class FacetSelection {
+
+    private final Map<String, Set<String>> values = new HashMap<>();
+
+    public FacetSelection select(String dimension, Collection<String> selected) {
+        if (selected != null) {
+            for (String value : selected) {
+                if (value != null && !value.isBlank()) {
+                    values.computeIfAbsent(dimension, d -> new LinkedHashSet<>()).add(value.trim());
+                }
+            }
+        }
+        return this;
+    }
+
+    public FacetSelection select(String dimension, Boolean selected) {
+        if (selected != null) {
+            values.computeIfAbsent(dimension, d -> new LinkedHashSet<>()).add(selected.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Select every whole-star rating bucket at or above the given rating
+     */
+    public FacetSelection minRating(Double rating) {
+        if (rating != null) {
+            Set<String> buckets = values.computeIfAbsent(ProductFacetIndex.RATING, d -> new LinkedHashSet<>());
+            for (int stars = (int) Math.ceil(rating); stars <= 5; stars++) {
+                buckets.add(String.valueOf(Math.max(stars, 0)));
+            }
+        }
+        return this;
+    }
+
+    public Set<String> getValues(String dimension) {
+        return values.getOrDefault(dimension, Set.of());
+    }
+}
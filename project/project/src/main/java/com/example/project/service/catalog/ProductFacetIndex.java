@@ -0,0 +1,326 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-facet-value compressed bitmaps over active product ids.
+ * Facet counts are computed by intersecting bitmaps instead of GROUP BY queries.
+ * Bitmaps hold each product under its own category only; selecting a category also selects its
+ * subcategories and category counts are rolled up, both through the {@link CategoryTree} snapshot.
+ */
+@Component
+public class ProductFacetIndex implements CatalogIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String PRICE = "price";
+    public static final String RATING = "rating";
+    public static final String FEATURED = "featured";
+    public static final String DIGITAL = "digital";
+
+    private static final List<String> DIMENSIONS = List.of(CATEGORY, BRAND, PRICE, RATING, FEATURED, DIGITAL);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<String, RoaringBitmap>> bitmaps = new HashMap<>();
+    private final Map<Long, String[]> valuesByProduct = new HashMap<>();
+    private final RoaringBitmap allProducts = new RoaringBitmap();
+
+    private final BigDecimal[] priceBounds;
+    private final String[] priceLabels;
+    private final CategoryTree categoryTree;
+
+    private volatile boolean ready;
+
+    public ProductFacetIndex(@Value("${catalog.facets.price-buckets:50,100,250,500,1000}") String priceBuckets,
+                             CategoryTree categoryTree) {
+        this.categoryTree = categoryTree;
+        String[] parts = priceBuckets.split(",");
+        this.priceBounds = new BigDecimal[parts.length];
+        this.priceLabels = new String[parts.length + 1];
+        String lower = "0";
+        for (int i = 0; i < parts.length; i++) {
+            priceBounds[i] = new BigDecimal(parts[i].trim());
+            priceLabels[i] = lower + "-" + parts[i].trim();
+            lower = parts[i].trim();
+        }
+        priceLabels[parts.length] = lower + "+";
+        for (String dimension : DIMENSIONS) {
+            bitmaps.put(dimension, new HashMap<>());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(List<Product> activeProducts) {
+        lock.writeLock().lock();
+        try {
+            for (Map<String, RoaringBitmap> values : bitmaps.values()) {
+                values.clear();
+            }
+            valuesByProduct.clear();
+            allProducts.clear();
+            for (Product product : activeProducts) {
+                addProduct(product);
+            }
+            for (Map<String, RoaringBitmap> values : bitmaps.values()) {
+                values.values().forEach(RoaringBitmap::runOptimize);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeProduct(product.getId());
+                addProduct(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                removeProduct(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Resolve the selection against the given candidates (null means the whole active catalog).
+     * Counts for each dimension ignore that dimension's own selection, so the sidebar can offer
+     * alternatives to what is already selected.
+     */
+    public FacetResult query(FacetSelection selection, RoaringBitmap candidates) {
+        CategoryTree.Snapshot tree = categoryTree.getSnapshot();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap base = candidates != null ? RoaringBitmap.and(candidates, allProducts) : allProducts.clone();
+
+            Map<String, RoaringBitmap> selected = new LinkedHashMap<>();
+            for (String dimension : DIMENSIONS) {
+                Set<String> values = selection.getValues(dimension);
+                if (!values.isEmpty() && dimension.equals(CATEGORY)) {
+                    values = withSubcategories(tree, values);
+                }
+                if (!values.isEmpty()) {
+                    selected.put(dimension, union(dimension, values));
+                }
+            }
+
+            RoaringBitmap matching = base.clone();
+            for (RoaringBitmap filter : selected.values()) {
+                matching.and(filter);
+            }
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String dimension : DIMENSIONS) {
+                RoaringBitmap scope = base.clone();
+                for (Map.Entry<String, RoaringBitmap> filter : selected.entrySet()) {
+                    if (!filter.getKey().equals(dimension)) {
+                        scope.and(filter.getValue());
+                    }
+                }
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                for (Map.Entry<String, RoaringBitmap> value : bitmaps.get(dimension).entrySet()) {
+                    int count = RoaringBitmap.andCardinality(scope, value.getValue());
+                    if (count > 0) {
+                        valueCounts.put(value.getKey(), count);
+                    }
+                }
+                counts.put(dimension, dimension.equals(CATEGORY) ? rollUp(tree, valueCounts) : valueCounts);
+            }
+            return new FacetResult(matching, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Price bucket labels in ascending order, e.g. "0-50", "50-100", ..., "1000+"
+     */
+    public List<String> getPriceBuckets() {
+        return List.of(priceLabels);
+    }
+
+    private static Set<String> withSubcategories(CategoryTree.Snapshot tree, Set<String> names) {
+        Set<String> expanded = new LinkedHashSet<>(names);
+        for (String name : names) {
+            for (Long categoryId : tree.subtreeIds(tree.findIdByName(name))) {
+                expanded.add(tree.getName(categoryId));
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Per-category counts to subtree totals; names the tree does not know keep their own count
+     */
+    private static Map<String, Integer> rollUp(CategoryTree.Snapshot tree, Map<String, Integer> counts) {
+        Map<Long, Long> direct = new HashMap<>();
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            Long categoryId = tree.findIdByName(count.getKey());
+            if (categoryId != null) {
+                direct.merge(categoryId, (long) count.getValue(), Long::sum);
+            } else {
+                result.put(count.getKey(), count.getValue());
+            }
+        }
+        if (direct.isEmpty()) {
+            return result;
+        }
+        for (Map.Entry<Long, Long> total : tree.subtreeTotals(direct).entrySet()) {
+            if (total.getValue() > 0) {
+                result.merge(tree.getName(total.getKey()), Math.toIntExact(total.getValue()), Integer::max);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap union(String dimension, Set<String> values) {
+        Map<String, RoaringBitmap> valueBitmaps = bitmaps.get(dimension);
+        RoaringBitmap result = new RoaringBitmap();
+        for (String value : values) {
+            RoaringBitmap bitmap = valueBitmaps.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private void addProduct(Product product) {
+        int key = toKey(product.getId());
+        String[] values = facetValues(product);
+        for (int i = 0; i < DIMENSIONS.size(); i++) {
+            if (values[i] != null) {
+                bitmaps.get(DIMENSIONS.get(i)).computeIfAbsent(values[i], v -> new RoaringBitmap()).add(key);
+            }
+        }
+        allProducts.add(key);
+        valuesByProduct.put(product.getId(), values);
+    }
+
+    private void removeProduct(Long productId) {
+        String[] values = valuesByProduct.remove(productId);
+        if (values == null) {
+            return;
+        }
+        int key = toKey(productId);
+        for (int i = 0; i < DIMENSIONS.size(); i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            Map<String, RoaringBitmap> valueBitmaps = bitmaps.get(DIMENSIONS.get(i));
+            RoaringBitmap bitmap = valueBitmaps.get(values[i]);
+            if (bitmap != null) {
+                bitmap.remove(key);
+                if (bitmap.isEmpty()) {
+                    valueBitmaps.remove(values[i]);
+                }
+            }
+        }
+        allProducts.remove(key);
+    }
+
+    private String[] facetValues(Product product) {
+        String[] values = new String[DIMENSIONS.size()];
+        values[0] = product.getCategory() != null ? product.getCategory().getName() : null;
+        values[1] = product.getBrand() != null ? product.getBrand().getName() : null;
+        values[2] = priceBucket(product.getPrice());
+        values[3] = ratingBucket(product.getAverageRating());
+        values[4] = String.valueOf(Boolean.TRUE.equals(product.getIsFeatured()));
+        values[5] = String.valueOf(Boolean.TRUE.equals(product.getIsDigital()));
+        return values;
+    }
+
+    private String priceBucket(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        for (int i = 0; i < priceBounds.length; i++) {
+            if (price.compareTo(priceBounds[i]) < 0) {
+                return priceLabels[i];
+            }
+        }
+        return priceLabels[priceBounds.length];
+    }
+
+    /**
+     * Whole-star rating floor: "4" covers ratings in [4, 5)
+     */
+    static String ratingBucket(Double rating) {
+        if (rating == null) {
+            return "0";
+        }
+        return String.valueOf((int) Math.max(0, Math.min(5, Math.floor(rating))));
+    }
+
+    static int toKey(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    // Inner classes
+    public static class FacetResult {
+        private final RoaringBitmap matching;
+        private final Map<String, Map<String, Integer>> counts;
+
+        FacetResult(RoaringBitmap matching, Map<String, Map<String, Integer>> counts) {
+            this.matching = matching;
+            this.counts = counts;
+        }
+
+        public RoaringBitmap getMatching() { return matching; }
+        public Map<String, Map<String, Integer>> getCounts() { return counts; }
+
+        public boolean contains(long productId) {
+            return productId <= Integer.MAX_VALUE && matching.contains((int) productId);
+        }
+
+        /**
+         * Matching product ids in ascending id order for one page
+         */
+        public List<Long> page(int offset, int limit) {
+            List<Long> ids = new ArrayList<>();
+            if (offset >= matching.getCardinality()) {
+                return ids;
+            }
+            PeekableIntIterator iterator = matching.getIntIterator();
+            iterator.advanceIfNeeded(matching.select(offset));
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add((long) iterator.next());
+            }
+            return ids;
+        }
+    }
+}
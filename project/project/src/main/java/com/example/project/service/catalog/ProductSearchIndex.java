@@ -0,0 +1,417 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import com.example.project.util.TextAnalyzer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the active catalog with BM25 ranking.
+ * Indexes name, brand, category, tags, AI tags and description with per-field weights.
+ * Terms are folded by {@link TextAnalyzer}, so queries match with or without Vietnamese diacritics;
+ * query terms missing from the vocabulary fall back to vocabulary terms with similar trigrams.
+ */
+@Component
+public class ProductSearchIndex implements CatalogIndex {
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Field weights applied to term frequencies (BM25F-style)
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float TAGS_WEIGHT = 1.5f;
+    private static final float AI_TAGS_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Fuzzy fallback for unknown query terms: trigram Dice similarity threshold and fan-out
+    private static final int GRAM_SIZE = 3;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final float MIN_SIMILARITY = 0.5f;
+    private static final int MAX_EXPANSIONS = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docIdsByProduct = new HashMap<>();
+    private final Map<String, List<String>> termsByGram = new HashMap<>();
+
+    // Per-document state, indexed by internal doc id
+    private long[] productIds = new long[1024];
+    private float[] docLengths = new float[1024];
+    private String[][] docTerms = new String[1024][];
+
+    private int[] freeDocIds = new int[64];
+    private int freeCount;
+    private int maxDoc;
+    private int liveDocs;
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    /**
+     * Whether the index has been built and can serve queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Number of indexed products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild(List<Product> activeProducts) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docIdsByProduct.clear();
+            termsByGram.clear();
+            int capacity = Math.max(1024, activeProducts.size() + 64);
+            productIds = new long[capacity];
+            docLengths = new float[capacity];
+            docTerms = new String[capacity][];
+            freeCount = 0;
+            maxDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+            for (Product product : activeProducts) {
+                addDocument(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeDocument(product.getId());
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                removeDocument(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank active products against the query.
+     * Products matching every query term come first; if none do, any-term matches are returned.
+     */
+    public RankedHits search(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return RankedHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return RankedHits.EMPTY;
+            }
+            float avgLength = (float) (totalLength / liveDocs);
+            float[] scores = new float[maxDoc];
+            byte[] matchedTerms = new byte[maxDoc];
+            int[] lastTerm = new int[maxDoc];
+            int[] touched = new int[16];
+            int touchedCount = 0;
+            int queryTerms = 0;
+
+            for (String term : terms) {
+                queryTerms++;
+                PostingList exact = postings.get(term);
+                List<String> variants = exact != null ? List.of(term) : fuzzyVariants(term);
+                for (String variant : variants) {
+                    PostingList list = postings.get(variant);
+                    float weight = variant.equals(term) ? 1f : similarity(term, variant);
+                    float idf = (float) Math.log(1 + (liveDocs - list.size + 0.5) / (list.size + 0.5));
+                    for (int i = 0; i < list.size; i++) {
+                        int doc = list.docs[i];
+                        float tf = list.freqs[i];
+                        float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                        if (lastTerm[doc] == 0) {
+                            if (touchedCount == touched.length) {
+                                touched = Arrays.copyOf(touched, touchedCount * 2);
+                            }
+                            touched[touchedCount++] = doc;
+                        }
+                        scores[doc] += weight * idf * tf * (K1 + 1) / (tf + norm);
+                        // Count each query term once per document, however many variants matched
+                        if (lastTerm[doc] != queryTerms) {
+                            lastTerm[doc] = queryTerms;
+                            if (matchedTerms[doc] < Byte.MAX_VALUE) {
+                                matchedTerms[doc]++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (touchedCount == 0) {
+                return RankedHits.EMPTY;
+            }
+
+            int required = Math.min(queryTerms, Byte.MAX_VALUE);
+            int fullMatches = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                if (matchedTerms[touched[i]] >= required) {
+                    fullMatches++;
+                }
+            }
+
+            // Pack (score, doc) into longs so ranking is a primitive sort
+            boolean requireAll = fullMatches > 0;
+            long[] keys = new long[requireAll ? fullMatches : touchedCount];
+            int n = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (!requireAll || matchedTerms[doc] >= required) {
+                    keys[n++] = ((long) Float.floatToIntBits(scores[doc]) << 32) | (Integer.MAX_VALUE - doc);
+                }
+            }
+            Arrays.sort(keys);
+
+            long[] rankedIds = new long[n];
+            float[] rankedScores = new float[n];
+            for (int i = 0; i < n; i++) {
+                long key = keys[n - 1 - i];
+                int doc = Integer.MAX_VALUE - (int) key;
+                rankedIds[i] = productIds[doc];
+                rankedScores[i] = Float.intBitsToFloat((int) (key >>> 32));
+            }
+            return new RankedHits(rankedIds, rankedScores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, product.getName(), NAME_WEIGHT);
+        length += addField(frequencies, product.getBrand() != null ? product.getBrand().getName() : null, BRAND_WEIGHT);
+        length += addField(frequencies, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_WEIGHT);
+        length += addField(frequencies, product.getTags(), TAGS_WEIGHT);
+        length += addField(frequencies, product.getAiTags(), AI_TAGS_WEIGHT);
+        length += addField(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        int doc = allocateDocId();
+        productIds[doc] = product.getId();
+        docLengths[doc] = length;
+        docTerms[doc] = frequencies.keySet().toArray(new String[0]);
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            PostingList list = postings.get(entry.getKey());
+            if (list == null) {
+                list = new PostingList();
+                postings.put(entry.getKey(), list);
+                addToGrams(entry.getKey());
+            }
+            list.add(doc, entry.getValue());
+        }
+        docIdsByProduct.put(product.getId(), doc);
+        liveDocs++;
+        totalLength += length;
+    }
+
+    private void removeDocument(Long productId) {
+        Integer doc = docIdsByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : docTerms[doc]) {
+            PostingList list = postings.get(term);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(term);
+                removeFromGrams(term);
+            }
+        }
+        liveDocs--;
+        totalLength -= docLengths[doc];
+        docTerms[doc] = null;
+        docLengths[doc] = 0;
+        if (freeCount == freeDocIds.length) {
+            freeDocIds = Arrays.copyOf(freeDocIds, freeCount * 2);
+        }
+        freeDocIds[freeCount++] = doc;
+    }
+
+    private int allocateDocId() {
+        if (freeCount > 0) {
+            return freeDocIds[--freeCount];
+        }
+        if (maxDoc == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+        }
+        return maxDoc++;
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    /**
+     * Vocabulary terms sharing enough trigrams with an unknown query term, most similar first
+     */
+    private List<String> fuzzyVariants(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return List.of();
+        }
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : TextAnalyzer.termNgrams(term, GRAM_SIZE)) {
+            List<String> terms = termsByGram.get(gram);
+            if (terms != null) {
+                for (String candidate : terms) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        int queryGrams = term.length() + 3 - GRAM_SIZE;
+        List<String> variants = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            int candidateGrams = candidate.getKey().length() + 3 - GRAM_SIZE;
+            if (2f * candidate.getValue() / (queryGrams + candidateGrams) >= MIN_SIMILARITY) {
+                variants.add(candidate.getKey());
+            }
+        }
+        variants.sort((a, b) -> Float.compare(similarity(term, b), similarity(term, a)));
+        return variants.size() > MAX_EXPANSIONS ? variants.subList(0, MAX_EXPANSIONS) : variants;
+    }
+
+    /**
+     * Dice coefficient over padded trigrams
+     */
+    private static float similarity(String a, String b) {
+        String[] gramsA = TextAnalyzer.termNgrams(a, GRAM_SIZE);
+        String[] gramsB = TextAnalyzer.termNgrams(b, GRAM_SIZE);
+        int shared = 0;
+        for (String gram : gramsA) {
+            for (String other : gramsB) {
+                if (gram.equals(other)) {
+                    shared++;
+                    break;
+                }
+            }
+        }
+        return 2f * shared / (gramsA.length + gramsB.length);
+    }
+
+    private void addToGrams(String term) {
+        for (String gram : TextAnalyzer.termNgrams(term, GRAM_SIZE)) {
+            termsByGram.computeIfAbsent(gram, g -> new ArrayList<>()).add(term);
+        }
+    }
+
+    private void removeFromGrams(String term) {
+        for (String gram : TextAnalyzer.termNgrams(term, GRAM_SIZE)) {
+            List<String> terms = termsByGram.get(gram);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                termsByGram.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Fold (lowercase, strip diacritics) and split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        return TextAnalyzer.tokenize(text);
+    }
+
+    // Inner classes
+    private static class PostingList {
+        private int[] docs = new int[4];
+        private float[] freqs = new float[4];
+        private int size;
+
+        void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    freqs[i] = freqs[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Matching product ids in descending relevance order
+     */
+    public static class RankedHits {
+        static final RankedHits EMPTY = new RankedHits(new long[0], new float[0]);
+
+        private final long[] productIds;
+        private final float[] scores;
+
+        RankedHits(long[] productIds, float[] scores) {
+            this.productIds = productIds;
+            this.scores = scores;
+        }
+
+        public int size() { return productIds.length; }
+        public long[] getProductIds() { return productIds; }
+        public float[] getScores() { return scores; }
+
+        /**
+         * Product ids for one page of results
+         */
+        public List<Long> page(int offset, int limit) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = offset; i < productIds.length && i < offset + limit; i++) {
+                ids.add(productIds[i]);
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.project.service.catalog;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parsed multi-key product ordering, e.g. "averageRating,desc;price,asc".
+ * Ties are always broken by id in the direction of the first key, so an ordering and its
+ * full reverse share one permutation.
+ */
+public final class ProductSort {
+
+    public enum Field {
+        ID("id"),
+        PRICE("price"),
+        VIEW_COUNT("viewCount"),
+        PURCHASE_COUNT("purchaseCount"),
+        AVERAGE_RATING("averageRating");
+
+        private final String property;
+
+        Field(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() { return property; }
+    }
+
+    private static final int MAX_KEYS = 4;
+
+    private final Field[] fields;
+    private final boolean[] descending;
+
+    private ProductSort(Field[] fields, boolean[] descending) {
+        this.fields = fields;
+        this.descending = descending;
+    }
+
+    /**
+     * Parse a sort parameter: keys separated by ';', each "field" or "field,asc|desc".
+     * "newest" is accepted as an alias for id descending.
+     *
+     * @throws IllegalArgumentException for unknown fields or directions
+     */
+    public static ProductSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return null;
+        }
+        List<Field> fields = new ArrayList<>();
+        List<Boolean> directions = new ArrayList<>();
+        for (String part : sort.split(";")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] tokens = part.trim().split(",");
+            String name = tokens[0].trim();
+            Field field;
+            boolean desc;
+            if (name.equalsIgnoreCase("newest")) {
+                field = Field.ID;
+                desc = true;
+            } else {
+                field = fieldOf(name);
+                // Counters and ratings are naturally read highest first
+                desc = field == Field.VIEW_COUNT || field == Field.PURCHASE_COUNT || field == Field.AVERAGE_RATING;
+            }
+            if (tokens.length > 1) {
+                String direction = tokens[1].trim().toLowerCase(Locale.ROOT);
+                if (!direction.equals("asc") && !direction.equals("desc")) {
+                    throw new IllegalArgumentException("Invalid sort direction: " + tokens[1]);
+                }
+                desc = direction.equals("desc");
+            }
+            if (!fields.contains(field)) {
+                fields.add(field);
+                directions.add(desc);
+            }
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        if (fields.size() > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " sort keys are supported");
+        }
+        boolean[] descending = new boolean[fields.size()];
+        for (int i = 0; i < descending.length; i++) {
+            descending[i] = directions.get(i);
+        }
+        return new ProductSort(fields.toArray(new Field[0]), descending);
+    }
+
+    private static Field fieldOf(String name) {
+        for (Field field : Field.values()) {
+            if (field.property.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + name);
+    }
+
+    /**
+     * The same ordering with the first key ascending; reading it backwards yields this ordering
+     * when {@link #isCanonical()} is false
+     */
+    public ProductSort canonical() {
+        if (isCanonical()) {
+            return this;
+        }
+        boolean[] flipped = new boolean[descending.length];
+        for (int i = 0; i < flipped.length; i++) {
+            flipped[i] = !descending[i];
+        }
+        return new ProductSort(fields, flipped);
+    }
+
+    public boolean isCanonical() {
+        return !descending[0];
+    }
+
+    /**
+     * Stable identifier of this ordering, e.g. "averageRating,desc;price,asc"
+     */
+    public String key() {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                key.append(';');
+            }
+            key.append(fields[i].property).append(descending[i] ? ",desc" : ",asc");
+        }
+        return key.toString();
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * Whether the field is one of the sort keys
+     */
+    boolean uses(Field field) {
+        for (Field key : fields) {
+            if (key == field) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Equivalent Spring Data sort for the SQL fallback, including the id tiebreak
+     */
+    public Sort toSort() {
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean hasId = false;
+        for (int i = 0; i < fields.length; i++) {
+            orders.add(descending[i] ? Sort.Order.desc(fields[i].property) : Sort.Order.asc(fields[i].property));
+            hasId |= fields[i] == Field.ID;
+        }
+        if (!hasId) {
+            orders.add(descending[0] ? Sort.Order.desc("id") : Sort.Order.asc("id"));
+        }
+        return Sort.by(orders);
+    }
+
+    /**
+     * Compare two products by their sort values (indexed by {@link Field#ordinal()})
+     */
+    int compare(long idA, double[] a, long idB, double[] b) {
+        for (int i = 0; i < fields.length; i++) {
+            int ordinal = fields[i].ordinal();
+            int c = Double.compare(a[ordinal], b[ordinal]);
+            if (c != 0) {
+                return descending[i] ? -c : c;
+            }
+        }
+        int c = Long.compare(idA, idB);
+        return descending[0] ? -c : c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProductSort other)) return false;
+        return Arrays.equals(fields, other.fields) && Arrays.equals(descending, other.descending);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(fields) + Arrays.hashCode(descending);
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import com.example.project.event.ProductCountersChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed permutations of active product ids, one per hot ordering.
+ * Every single-key ordering is built at startup; multi-key combinations are materialized the
+ * first time they are requested, up to a configured number. Writes re-position the changed
+ * products by binary search, so a sorted page never needs a full sort. Counter flushes add their
+ * deltas in place and only re-position the products in orderings that use the counters.
+ */
+@Component
+public class ProductSortIndex implements CatalogIndex {
+
+    private static final int FIELDS = ProductSort.Field.values().length;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, double[]> valuesByProduct = new HashMap<>();
+    private final Map<Long, Long> categoryByProduct = new HashMap<>();
+    private final Map<Long, Integer> categoryCounts = new HashMap<>();
+    private final Map<ProductSort, Permutation> permutations = new LinkedHashMap<>();
+
+    private final int maxPermutations;
+
+    private volatile boolean ready;
+
+    public ProductSortIndex(@Value("${catalog.sort.max-orders:16}") int maxPermutations) {
+        this.maxPermutations = maxPermutations;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(List<Product> activeProducts) {
+        lock.writeLock().lock();
+        try {
+            valuesByProduct.clear();
+            categoryByProduct.clear();
+            categoryCounts.clear();
+            for (Product product : activeProducts) {
+                putValues(product);
+            }
+            List<ProductSort> sorts = new ArrayList<>(permutations.keySet());
+            for (ProductSort.Field field : ProductSort.Field.values()) {
+                ProductSort single = ProductSort.parse(field.getProperty() + ",asc");
+                if (!sorts.contains(single)) {
+                    sorts.add(single);
+                }
+            }
+            permutations.clear();
+            for (ProductSort sort : sorts) {
+                permutations.put(sort, build(sort));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeProduct(product.getId());
+                putValues(product);
+                double[] values = valuesByProduct.get(product.getId());
+                for (Permutation permutation : permutations.values()) {
+                    permutation.insert(product.getId(), values);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                removeProduct(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add flushed view/purchase deltas once they have committed; products not in the index are skipped
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCountersChanged(ProductCountersChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            List<Permutation> affected = new ArrayList<>();
+            for (Map.Entry<ProductSort, Permutation> permutation : permutations.entrySet()) {
+                if (permutation.getKey().uses(ProductSort.Field.VIEW_COUNT)
+                        || permutation.getKey().uses(ProductSort.Field.PURCHASE_COUNT)) {
+                    affected.add(permutation.getValue());
+                }
+            }
+            for (int i = 0; i < event.size(); i++) {
+                Long productId = event.getProductId(i);
+                double[] values = valuesByProduct.get(productId);
+                if (values == null) {
+                    continue;
+                }
+                // Positions are located with the old values
+                for (Permutation permutation : affected) {
+                    permutation.remove(productId, values);
+                }
+                values[ProductSort.Field.VIEW_COUNT.ordinal()] += event.getViews(i);
+                values[ProductSort.Field.PURCHASE_COUNT.ordinal()] += event.getPurchases(i);
+                for (Permutation permutation : affected) {
+                    permutation.insert(productId, values);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One page of active product ids in the given order, optionally restricted to a set of category ids
+     * (typically a {@link CategoryTree} subtree).
+     * Returns null when the index is cold or the ordering cannot be materialized, in which case the
+     * caller should fall back to SQL.
+     */
+    public SortedPage page(ProductSort sort, Collection<Long> categoryIds, int offset, int limit) {
+        if (!ready) {
+            return null;
+        }
+        ProductSort canonical = sort.canonical();
+        lock.readLock().lock();
+        try {
+            Permutation permutation = permutations.get(canonical);
+            if (permutation != null) {
+                return permutation.page(!sort.isCanonical(), categoryIds, offset, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            Permutation permutation = permutations.get(canonical);
+            if (permutation == null) {
+                if (permutations.size() >= maxPermutations) {
+                    return null;
+                }
+                permutation = build(canonical);
+                permutations.put(canonical, permutation);
+            }
+            return permutation.page(!sort.isCanonical(), categoryIds, offset, limit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reorder the given product ids (e.g. search hits) by the sort; ids unknown to the index go last
+     */
+    public List<Long> order(ProductSort sort, long[] productIds) {
+        lock.readLock().lock();
+        try {
+            Long[] ids = new Long[productIds.length];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = productIds[i];
+            }
+            Arrays.sort(ids, (a, b) -> {
+                double[] va = valuesByProduct.get(a);
+                double[] vb = valuesByProduct.get(b);
+                if (va == null || vb == null) {
+                    return va == null ? (vb == null ? 0 : 1) : -1;
+                }
+                return sort.compare(a, va, b, vb);
+            });
+            return Arrays.asList(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Permutation build(ProductSort sort) {
+        Long[] ids = valuesByProduct.keySet().toArray(new Long[0]);
+        Arrays.sort(ids, (a, b) -> sort.compare(a, valuesByProduct.get(a), b, valuesByProduct.get(b)));
+        long[] ordered = new long[Math.max(16, ids.length + ids.length / 8)];
+        for (int i = 0; i < ids.length; i++) {
+            ordered[i] = ids[i];
+        }
+        return new Permutation(sort, ordered, ids.length);
+    }
+
+    private void putValues(Product product) {
+        double[] values = new double[FIELDS];
+        values[ProductSort.Field.ID.ordinal()] = product.getId();
+        values[ProductSort.Field.PRICE.ordinal()] = product.getPrice() != null ? product.getPrice().doubleValue() : 0;
+        values[ProductSort.Field.VIEW_COUNT.ordinal()] = product.getViewCount() != null ? product.getViewCount() : 0;
+        values[ProductSort.Field.PURCHASE_COUNT.ordinal()] = product.getPurchaseCount() != null ? product.getPurchaseCount() : 0;
+        values[ProductSort.Field.AVERAGE_RATING.ordinal()] = product.getAverageRating() != null ? product.getAverageRating() : 0;
+        valuesByProduct.put(product.getId(), values);
+        Long category = product.getCategory() != null ? product.getCategory().getId() : null;
+        categoryByProduct.put(product.getId(), category);
+        if (category != null) {
+            categoryCounts.merge(category, 1, Integer::sum);
+        }
+    }
+
+    private void removeProduct(Long productId) {
+        double[] values = valuesByProduct.get(productId);
+        if (values == null) {
+            return;
+        }
+        // Positions are located with the old values, so drop from permutations before the values
+        for (Permutation permutation : permutations.values()) {
+            permutation.remove(productId, values);
+        }
+        valuesByProduct.remove(productId);
+        Long category = categoryByProduct.remove(productId);
+        if (category != null) {
+            categoryCounts.computeIfPresent(category, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // Inner classes
+    private class Permutation {
+        private final ProductSort sort;
+        private long[] ids;
+        private int size;
+
+        Permutation(ProductSort sort, long[] ids, int size) {
+            this.sort = sort;
+            this.ids = ids;
+            this.size = size;
+        }
+
+        void insert(long productId, double[] values) {
+            int position = lowerBound(productId, values);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = productId;
+            size++;
+        }
+
+        void remove(long productId, double[] values) {
+            int position = lowerBound(productId, values);
+            if (position < size && ids[position] == productId) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private int lowerBound(long productId, double[] values) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long midId = ids[mid];
+                if (sort.compare(midId, valuesByProduct.get(midId), productId, values) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        SortedPage page(boolean reversed, Collection<Long> categoryIds, int offset, int limit) {
+            List<Long> pageIds = new ArrayList<>(Math.min(limit, size));
+            if (categoryIds == null) {
+                for (int i = offset; i < size && pageIds.size() < limit; i++) {
+                    pageIds.add(ids[reversed ? size - 1 - i : i]);
+                }
+                return new SortedPage(pageIds, size);
+            }
+            Set<Long> categories = new HashSet<>(categoryIds);
+            long total = 0;
+            for (Long categoryId : categories) {
+                total += categoryCounts.getOrDefault(categoryId, 0);
+            }
+            int skipped = 0;
+            for (int i = 0; i < size && pageIds.size() < limit; i++) {
+                long id = ids[reversed ? size - 1 - i : i];
+                Long category = categoryByProduct.get(id);
+                if (category != null && categories.contains(category) && skipped++ >= offset) {
+                    pageIds.add(id);
+                }
+            }
+            return new SortedPage(pageIds, total);
+        }
+    }
+
+    /**
+     * Product ids for one page plus the total number of matching products
+     */
+    public static class SortedPage {
+        private final List<Long> productIds;
+        private final long total;
+
+        SortedPage(List<Long> productIds, long total) {
+            this.productIds = productIds;
+            this.total = total;
+        }
+
+        public List<Long> getProductIds() { return productIds; }
+        public long getTotal() { return total; }
+    }
+}
@@ -0,0 +1,539 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import com.example.project.event.ProductCountersChangedEvent;
+import com.example.project.util.TextAnalyzer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie of completions for the search box: product, brand and category names.
+ * Every name is inserted once per word start, so "iPhone 15 Pro" completes from "pro" too.
+ * Each node caches its top-k completions by views and by purchases, so a lookup is a walk
+ * down the query prefix and a copy of at most k entries. Counter flushes add their deltas to the
+ * existing entries and re-rank only the nodes on their keys.
+ */
+@Component
+public class ProductSuggestIndex implements CatalogIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_BRAND = "brand";
+    public static final String TYPE_CATEGORY = "category";
+
+    // Only the first words of long names get their own completion key
+    private static final int MAX_WORD_KEYS = 8;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Comparator<Entry> BY_VIEWS = Comparator.comparingLong((Entry e) -> e.views).reversed()
+            .thenComparing(e -> e.text);
+    private static final Comparator<Entry> BY_PURCHASES = Comparator.comparingLong((Entry e) -> e.purchases).reversed()
+            .thenComparing(e -> e.text);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node("");
+    private final Map<Long, Entry> productEntries = new HashMap<>();
+    private final Map<String, Entry> brandEntries = new HashMap<>();
+    private final Map<String, Entry> categoryEntries = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(List<Product> activeProducts) {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            productEntries.clear();
+            brandEntries.clear();
+            categoryEntries.clear();
+            for (Product product : activeProducts) {
+                Entry entry = productEntry(product);
+                if (entry != null) {
+                    productEntries.put(product.getId(), entry);
+                    insertKeys(entry, false);
+                }
+                contribute(product, entry, 1, false);
+            }
+            computeTops(root);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeProduct(product.getId());
+                Entry entry = productEntry(product);
+                if (entry != null) {
+                    productEntries.put(product.getId(), entry);
+                    insertKeys(entry, true);
+                }
+                contribute(product, entry, 1, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                removeProduct(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add flushed view/purchase deltas once they have committed, to the product and its brand and category
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCountersChanged(ProductCountersChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < event.size(); i++) {
+                Entry entry = productEntries.get(event.getProductId(i));
+                if (entry == null) {
+                    continue;
+                }
+                long views = event.getViews(i);
+                long purchases = event.getPurchases(i);
+                addCounts(entry, views, purchases);
+                addCounts(entry.brand != null ? brandEntries.get(entry.brand.trim()) : null, views, purchases);
+                addCounts(entry.category != null ? categoryEntries.get(entry.category.trim()) : null, views, purchases);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addCounts(Entry entry, long views, long purchases) {
+        if (entry == null) {
+            return;
+        }
+        entry.views += views;
+        entry.purchases += purchases;
+        for (String key : entry.keys) {
+            recomputePath(key);
+        }
+    }
+
+    /**
+     * Top completions for the prefix, ranked by purchases when byPurchases is set, else by views
+     */
+    public List<Suggestion> suggest(String prefix, int limit, boolean byPurchases) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return List.of();
+            }
+            Entry[] top = byPurchases ? node.topPurchases : node.topViews;
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                Entry entry = top[i];
+                suggestions.add(new Suggestion(entry.text, entry.type, entry.productId, byPurchases ? entry.purchases : entry.views));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int n = Math.min(child.label.length(), key.length() - i);
+            if (!child.label.regionMatches(0, key, i, n)) {
+                return null;
+            }
+            i += n;
+            node = child;
+        }
+        return node;
+    }
+
+    private Entry productEntry(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return null;
+        }
+        Entry entry = new Entry(product.getName().trim(), TYPE_PRODUCT, product.getId());
+        entry.views = product.getViewCount() != null ? product.getViewCount() : 0;
+        entry.purchases = product.getPurchaseCount() != null ? product.getPurchaseCount() : 0;
+        return entry;
+    }
+
+    /**
+     * Add (sign 1) or withdraw (sign -1) a product's popularity from its brand and category completions
+     */
+    private void contribute(Product product, Entry productEntry, int sign, boolean patch) {
+        long views = productEntry != null ? productEntry.views : 0;
+        long purchases = productEntry != null ? productEntry.purchases : 0;
+        String brand = product.getBrand() != null ? product.getBrand().getName() : null;
+        String category = product.getCategory() != null ? product.getCategory().getName() : null;
+        contribute(brandEntries, brand, TYPE_BRAND, views, purchases, sign, patch);
+        contribute(categoryEntries, category, TYPE_CATEGORY, views, purchases, sign, patch);
+        if (productEntry != null) {
+            productEntry.brand = brand;
+            productEntry.category = category;
+        }
+    }
+
+    private void contribute(Map<String, Entry> entries, String name, String type, long views, long purchases,
+                            int sign, boolean patch) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        String text = name.trim();
+        Entry entry = entries.get(text);
+        if (entry == null) {
+            if (sign < 0) {
+                return;
+            }
+            entry = new Entry(text, type, null);
+            entries.put(text, entry);
+            entry.products = 1;
+            entry.views = views;
+            entry.purchases = purchases;
+            insertKeys(entry, patch);
+            return;
+        }
+        entry.products += sign;
+        entry.views += sign * views;
+        entry.purchases += sign * purchases;
+        if (entry.products <= 0) {
+            entries.remove(text);
+            removeKeys(entry);
+        } else if (patch) {
+            // Weights changed in place; re-rank every node that can hold this entry
+            for (String key : entry.keys) {
+                recomputePath(key);
+            }
+        }
+    }
+
+    private void removeProduct(Long productId) {
+        Entry entry = productEntries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        removeKeys(entry);
+        contribute(brandEntries, entry.brand, TYPE_BRAND, entry.views, entry.purchases, -1, true);
+        contribute(categoryEntries, entry.category, TYPE_CATEGORY, entry.views, entry.purchases, -1, true);
+    }
+
+    private void insertKeys(Entry entry, boolean patch) {
+        entry.keys = completionKeys(entry.text);
+        for (String key : entry.keys) {
+            List<Node> path = insert(key, entry);
+            if (patch) {
+                recompute(path);
+            }
+        }
+    }
+
+    private void removeKeys(Entry entry) {
+        for (String key : entry.keys) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (node != null && i < key.length()) {
+                node = node.child(key.charAt(i));
+                if (node != null) {
+                    path.add(node);
+                    i += node.label.length();
+                }
+            }
+            if (node == null || i != key.length()) {
+                continue;
+            }
+            node.terminals = without(node.terminals, entry);
+            // Prune leaves that no longer lead anywhere
+            for (int d = path.size() - 1; d > 0; d--) {
+                Node current = path.get(d);
+                if (current.terminals.length > 0 || current.children.length > 0) {
+                    break;
+                }
+                path.get(d - 1).removeChild(current);
+                path.remove(d);
+            }
+            recompute(path);
+        }
+    }
+
+    private List<Node> insert(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (true) {
+            if (i == key.length()) {
+                node.terminals = append(node.terminals, entry);
+                return path;
+            }
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                leaf.terminals = new Entry[] {entry};
+                node.addChild(leaf);
+                path.add(leaf);
+                return path;
+            }
+            int common = 0;
+            int max = Math.min(child.label.length(), key.length() - i);
+            while (common < max && child.label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                // Split the edge: node -> middle -> child
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(child, middle);
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                middle.topViews = child.topViews;
+                middle.topPurchases = child.topPurchases;
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+    }
+
+    private void recomputePath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            path.add(node);
+            i += node.label.length();
+        }
+        recompute(path);
+    }
+
+    private void recompute(List<Node> path) {
+        for (int d = path.size() - 1; d >= 0; d--) {
+            updateTops(path.get(d));
+        }
+    }
+
+    private void computeTops(Node node) {
+        for (Node child : node.children) {
+            computeTops(child);
+        }
+        updateTops(node);
+    }
+
+    private void updateTops(Node node) {
+        node.topViews = top(node, BY_VIEWS, true);
+        node.topPurchases = top(node, BY_PURCHASES, false);
+    }
+
+    private static Entry[] top(Node node, Comparator<Entry> order, boolean views) {
+        Set<Entry> candidates = new LinkedHashSet<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(views ? child.topViews : child.topPurchases));
+        }
+        if (candidates.isEmpty()) {
+            return NO_ENTRIES;
+        }
+        Entry[] sorted = candidates.toArray(NO_ENTRIES);
+        Arrays.sort(sorted, order);
+        return sorted.length > MAX_SUGGESTIONS ? Arrays.copyOf(sorted, MAX_SUGGESTIONS) : sorted;
+    }
+
+    /**
+     * The normalized name plus the suffix starting at each later word
+     */
+    private static List<String> completionKeys(String text) {
+        String normalized = normalize(text);
+        List<String> keys = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        int start = 0;
+        while (keys.size() < MAX_WORD_KEYS) {
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+            keys.add(normalized.substring(start));
+        }
+        return keys;
+    }
+
+    /**
+     * Fold case and diacritics, and collapse every run of non letter/digit characters into one space
+     */
+    static String normalize(String text) {
+        return TextAnalyzer.normalize(text);
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    // Inner classes
+    private static final class Entry {
+        private final String text;
+        private final String type;
+        private final Long productId;
+        private long views;
+        private long purchases;
+        private List<String> keys = List.of();
+        // Products only: where the popularity was contributed
+        private String brand;
+        private String category;
+        // Brands and categories only: number of contributing products
+        private int products;
+
+        Entry(String text, String type, Long productId) {
+            this.text = text;
+            this.type = type;
+            this.productId = productId;
+        }
+    }
+
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] terminals = NO_ENTRIES;
+        private Entry[] topViews = NO_ENTRIES;
+        private Entry[] topPurchases = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        // Children are kept sorted by first character
+        Node child(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char c = child.label.charAt(0);
+            int position = 0;
+            while (position < children.length && children[position].label.charAt(0) < c) {
+                position++;
+            }
+            Node[] result = new Node[children.length + 1];
+            System.arraycopy(children, 0, result, 0, position);
+            result[position] = child;
+            System.arraycopy(children, position, result, position + 1, children.length - position);
+            children = result;
+        }
+
+        void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == oldChild) {
+                    children[i] = newChild;
+                    return;
+                }
+            }
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    Node[] result = new Node[children.length - 1];
+                    System.arraycopy(children, 0, result, 0, i);
+                    System.arraycopy(children, i + 1, result, i, children.length - i - 1);
+                    children = result;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One completion: the display text, what it names, and the popularity it was ranked by
+     */
+    public static class Suggestion {
+        private final String text;
+        private final String type;
+        private final Long productId;
+        private final long score;
+
+        Suggestion(String text, String type, Long productId, long score) {
+            this.text = text;
+            this.type = type;
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public String getText() { return text; }
+        public String getType() { return type; }
+        public Long getProductId() { return productId; }
+        public long getScore() { return score; }
+    }
+}
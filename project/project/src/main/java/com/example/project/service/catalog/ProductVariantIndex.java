@@ -0,0 +1,140 @@
+package com.example.project.service.catalog;
+
+import com.example.project.dto.VariantMatrixResponse;
+import com.example.project.entity.ProductVariant;
+import com.example.project.event.ProductVariantChangedEvent;
+import com.example.project.repository.ProductRepository;
+import com.example.project.repository.ProductVariantRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-product {@link VariantMatrix} cache, bounded to catalog.variants.max-products products. A matrix is built
+ * from one query the first time a product's variants are asked for and dropped once a variant write (including
+ * a stock change) commits.
+ * Each cached product carries a version: a build starts by recording it and stores its matrix only if the
+ * version is unchanged, atomically, so a build that raced with a write never caches what it read.
+ */
+@Component
+public class ProductVariantIndex {
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Entry> entries;
+    // Source of entry versions; every variant change takes a new one
+    private final AtomicLong versions = new AtomicLong();
+
+    public ProductVariantIndex(@Value("${catalog.variants.max-products:5000}") long maxProducts) {
+        this.entries = Caffeine.newBuilder().maximumSize(maxProducts).<Long, Entry>build().asMap();
+    }
+
+    /**
+     * The product's variant matrix, or empty when the product does not exist
+     */
+    public Optional<VariantMatrix> get(Long productId) {
+        Entry cached = entries.get(productId);
+        if (cached != null && cached.matrix != null) {
+            return Optional.of(cached.matrix);
+        }
+        // A pending entry, so a write committing during the build bumps its version
+        Entry pending = entries.computeIfAbsent(productId, id -> new Entry(versions.get(), null));
+        if (pending.matrix != null) {
+            return Optional.of(pending.matrix);
+        }
+        long seen = pending.version;
+        List<ProductVariant> variants = productVariantRepository.findActiveByProductId(productId);
+        if (variants.isEmpty() && !productRepository.existsById(productId)) {
+            entries.remove(productId, pending);
+            return Optional.empty();
+        }
+        VariantMatrix matrix = VariantMatrix.of(productId, variants, objectMapper);
+        // Evicted or changed meanwhile: serve it, cache nothing
+        entries.computeIfPresent(productId, (id, current) -> current.version == seen ? new Entry(seen, matrix) : current);
+        return Optional.of(matrix);
+    }
+
+    /**
+     * Available-combinations view for the given selection (attribute name to value); each attribute's
+     * value counts respect the selection on all other attributes
+     */
+    public Optional<VariantMatrixResponse> matrix(Long productId, Map<String, String> selection) {
+        Map<String, String> normalized = new HashMap<>();
+        selection.forEach((name, value) -> {
+            if (name != null && value != null && !value.isBlank()) {
+                normalized.put(name.trim().toLowerCase(Locale.ROOT), value);
+            }
+        });
+        return get(productId).map(matrix -> toResponse(matrix, normalized));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVariantChanged(ProductVariantChangedEvent event) {
+        // Bumped even when the product is not cached, so a pending entry created after an eviction cannot
+        // reuse the version of a build that read before this write
+        long version = versions.incrementAndGet();
+        entries.computeIfPresent(event.getProductId(), (id, current) -> new Entry(version, null));
+    }
+
+    private static VariantMatrixResponse toResponse(VariantMatrix matrix, Map<String, String> selection) {
+        List<String> names = matrix.getAttributes();
+        List<VariantMatrixResponse.Attribute> attributes = new ArrayList<>(names.size());
+        for (int a = 0; a < names.size(); a++) {
+            long[] others = matrix.matching(selection, a);
+            List<String> values = matrix.getValues(a);
+            List<VariantMatrixResponse.AttributeValue> counts = new ArrayList<>(values.size());
+            for (int code = 0; code < values.size(); code++) {
+                counts.add(new VariantMatrixResponse.AttributeValue(values.get(code), matrix.stockFor(others, a, code)));
+            }
+            attributes.add(new VariantMatrixResponse.Attribute(names.get(a), counts));
+        }
+
+        List<VariantMatrixResponse.Variant> variants = new ArrayList<>(matrix.getVariantCount());
+        for (int v = 0; v < matrix.getVariantCount(); v++) {
+            int[] codes = new int[names.size()];
+            for (int a = 0; a < codes.length; a++) {
+                codes[a] = matrix.getCode(v, a);
+            }
+            variants.add(new VariantMatrixResponse.Variant(matrix.getVariantId(v), matrix.getSku(v), matrix.getPrice(v),
+                    matrix.getStock(v), matrix.isAvailable(v), codes));
+        }
+
+        List<Long> matching = new ArrayList<>();
+        if (!selection.isEmpty()) {
+            for (int v : matrix.ordinals(matrix.matching(selection, -1))) {
+                matching.add(matrix.getVariantId(v));
+            }
+        }
+        return new VariantMatrixResponse(matrix.getProductId(), attributes, variants, matching);
+    }
+
+    // Inner classes
+    // The matrix built at a version, or just the version while a build is pending or after a change
+    private static final class Entry {
+        private final long version;
+        private final VariantMatrix matrix;
+
+        Entry(long version, VariantMatrix matrix) {
+            this.version = version;
+            this.matrix = matrix;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.Product;
+import com.example.project.util.TextAnalyzer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Symmetric-delete (SymSpell) spelling dictionary over product, brand and category names.
+ * Each vocabulary term is stored under every string obtained by deleting up to maxEditDistance characters
+ * from its first prefixLength characters; a misspelled query term generates its own deletes and meets the
+ * right term in that map, so a lookup is a handful of hash probes plus edit-distance checks on the few
+ * candidates, with no scan of the vocabulary. Memory is bounded per term by the delete count
+ * (sum of C(prefixLength, k) for k up to maxEditDistance, 29 keys with the defaults).
+ * Terms are weighted by how often they occur across active products, so ties go to the common word.
+ */
+@Component
+public class SpellingDictionary implements CatalogIndex {
+
+    // Shorter query terms are too ambiguous to correct
+    private static final int MIN_TERM_LENGTH = 3;
+
+    private final int maxEditDistance;
+    private final int prefixLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> frequencies = new HashMap<>();
+    // Prefix delete -> vocabulary terms that produce it
+    private final Map<String, List<String>> deletes = new HashMap<>();
+    // Terms each product contributed, with repeats, so an update can be undone exactly
+    private final Map<Long, String[]> termsByProduct = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public SpellingDictionary(@Value("${catalog.spelling.max-edit-distance:2}") int maxEditDistance,
+                              @Value("${catalog.spelling.prefix-length:7}") int prefixLength) {
+        if (maxEditDistance < 1 || prefixLength <= maxEditDistance) {
+            throw new IllegalArgumentException("catalog.spelling needs max-edit-distance >= 1 and prefix-length > max-edit-distance");
+        }
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Number of distinct vocabulary terms
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return frequencies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of delete keys held for the vocabulary
+     */
+    public int deleteCount() {
+        lock.readLock().lock();
+        try {
+            return deletes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild(List<Product> activeProducts) {
+        lock.writeLock().lock();
+        try {
+            frequencies.clear();
+            deletes.clear();
+            termsByProduct.clear();
+            for (Product product : activeProducts) {
+                addProduct(product);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removeProduct(product.getId());
+                addProduct(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : productIds) {
+                removeProduct(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Correct every misspelled term of the query.
+     *
+     * @return the corrected query as folded terms, or null when every term is known or nothing close enough exists
+     */
+    public String correct(String query) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        boolean changed = false;
+        List<String> corrected = new ArrayList<>(terms.size());
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                String suggestion = lookup(term);
+                if (suggestion != null && !suggestion.equals(term)) {
+                    corrected.add(suggestion);
+                    changed = true;
+                } else {
+                    corrected.add(term);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return changed ? String.join(" ", corrected) : null;
+    }
+
+    /**
+     * Closest vocabulary term within maxEditDistance (the term itself when known), most frequent on ties; null if none.
+     * The term must already be folded.
+     */
+    public String suggest(String term) {
+        lock.readLock().lock();
+        try {
+            return lookup(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String lookup(String term) {
+        if (frequencies.containsKey(term)) {
+            return term;
+        }
+        if (term.length() < MIN_TERM_LENGTH) {
+            return null;
+        }
+        String best = null;
+        int bestDistance = maxEditDistance + 1;
+        int bestFrequency = 0;
+
+        // Breadth-first over the query prefix's deletes, so candidates arrive in order of deletes needed
+        String prefix = term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+        List<String> level = List.of(prefix);
+        Set<String> seen = new HashSet<>();
+        seen.add(prefix);
+        Set<String> checked = new HashSet<>();
+        for (int deleted = 0; deleted <= maxEditDistance && !level.isEmpty(); deleted++) {
+            if (deleted > bestDistance) {
+                break;
+            }
+            List<String> next = new ArrayList<>();
+            for (String candidate : level) {
+                List<String> suggestions = deletes.get(candidate);
+                if (suggestions != null) {
+                    for (String suggestion : suggestions) {
+                        if (Math.abs(suggestion.length() - term.length()) > maxEditDistance || !checked.add(suggestion)) {
+                            continue;
+                        }
+                        int distance = distance(term, suggestion, Math.min(bestDistance, maxEditDistance));
+                        if (distance < 0) {
+                            continue;
+                        }
+                        int frequency = frequencies.getOrDefault(suggestion, 0);
+                        if (distance < bestDistance || (distance == bestDistance && frequency > bestFrequency)) {
+                            best = suggestion;
+                            bestDistance = distance;
+                            bestFrequency = frequency;
+                        }
+                    }
+                }
+                if (deleted < maxEditDistance && candidate.length() > 1) {
+                    for (int i = 0; i < candidate.length(); i++) {
+                        String shorter = candidate.substring(0, i) + candidate.substring(i + 1);
+                        if (seen.add(shorter)) {
+                            next.add(shorter);
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+        return best;
+    }
+
+    private void addProduct(Product product) {
+        List<String> terms = new ArrayList<>();
+        collect(terms, product.getName());
+        collect(terms, product.getBrand() != null ? product.getBrand().getName() : null);
+        collect(terms, product.getCategory() != null ? product.getCategory().getName() : null);
+        if (terms.isEmpty()) {
+            return;
+        }
+        for (String term : terms) {
+            if (frequencies.merge(term, 1, Integer::sum) == 1) {
+                for (String delete : prefixDeletes(term)) {
+                    deletes.computeIfAbsent(delete, d -> new ArrayList<>(1)).add(term);
+                }
+            }
+        }
+        termsByProduct.put(product.getId(), terms.toArray(new String[0]));
+    }
+
+    private void removeProduct(Long productId) {
+        String[] terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Integer remaining = frequencies.computeIfPresent(term, (t, count) -> count > 1 ? count - 1 : null);
+            if (remaining == null) {
+                for (String delete : prefixDeletes(term)) {
+                    List<String> owners = deletes.get(delete);
+                    if (owners != null && owners.remove(term) && owners.isEmpty()) {
+                        deletes.remove(delete);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void collect(List<String> terms, String text) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            if (token.length() >= MIN_TERM_LENGTH && !isNumber(token)) {
+                terms.add(token);
+            }
+        }
+    }
+
+    private static boolean isNumber(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The term's prefix and every string reachable from it by deleting up to maxEditDistance characters
+     */
+    private Set<String> prefixDeletes(String term) {
+        String prefix = term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+        Set<String> result = new LinkedHashSet<>();
+        result.add(prefix);
+        List<String> level = List.of(prefix);
+        for (int deleted = 1; deleted <= maxEditDistance; deleted++) {
+            List<String> next = new ArrayList<>();
+            for (String word : level) {
+                if (word.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < word.length(); i++) {
+                    String shorter = word.substring(0, i) + word.substring(i + 1);
+                    if (result.add(shorter)) {
+                        next.add(shorter);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (edits plus adjacent transpositions), or -1 once it exceeds max
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return -1;
+        }
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return -1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= max ? previous[m] : -1;
+    }
+}
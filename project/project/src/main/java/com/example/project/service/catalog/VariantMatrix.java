@@ -0,0 +1,266 @@
+package com.example.project.service.catalog;
+
+import com.example.project.entity.ProductVariant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable attribute index over one product's active variants.
+ * Attribute values are dictionary-encoded per attribute; each value keeps a bitset of the variants that carry it,
+ * and a packed availability bitset marks the variants in stock. "Which colors can still be bought in size M" is
+ * then a few word-wise ANDs over the bitsets, with no JSON parsing or variant loading per request.
+ */
+public class VariantMatrix {
+
+    static final List<String> FIXED_ATTRIBUTES = List.of("size", "color", "material", "style");
+
+    private final Long productId;
+    private final List<String> attributes;
+    // Per attribute: code -> value, value -> code
+    private final List<List<String>> dictionaries;
+    private final List<Map<String, Integer>> codesByValue;
+    // Per attribute, per code: bitset of variant ordinals carrying that value
+    private final long[][][] valueBits;
+    // codes[variant * attributes + attribute], -1 when the variant has no value for it
+    private final int[] codes;
+    private final long[] available;
+    private final int[] stock;
+    private final long[] variantIds;
+    private final String[] skus;
+    private final BigDecimal[] prices;
+
+    private VariantMatrix(Long productId, List<String> attributes, List<List<String>> dictionaries,
+                          int[] codes, int[] stock, long[] variantIds, String[] skus, BigDecimal[] prices) {
+        this.productId = productId;
+        this.attributes = List.copyOf(attributes);
+        this.dictionaries = dictionaries;
+        this.codes = codes;
+        this.stock = stock;
+        this.variantIds = variantIds;
+        this.skus = skus;
+        this.prices = prices;
+
+        int variantCount = stock.length;
+        int words = (variantCount + 63) >>> 6;
+        this.available = new long[words];
+        for (int v = 0; v < variantCount; v++) {
+            if (stock[v] > 0) {
+                available[v >>> 6] |= 1L << v;
+            }
+        }
+        this.codesByValue = new ArrayList<>(attributes.size());
+        this.valueBits = new long[attributes.size()][][];
+        for (int a = 0; a < attributes.size(); a++) {
+            List<String> dictionary = dictionaries.get(a);
+            Map<String, Integer> lookup = new HashMap<>();
+            for (int c = 0; c < dictionary.size(); c++) {
+                lookup.put(dictionary.get(c), c);
+            }
+            codesByValue.add(lookup);
+            valueBits[a] = new long[dictionary.size()][words];
+            for (int v = 0; v < variantCount; v++) {
+                int code = codes[v * attributes.size() + a];
+                if (code >= 0) {
+                    valueBits[a][code][v >>> 6] |= 1L << v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encode the given active variants. Besides size/color/material/style, every scalar key of the
+     * additionalAttributes JSON becomes an attribute; unparseable blobs are ignored.
+     */
+    public static VariantMatrix of(Long productId, List<ProductVariant> variants, ObjectMapper objectMapper) {
+        List<Map<String, String>> valuesByVariant = new ArrayList<>(variants.size());
+        TreeSet<String> extraAttributes = new TreeSet<>();
+        for (ProductVariant variant : variants) {
+            Map<String, String> values = new LinkedHashMap<>();
+            putValue(values, "size", variant.getSize());
+            putValue(values, "color", variant.getColor());
+            putValue(values, "material", variant.getMaterial());
+            putValue(values, "style", variant.getStyle());
+            for (Map.Entry<String, String> extra : parseAdditional(variant.getAdditionalAttributes(), objectMapper).entrySet()) {
+                if (!FIXED_ATTRIBUTES.contains(extra.getKey()) && putValue(values, extra.getKey(), extra.getValue())) {
+                    extraAttributes.add(extra.getKey());
+                }
+            }
+            valuesByVariant.add(values);
+        }
+
+        // Only attributes some variant actually sets, fixed ones first
+        List<String> attributes = new ArrayList<>();
+        for (String attribute : FIXED_ATTRIBUTES) {
+            if (valuesByVariant.stream().anyMatch(values -> values.containsKey(attribute))) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.addAll(extraAttributes);
+
+        List<List<String>> dictionaries = new ArrayList<>(attributes.size());
+        List<Map<String, Integer>> lookups = new ArrayList<>(attributes.size());
+        for (int a = 0; a < attributes.size(); a++) {
+            dictionaries.add(new ArrayList<>());
+            lookups.add(new HashMap<>());
+        }
+        int n = variants.size();
+        int[] codes = new int[n * attributes.size()];
+        int[] stock = new int[n];
+        long[] variantIds = new long[n];
+        String[] skus = new String[n];
+        BigDecimal[] prices = new BigDecimal[n];
+        for (int v = 0; v < n; v++) {
+            ProductVariant variant = variants.get(v);
+            Map<String, String> values = valuesByVariant.get(v);
+            for (int a = 0; a < attributes.size(); a++) {
+                String value = values.get(attributes.get(a));
+                int code = -1;
+                if (value != null) {
+                    List<String> dictionary = dictionaries.get(a);
+                    code = lookups.get(a).computeIfAbsent(value, k -> {
+                        dictionary.add(k);
+                        return dictionary.size() - 1;
+                    });
+                }
+                codes[v * attributes.size() + a] = code;
+            }
+            stock[v] = variant.getStockQuantity() != null ? Math.max(0, variant.getStockQuantity()) : 0;
+            variantIds[v] = variant.getId();
+            skus[v] = variant.getSku();
+            prices[v] = variant.getPrice();
+        }
+        List<List<String>> frozen = new ArrayList<>(dictionaries.size());
+        for (List<String> dictionary : dictionaries) {
+            frozen.add(List.copyOf(dictionary));
+        }
+        return new VariantMatrix(productId, attributes, List.copyOf(frozen), codes, stock, variantIds, skus, prices);
+    }
+
+    private static boolean putValue(Map<String, String> values, String attribute, String value) {
+        if (value == null || value.isBlank()) {
+            return false;
+        }
+        values.put(attribute, value.trim());
+        return true;
+    }
+
+    private static Map<String, String> parseAdditional(String json, ObjectMapper objectMapper) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (json == null || json.isBlank()) {
+            return values;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (node != null && node.isObject()) {
+                for (Map.Entry<String, JsonNode> field : node.properties()) {
+                    if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+                        values.put(field.getKey().trim().toLowerCase(Locale.ROOT), field.getValue().asText());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Free-form column; a malformed blob just contributes no attributes
+        }
+        return values;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    public List<String> getValues(int attribute) {
+        return dictionaries.get(attribute);
+    }
+
+    public int getVariantCount() {
+        return stock.length;
+    }
+
+    public long getVariantId(int variant) { return variantIds[variant]; }
+    public String getSku(int variant) { return skus[variant]; }
+    public BigDecimal getPrice(int variant) { return prices[variant]; }
+    public int getStock(int variant) { return stock[variant]; }
+
+    public boolean isAvailable(int variant) {
+        return (available[variant >>> 6] & (1L << variant)) != 0;
+    }
+
+    /**
+     * Dictionary code of the variant's value for the attribute, or -1
+     */
+    public int getCode(int variant, int attribute) {
+        return codes[variant * attributes.size() + attribute];
+    }
+
+    /**
+     * Variants matching every selected attribute value except the one at {@code ignoredAttribute}
+     * (-1 to apply them all). Unknown attributes are ignored; an unknown value matches nothing.
+     */
+    public long[] matching(Map<String, String> selection, int ignoredAttribute) {
+        long[] mask = new long[available.length];
+        int variantCount = stock.length;
+        for (int v = 0; v < variantCount; v++) {
+            mask[v >>> 6] |= 1L << v;
+        }
+        for (Map.Entry<String, String> selected : selection.entrySet()) {
+            int a = attributes.indexOf(selected.getKey());
+            if (a < 0 || a == ignoredAttribute) {
+                continue;
+            }
+            Integer code = selected.getValue() != null ? codesByValue.get(a).get(selected.getValue().trim()) : null;
+            if (code == null) {
+                return new long[available.length];
+            }
+            long[] bits = valueBits[a][code];
+            for (int w = 0; w < mask.length; w++) {
+                mask[w] &= bits[w];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Total stock of the variants in the mask that carry the given value
+     */
+    public int stockFor(long[] mask, int attribute, int code) {
+        long[] bits = valueBits[attribute][code];
+        int total = 0;
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w] & bits[w] & available[w];
+            while (word != 0) {
+                total += stock[(w << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Variant ordinals set in the mask, ascending
+     */
+    public List<Integer> ordinals(long[] mask) {
+        List<Integer> ordinals = new ArrayList<>();
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                ordinals.add((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return ordinals;
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.project.service.recommendation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Item-to-item collaborative filtering for "viewed also viewed": two products are related by how often the same
+ * users viewed (weight 1), carted (3) or bought (5) both within the pairing window. A pair counts the weaker of
+ * the two interactions, once per user; repeating an interaction adds nothing, upgrading it adds the difference.
+ * Counts decay exponentially with the configured half-life, and neighbours are ranked by count over the
+ * geometric mean of both products' own decayed totals, so bestsellers do not neighbour everything.
+ * <p>
+ * Events are read incrementally, in batches after the last user_behaviors and order_items ids seen, by a
+ * background refresh; the first one reads the whole history. Each batch is paired up on one thread (user
+ * histories are shared state), then applied in parallel: products are split into partitions, each owning its
+ * products' sparse rows, so partitions never touch the same row. Rows are pruned to the strongest candidates,
+ * and every product whose row changed gets a fresh compact neighbour array, replaced as a whole, which is
+ * what requests read, without locks.
+ * <p>
+ * Decay uses a forward landmark: a count added at time t is weighted by 2^((t - landmark) / half-life), which
+ * ranks exactly like decaying every count to now, since all counts of a product share the factor. When the
+ * weights grow large, the landmark moves forward and everything is scaled down once.
+ * Everything is in memory and rebuilt from the database at startup; cancelled orders stay counted if they
+ * were read before being cancelled, and fade out with the rest.
+ */
+@Service
+public class ItemCooccurrenceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemCooccurrenceIndex.class);
+
+    static final float VIEW_WEIGHT = 1;
+    static final float CART_WEIGHT = 3;
+    static final float PURCHASE_WEIGHT = 5;
+
+    // Recent products remembered per user for pairing
+    private static final int HISTORY_SIZE = 50;
+    // Rows grow to this many neighbours per kept one before being pruned back to half
+    private static final int ROW_SLACK = 4;
+    // Landmark weights stay below e^200, far from the double range, for any batch spanning less than ~700 half-lives
+    private static final double MAX_EXPONENT = 200;
+
+    private static final String BEHAVIOR_SQL =
+            "SELECT id, user_id, product_id, behavior_type, created_at FROM user_behaviors"
+                    + " WHERE id > ? AND product_id IS NOT NULL AND behavior_type IN ('PRODUCT_VIEW', 'ADD_TO_CART')"
+                    + " ORDER BY id LIMIT ?";
+    private static final String PURCHASE_SQL =
+            "SELECT oi.id, o.user_id, oi.product_id, o.created_at FROM order_items oi JOIN orders o ON o.id = oi.order_id"
+                    + " WHERE oi.id > ? AND oi.product_id IS NOT NULL AND o.user_id IS NOT NULL"
+                    + " AND o.order_status NOT IN ('CANCELLED', 'REFUNDED') ORDER BY oi.id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${catalog.cooccurrence.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.cooccurrence.interval:60s}")
+    private Duration interval;
+
+    @Value("${catalog.cooccurrence.batch-size:50000}")
+    private int batchSize;
+
+    private final int neighbours;
+    private final long windowSeconds;
+    private final double decayPerSecond;
+    private final Partition[] partitions;
+
+    // Owned by the refresh (pairing) thread
+    private final Map<Long, UserHistory> histories = new HashMap<>();
+    private final LongDoubleHashMap totals = new LongDoubleHashMap(1024);
+    private long landmark = Long.MIN_VALUE;
+    private long lastBehaviorId;
+    private long lastOrderItemId;
+
+    private final ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+    private volatile long processedEvents;
+
+    public ItemCooccurrenceIndex(@Value("${catalog.cooccurrence.partitions:16}") int partitions,
+                                 @Value("${catalog.cooccurrence.neighbours:20}") int neighbours,
+                                 @Value("${catalog.cooccurrence.window:7d}") Duration window,
+                                 @Value("${catalog.cooccurrence.half-life:30d}") Duration halfLife) {
+        if (partitions < 1 || neighbours < 1 || window.isNegative() || halfLife.isZero() || halfLife.isNegative()) {
+            throw new IllegalArgumentException("Co-occurrence needs partitions >= 1, neighbours >= 1, a window and a half-life");
+        }
+        this.neighbours = neighbours;
+        this.windowSeconds = window.getSeconds();
+        this.decayPerSecond = Math.log(2) / halfLife.getSeconds();
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition();
+        }
+        int threads = Math.min(partitions, Runtime.getRuntime().availableProcessors());
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("item-cooccurrence"));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("item-cooccurrence-refresh"));
+        // The first run reads the whole history in batches, off the startup path
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * Products most related to this one, strongest first; empty until it has co-occurred with anything
+     */
+    public Neighbours getNeighbours(long productId) {
+        return partitions[partition(productId)].published.getOrDefault(productId, Neighbours.EMPTY);
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    /**
+     * Read and apply every event recorded since the last refresh
+     *
+     * @return the number of events applied
+     */
+    public synchronized int refresh() {
+        long start = System.currentTimeMillis();
+        int applied = 0;
+        while (true) {
+            List<Event> batch = new ArrayList<>();
+            // Last ids read, kept only once the batch is applied
+            long[] lastIds = { lastBehaviorId, lastOrderItemId };
+            int behaviors = readBehaviors(batch, lastIds);
+            int purchases = readPurchases(batch, lastIds);
+            apply(batch);
+            lastBehaviorId = lastIds[0];
+            lastOrderItemId = lastIds[1];
+            applied += batch.size();
+            if (behaviors < batchSize && purchases < batchSize) {
+                break;
+            }
+        }
+        if (applied > 0) {
+            logger.info("Applied {} behavior and purchase events to item co-occurrence in {} ms",
+                    applied, System.currentTimeMillis() - start);
+        }
+        return applied;
+    }
+
+    /**
+     * Pair up and apply one batch of events, in time order
+     */
+    synchronized void apply(List<Event> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.sort(Comparator.comparingLong(Event::getTime));
+        long first = batch.get(0).getTime();
+        long last = batch.get(batch.size() - 1).getTime();
+        double scale = 1;
+        if (landmark == Long.MIN_VALUE) {
+            landmark = first;
+        } else if (decayPerSecond * (last - landmark) > MAX_EXPONENT) {
+            scale = Math.exp(-decayPerSecond * (first - landmark));
+            totals.scale(scale);
+            landmark = first;
+        }
+
+        for (Event event : batch) {
+            pair(event);
+        }
+        // Users idle for longer than the window can no longer pair with anything
+        histories.values().removeIf(history -> history.newest < last - windowSeconds);
+
+        double rowScale = scale;
+        List<Callable<Void>> tasks = new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+            tasks.add(() -> {
+                partition.apply(rowScale);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while applying co-occurrence batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not apply co-occurrence batch", e.getCause());
+        }
+        processedEvents += batch.size();
+    }
+
+    // Pairs the event with the user's recent products into the partitions' pending buffers
+    private void pair(Event event) {
+        double weight = Math.exp(decayPerSecond * (event.getTime() - landmark));
+        UserHistory history = histories.computeIfAbsent(event.getUserId(), id -> new UserHistory());
+        float previous = history.weightOf(event.getProductId(), event.getTime(), windowSeconds);
+        if (event.getWeight() <= previous) {
+            history.record(event.getProductId(), event.getTime(), previous);
+            return;
+        }
+        totals.add(event.getProductId(), (event.getWeight() - previous) * weight);
+        for (int i = 0; i < history.size; i++) {
+            long other = history.products[i];
+            // Two-sided: behaviors and purchases are read as separate id streams, so a history can already
+            // hold events newer than this one
+            if (other == event.getProductId() || Math.abs(event.getTime() - history.times[i]) > windowSeconds) {
+                continue;
+            }
+            float otherWeight = history.weights[i];
+            double delta = (Math.min(event.getWeight(), otherWeight) - Math.min(previous, otherWeight)) * weight;
+            if (delta > 0) {
+                partitions[partition(event.getProductId())].buffer(event.getProductId(), other, delta);
+                partitions[partition(other)].buffer(other, event.getProductId(), delta);
+            }
+        }
+        history.record(event.getProductId(), event.getTime(), event.getWeight());
+    }
+
+    private int readBehaviors(List<Event> batch, long[] lastIds) {
+        List<Event> read = jdbcTemplate.query(BEHAVIOR_SQL, (rs, row) -> {
+            lastIds[0] = Math.max(lastIds[0], rs.getLong("id"));
+            float weight = "ADD_TO_CART".equals(rs.getString("behavior_type")) ? CART_WEIGHT : VIEW_WEIGHT;
+            return event(rs, weight);
+        }, lastIds[0], batchSize);
+        addDated(batch, read);
+        return read.size();
+    }
+
+    private int readPurchases(List<Event> batch, long[] lastIds) {
+        List<Event> read = jdbcTemplate.query(PURCHASE_SQL, (rs, row) -> {
+            lastIds[1] = Math.max(lastIds[1], rs.getLong("id"));
+            return event(rs, PURCHASE_WEIGHT);
+        }, lastIds[1], batchSize);
+        addDated(batch, read);
+        return read.size();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Item co-occurrence refresh failed, retrying next run: {}", e.getMessage());
+        }
+    }
+
+    private int partition(long productId) {
+        return (int) Math.floorMod(productId, (long) partitions.length);
+    }
+
+    /**
+     * The row as an event, or null when it has no created_at: rows written before the entities set it on insert
+     * cannot be placed in time, and stamping them all with the read time would pair a user's whole history
+     */
+    private static Event event(ResultSet rs, float weight) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt == null) {
+            return null;
+        }
+        return new Event(rs.getLong("user_id"), rs.getLong("product_id"), createdAt.toInstant().getEpochSecond(), weight);
+    }
+
+    private static void addDated(List<Event> batch, List<Event> read) {
+        for (Event event : read) {
+            if (event != null) {
+                batch.add(event);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Inner classes
+    /**
+     * Rows and published neighbours of the products hashed to one partition. Pairs are buffered by the
+     * pairing thread and applied by one worker; only the published map is read concurrently.
+     */
+    private final class Partition {
+        final Map<Long, LongDoubleHashMap> rows = new HashMap<>();
+        final Map<Long, Neighbours> published = new ConcurrentHashMap<>();
+        long[] from = new long[256];
+        long[] to = new long[256];
+        double[] deltas = new double[256];
+        int pending;
+
+        void buffer(long product, long other, double delta) {
+            if (pending == from.length) {
+                from = Arrays.copyOf(from, pending * 2);
+                to = Arrays.copyOf(to, pending * 2);
+                deltas = Arrays.copyOf(deltas, pending * 2);
+            }
+            from[pending] = product;
+            to[pending] = other;
+            deltas[pending++] = delta;
+        }
+
+        void apply(double scale) {
+            if (scale != 1) {
+                // Scores are ratios of counts that all scale alike, so published neighbours stay valid
+                for (LongDoubleHashMap row : rows.values()) {
+                    row.scale(scale);
+                }
+            }
+            LongDoubleHashMap touched = new LongDoubleHashMap(pending);
+            for (int i = 0; i < pending; i++) {
+                rows.computeIfAbsent(from[i], id -> new LongDoubleHashMap(8)).add(to[i], deltas[i]);
+                touched.add(from[i], 0);
+            }
+            pending = 0;
+            touched.forEach((product, ignored) -> {
+                LongDoubleHashMap row = rows.get(product);
+                if (row.size() > ROW_SLACK * neighbours) {
+                    row.retainTop(ROW_SLACK / 2 * neighbours);
+                }
+                published.put(product, rank(product, row));
+            });
+            if (from.length > 1 << 16) {
+                from = new long[256];
+                to = new long[256];
+                deltas = new double[256];
+            }
+        }
+
+        // Top neighbours by count / sqrt(total(product) * total(other)), best first
+        private Neighbours rank(long product, LongDoubleHashMap row) {
+            double own = totals.get(product);
+            long[] ids = new long[neighbours];
+            float[] scores = new float[neighbours];
+            int[] size = new int[1];
+            row.forEach((other, count) -> {
+                double denominator = Math.sqrt(own * totals.get(other));
+                float score = denominator > 0 ? (float) Math.min(1, count / denominator) : 0;
+                int n = size[0];
+                if (n == ids.length && score <= scores[n - 1]) {
+                    return;
+                }
+                int i = n == ids.length ? n - 1 : n;
+                while (i > 0 && scores[i - 1] < score) {
+                    ids[i] = ids[i - 1];
+                    scores[i] = scores[i - 1];
+                    i--;
+                }
+                ids[i] = other;
+                scores[i] = score;
+                size[0] = Math.min(ids.length, n + 1);
+            });
+            return new Neighbours(Arrays.copyOf(ids, size[0]), Arrays.copyOf(scores, size[0]));
+        }
+    }
+
+    /**
+     * Products one user interacted with recently, oldest overwritten first
+     */
+    private static final class UserHistory {
+        final long[] products = new long[HISTORY_SIZE];
+        final long[] times = new long[HISTORY_SIZE];
+        final float[] weights = new float[HISTORY_SIZE];
+        int size;
+        long newest;
+
+        float weightOf(long product, long time, long windowSeconds) {
+            for (int i = 0; i < size; i++) {
+                if (products[i] == product) {
+                    return Math.abs(time - times[i]) <= windowSeconds ? weights[i] : 0;
+                }
+            }
+            return 0;
+        }
+
+        void record(long product, long time, float weight) {
+            newest = Math.max(newest, time);
+            int slot = -1;
+            for (int i = 0; i < size; i++) {
+                if (products[i] == product) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0 && size < HISTORY_SIZE) {
+                slot = size++;
+            } else if (slot < 0) {
+                slot = 0;
+                for (int i = 1; i < size; i++) {
+                    if (times[i] < times[slot]) {
+                        slot = i;
+                    }
+                }
+            }
+            // An older event for a remembered product keeps the newer time
+            times[slot] = slot < size && products[slot] == product ? Math.max(times[slot], time) : time;
+            products[slot] = product;
+            weights[slot] = weight;
+        }
+    }
+
+    /**
+     * One user interacting with one product at a time (epoch seconds) with the interaction's weight
+     */
+    static final class Event {
+        private final long userId;
+        private final long productId;
+        private final long time;
+        private final float weight;
+
+        Event(long userId, long productId, long time, float weight) {
+            this.userId = userId;
+            this.productId = productId;
+            this.time = time;
+            this.weight = weight;
+        }
+
+        long getUserId() { return userId; }
+        long getProductId() { return productId; }
+        long getTime() { return time; }
+        float getWeight() { return weight; }
+    }
+
+    /**
+     * Neighbour product ids and scores (0..1), best first, in two flat arrays
+     */
+    public static class Neighbours {
+        static final Neighbours EMPTY = new Neighbours(new long[0], new float[0]);
+
+        private final long[] productIds;
+        private final float[] scores;
+
+        Neighbours(long[] productIds, float[] scores) {
+            this.productIds = productIds;
+            this.scores = scores;
+        }
+
+        public int size() { return productIds.length; }
+        public long getProductId(int i) { return productIds[i]; }
+        public float getScore(int i) { return scores[i]; }
+    }
+}
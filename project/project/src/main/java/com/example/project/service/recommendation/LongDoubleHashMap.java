@@ -0,0 +1,141 @@
+package com.example.project.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from positive long keys (product ids) to double sums, linear probing over parallel
+ * arrays, so a co-occurrence row costs 16 bytes per slot instead of two boxed objects and an entry per pair.
+ * Key 0 marks a free slot. Not thread-safe.
+ */
+final class LongDoubleHashMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+    private int mask;
+
+    LongDoubleHashMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    int size() {
+        return size;
+    }
+
+    double get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Add delta to the key's sum, inserting the key at delta if absent
+     */
+    void add(long key, double delta) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive, got " + key);
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > (mask + 1) * LOAD_FACTOR) {
+            rehash(capacityFor(size));
+        }
+    }
+
+    void scale(double factor) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= factor;
+        }
+    }
+
+    /**
+     * Keep the n keys with the largest sums, ties broken arbitrarily
+     */
+    void retainTop(int n) {
+        if (size <= n) {
+            return;
+        }
+        double[] sorted = new double[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                sorted[count++] = values[i];
+            }
+        }
+        Arrays.sort(sorted);
+        double threshold = sorted[size - n];
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacityFor(n));
+        size = 0;
+        // Strictly above the threshold first, then ties up to n
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < oldKeys.length && size < n; i++) {
+                if (oldKeys[i] != 0 && (pass == 0 ? oldValues[i] > threshold : oldValues[i] == threshold)) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    size++;
+                }
+            }
+        }
+    }
+
+    void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Slot holding the key, or the free slot where it belongs
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.ceil(Math.max(1, entries) / LOAD_FACTOR) + 1;
+        return Math.max(4, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    // Sequential ids would otherwise fill neighbouring slots
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, double value);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.project.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+ * Reads one record at a time, so memory stays bounded by the longest record.
+ */
+public class CsvRecordReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder(64);
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Next record, or null at end of input. Blank lines are skipped.
+     */
+    public String[] next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean sawAny = false;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (!sawAny) {
+                    return null;
+                }
+                fields.add(field.toString());
+                break;
+            }
+            sawAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (fields.isEmpty() && field.length() == 0) {
+                    // Blank line
+                    sawAny = false;
+                    continue;
+                }
+                fields.add(field.toString());
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        recordNumber++;
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Number of records returned so far
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.project.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset-pagination positions as opaque continuation tokens.
+ * A token carries the sort it was issued for, the last sort key and the last id.
+ */
+public final class CursorCodec {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "\u001F";
+
+    private CursorCodec() {}
+
+    public static String encode(String sort, String lastKey, Long lastId) {
+        String raw = String.join(SEPARATOR, VERSION, sort, lastKey != null ? lastKey : "", String.valueOf(lastId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token issued for the given sort
+     *
+     * @throws IllegalArgumentException if the token is malformed or was issued for another sort
+     */
+    public static Cursor decode(String token, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        String[] parts = raw.split(SEPARATOR, -1);
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[1].equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + parts[1] + "', not '" + expectedSort + "'");
+        }
+        try {
+            return new Cursor(parts[2], Long.valueOf(parts[3]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public static class Cursor {
+        private final String lastKey;
+        private final Long lastId;
+
+        public Cursor(String lastKey, Long lastId) {
+            this.lastKey = lastKey;
+            this.lastId = lastId;
+        }
+
+        public String getLastKey() { return lastKey; }
+        public Long getLastId() { return lastId; }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.project.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared text analysis for catalog and address search: Unicode case folding, diacritic stripping
+ * ("Điện thoại" and "dien thoai" both become "dien thoai"), tokenization and character n-grams.
+ *
+ * Folding is a single table lookup per char. The streaming methods write into a reusable buffer and
+ * hand tokens to a {@link TokenSink} as (buffer, offset, length), so analysis allocates nothing unless
+ * the sink does. Instances are not thread-safe; use {@link #local()} for a per-thread instance.
+ */
+public final class TextAnalyzer {
+
+    // Fold table covers Latin, Latin Extended and Latin Extended Additional (where Vietnamese lives)
+    private static final int TABLE_SIZE = 0x2000;
+    private static final char SEPARATOR = 0;
+    private static final char SKIP = 1;
+    private static final char[] FOLD = new char[TABLE_SIZE];
+
+    static {
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            FOLD[c] = computeFold((char) c);
+        }
+    }
+
+    private static final ThreadLocal<TextAnalyzer> LOCAL = ThreadLocal.withInitial(TextAnalyzer::new);
+
+    private char[] buffer = new char[256];
+    private char[] gram = new char[16];
+
+    /**
+     * Receives one token or n-gram; the buffer is reused, so copy out what you keep
+     */
+    @FunctionalInterface
+    public interface TokenSink {
+        void accept(char[] buffer, int offset, int length);
+    }
+
+    /**
+     * The analyzer owned by the current thread
+     */
+    public static TextAnalyzer local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Folded form of one char: lowercase base letter or digit, {@code 0} for a separator,
+     * {@code 1} for a combining mark that should be dropped without splitting the token
+     */
+    public static char fold(char c) {
+        if (c < TABLE_SIZE) {
+            return FOLD[c];
+        }
+        if (Character.getType(c) == Character.NON_SPACING_MARK) {
+            return SKIP;
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : SEPARATOR;
+    }
+
+    /**
+     * Stream the folded tokens of the text
+     */
+    public void tokens(CharSequence text, TokenSink sink) {
+        if (text == null) {
+            return;
+        }
+        int length = foldInto(text);
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && buffer[i] != SEPARATOR;
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                sink.accept(buffer, start, i - start);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Stream the character n-grams of every folded token, padded with '_' at word boundaries
+     * so prefixes and suffixes get their own grams ("_di", "die", "ien", "en_" for n = 3)
+     */
+    public void ngrams(CharSequence text, int n, TokenSink sink) {
+        tokens(text, (tokenBuffer, offset, length) -> emitNgrams(tokenBuffer, offset, length, n, sink));
+    }
+
+    /**
+     * N-grams of a single already-folded token
+     */
+    public void ngrams(char[] token, int offset, int length, int n, TokenSink sink) {
+        emitNgrams(token, offset, length, n, sink);
+    }
+
+    private void emitNgrams(char[] token, int offset, int length, int n, TokenSink sink) {
+        int padded = length + 2;
+        if (gram.length < padded) {
+            gram = new char[Math.max(padded, gram.length * 2)];
+        }
+        gram[0] = '_';
+        System.arraycopy(token, offset, gram, 1, length);
+        gram[padded - 1] = '_';
+        if (padded <= n) {
+            sink.accept(gram, 0, padded);
+            return;
+        }
+        for (int i = 0; i + n <= padded; i++) {
+            sink.accept(gram, i, n);
+        }
+    }
+
+    /**
+     * Fold the text into the reusable buffer; returns the folded length (combining marks removed)
+     */
+    private int foldInto(CharSequence text) {
+        int length = text.length();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        int out = 0;
+        for (int i = 0; i < length; i++) {
+            char folded = fold(text.charAt(i));
+            if (folded != SKIP) {
+                buffer[out++] = folded;
+            }
+        }
+        return out;
+    }
+
+    // Convenience helpers for callers that want Strings
+
+    /**
+     * Folded tokens as strings
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        local().tokens(text, (buf, offset, length) -> tokens.add(new String(buf, offset, length)));
+        return tokens;
+    }
+
+    /**
+     * Folded tokens joined by single spaces, e.g. "  Hồ Chí Minh!" -> "ho chi minh"
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        local().tokens(text, (buf, offset, length) -> {
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(buf, offset, length);
+        });
+        return out.toString();
+    }
+
+    /**
+     * Distinct n-grams of a folded term, for fuzzy term lookup
+     */
+    public static String[] termNgrams(String term, int n) {
+        List<String> grams = new ArrayList<>();
+        local().ngrams(term.toCharArray(), 0, term.length(), n, (buf, offset, length) -> {
+            String gram = new String(buf, offset, length);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        });
+        return grams.toArray(new String[0]);
+    }
+
+    private static char computeFold(char c) {
+        if (c == 'Đ' || c == 'đ') {
+            // Đ/đ has no decomposition
+            return 'd';
+        }
+        int type = Character.getType(c);
+        if (type == Character.NON_SPACING_MARK) {
+            return SKIP;
+        }
+        if (!Character.isLetterOrDigit(c)) {
+            return SEPARATOR;
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char base = Character.toLowerCase(decomposed.charAt(0));
+        return Character.isLetterOrDigit(base) ? base : Character.toLowerCase(c);
+    }
+}
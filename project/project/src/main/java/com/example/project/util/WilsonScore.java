@@ -0,0 +1,25 @@
+package com.example.project.util;
+
+/**
+ * Lower bound of the Wilson score interval for a positive-vote share.
+ * Ranks "3 of 3 found this helpful" below "95 of 100", unlike the raw ratio.
+ */
+public final class WilsonScore {
+
+    // 95% confidence
+    private static final double Z = 1.96;
+
+    private WilsonScore() {}
+
+    public static double lowerBound(long positive, long total) {
+        if (total <= 0) {
+            return 0.0;
+        }
+        double n = total;
+        double share = Math.min(Math.max(positive, 0), total) / n;
+        double z2 = Z * Z;
+        double centre = share + z2 / (2 * n);
+        double margin = Z * Math.sqrt((share * (1 - share) + z2 / (4 * n)) / n);
+        return (centre - margin) / (1 + z2 / n);
+    }
+}
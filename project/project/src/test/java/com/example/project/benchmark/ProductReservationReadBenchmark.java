@@ -0,0 +1,212 @@
+package com.example.project.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes read per stock reservation before and after moving the heavy text columns to product_content.
+ * Each operation is the product row load InventoryService.reserveInventory triggers: with everything in one
+ * products row (legacy) and with only the core row, content left unread behind its lazy reference (split).
+ * Runs against in-memory H2 with content sized like enriched products (a 1536-dimension embedding as JSON).
+ * Bytes per reservation = bytesRead / reservations from the secondary results.
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt; org.openjdk.jmh.Main ProductReservationReadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductReservationReadBenchmark {
+
+    private static final int PRODUCTS = 2_000;
+
+    private static final String CORE_COLUMNS = "id, name, sku, price, compare_at_price, cost_price, stock_quantity, "
+            + "low_stock_threshold, weight, dimensions, is_active, is_featured, is_digital, requires_shipping, "
+            + "seo_title, seo_description, view_count, purchase_count, average_rating, review_count, "
+            + "recommendation_score, image_url, category_id, brand_id, created_at, updated_at";
+
+    private static final String CORE_DDL = "id BIGINT PRIMARY KEY, name VARCHAR(200), sku VARCHAR(50), "
+            + "price DECIMAL(10,2), compare_at_price DECIMAL(10,2), cost_price DECIMAL(10,2), stock_quantity INT, "
+            + "low_stock_threshold INT, weight DOUBLE, dimensions VARCHAR(255), is_active BOOLEAN, is_featured BOOLEAN, "
+            + "is_digital BOOLEAN, requires_shipping BOOLEAN, seo_title VARCHAR(255), seo_description VARCHAR(255), "
+            + "view_count BIGINT, purchase_count BIGINT, average_rating DOUBLE, review_count INT, "
+            + "recommendation_score DOUBLE, image_url VARCHAR(255), category_id BIGINT, brand_id BIGINT, "
+            + "created_at TIMESTAMP, updated_at TIMESTAMP";
+
+    private static final String CONTENT_COLUMNS = "description, ai_generated_description, tags, ai_tags, ai_embedding";
+
+    private static final String CONTENT_DDL = "description CLOB, ai_generated_description CLOB, tags CLOB, "
+            + "ai_tags CLOB, ai_embedding CLOB";
+
+    private Connection connection;
+    private PreparedStatement legacyLoad;
+    private PreparedStatement splitLoad;
+    private final Random random = new Random(42);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ReadCounters {
+        public long bytesRead;
+        public long reservations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesRead = 0;
+            reservations = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reservation-read;DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE products_legacy (" + CORE_DDL + ", " + CONTENT_DDL + ")");
+            ddl.execute("CREATE TABLE product_content (id BIGINT PRIMARY KEY, " + CONTENT_DDL + ")");
+            ddl.execute("CREATE TABLE products (" + CORE_DDL + ", content_id BIGINT)");
+        }
+
+        String corePlaceholders = "?, ".repeat(26);
+        try (PreparedStatement legacy = connection.prepareStatement("INSERT INTO products_legacy (" + CORE_COLUMNS
+                     + ", " + CONTENT_COLUMNS + ") VALUES (" + corePlaceholders + "?, ?, ?, ?, ?)");
+             PreparedStatement content = connection.prepareStatement("INSERT INTO product_content (id, "
+                     + CONTENT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement split = connection.prepareStatement("INSERT INTO products (" + CORE_COLUMNS
+                     + ", content_id) VALUES (" + corePlaceholders + "?)")) {
+            Random data = new Random(7);
+            for (long id = 1; id <= PRODUCTS; id++) {
+                Object[] core = coreRow(id);
+                String[] heavy = { text(data, 1_500), text(data, 2_000), text(data, 200), text(data, 200), embedding(data) };
+                for (int i = 0; i < core.length; i++) {
+                    legacy.setObject(i + 1, core[i]);
+                    split.setObject(i + 1, core[i]);
+                }
+                content.setLong(1, id);
+                for (int i = 0; i < heavy.length; i++) {
+                    legacy.setString(core.length + i + 1, heavy[i]);
+                    content.setString(i + 2, heavy[i]);
+                }
+                split.setLong(core.length + 1, id);
+                legacy.addBatch();
+                content.addBatch();
+                split.addBatch();
+            }
+            legacy.executeBatch();
+            content.executeBatch();
+            split.executeBatch();
+        }
+
+        legacyLoad = connection.prepareStatement("SELECT " + CORE_COLUMNS + ", " + CONTENT_COLUMNS
+                + " FROM products_legacy WHERE id = ?");
+        splitLoad = connection.prepareStatement("SELECT " + CORE_COLUMNS + ", content_id FROM products WHERE id = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Before: the whole row, text and embedding included
+     */
+    @Benchmark
+    public long legacyRowLoad(ReadCounters counters) throws SQLException {
+        return load(legacyLoad, counters);
+    }
+
+    /**
+     * After: core row plus the content_id key
+     */
+    @Benchmark
+    public long splitCoreLoad(ReadCounters counters) throws SQLException {
+        return load(splitLoad, counters);
+    }
+
+    private long load(PreparedStatement statement, ReadCounters counters) throws SQLException {
+        statement.setLong(1, 1 + random.nextInt(PRODUCTS));
+        long bytes = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    bytes += size(rs.getObject(i) instanceof Clob ? rs.getString(i) : rs.getObject(i));
+                }
+            }
+        }
+        counters.bytesRead += bytes;
+        counters.reservations++;
+        return bytes;
+    }
+
+    private static long size(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof Integer) {
+            return 4;
+        }
+        return 8;
+    }
+
+    private static Object[] coreRow(long id) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return new Object[] { id, "Product " + id, "SKU-" + id, new BigDecimal("199.00"),
+                new BigDecimal("249.00"), new BigDecimal("120.00"), 100, 10, 1.2, "10x20x5",
+                true, false, false, true, "Product " + id, "Buy product " + id, 0L, 0L, 4.5, 12, 0.0,
+                "https://cdn.example.com/p/" + id + ".jpg", 1L, 1L, now, now };
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(7) == 0) {
+                builder.append(' ');
+            }
+        }
+        return builder.substring(0, length);
+    }
+
+    private static String embedding(Random random) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 1536; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(random.nextFloat() * 2 - 1);
+        }
+        return builder.append(']').toString();
+    }
+}
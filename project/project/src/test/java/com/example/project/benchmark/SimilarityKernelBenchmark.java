@@ -0,0 +1,149 @@
+package com.example.project.benchmark;
+
+import com.example.project.service.ai.SimilarityKernel;
+import com.example.project.service.ai.SimilarityKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cosine similarity at embedding size: the former VectorStoreService implementation (boxed List&lt;Double&gt;,
+ * Math.pow, both norms recomputed per call) against the float[] kernels, scalar and Vector API.
+ * Pair benchmarks compare one similarity; topK benchmarks score a query against every row and keep the best 10,
+ * the legacy one by sorting boxed scores, the kernel ones with {@link VectorMatrix}.
+ * The fork enables jdk.incubator.vector; vectorApi* fall back to scalar (see the logged kernel) without it.
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt; org.openjdk.jmh.Main SimilarityKernelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimilarityKernelBenchmark {
+
+    private static final int K = 10;
+
+    @Param({ "1536" })
+    public int dimension;
+
+    @Param({ "2000" })
+    public int rows;
+
+    private List<Double> legacyQuery;
+    private List<List<Double>> legacyRows;
+    private float[] query;
+    private float[] row;
+    private VectorMatrix scalarMatrix;
+    private VectorMatrix vectorApiMatrix;
+    private final SimilarityKernel scalar = SimilarityKernels.scalar();
+    private final SimilarityKernel vectorApi = SimilarityKernels.preferred();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        query = vector(random);
+        legacyQuery = boxed(query);
+        scalarMatrix = new VectorMatrix(dimension, rows, scalar);
+        vectorApiMatrix = new VectorMatrix(dimension, rows, vectorApi);
+        legacyRows = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            float[] vector = vector(random);
+            scalarMatrix.add(vector);
+            vectorApiMatrix.add(vector);
+            legacyRows.add(boxed(vector));
+        }
+        row = vector(random);
+    }
+
+    @Benchmark
+    public double legacyPair() {
+        return legacyCosine(legacyQuery, legacyRows.get(0));
+    }
+
+    @Benchmark
+    public double scalarPair() {
+        return scalarMatrix.cosine(query, 0);
+    }
+
+    @Benchmark
+    public double vectorApiPair() {
+        return vectorApiMatrix.cosine(query, 0);
+    }
+
+    @Benchmark
+    public float vectorApiDot() {
+        return vectorApi.dot(query, row);
+    }
+
+    @Benchmark
+    public float scalarDot() {
+        return scalar.dot(query, row);
+    }
+
+    @Benchmark
+    public List<Integer> legacyTopK() {
+        List<double[]> scored = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            scored.add(new double[] { legacyCosine(legacyQuery, legacyRows.get(i)), i });
+        }
+        scored.sort((a, b) -> Double.compare(b[0], a[0]));
+        List<Integer> top = new ArrayList<>(K);
+        for (int i = 0; i < K; i++) {
+            top.add((int) scored.get(i)[1]);
+        }
+        return top;
+    }
+
+    @Benchmark
+    public VectorMatrix.TopK scalarTopK() {
+        return scalarMatrix.topK(query, K);
+    }
+
+    @Benchmark
+    public VectorMatrix.TopK vectorApiTopK() {
+        return vectorApiMatrix.topK(query, K);
+    }
+
+    // VectorStoreService.cosineSimilarity before the kernels
+    private static double legacyCosine(List<Double> vector1, List<Double> vector2) {
+        double dotProduct = 0.0;
+        double norm1 = 0.0;
+        double norm2 = 0.0;
+        for (int i = 0; i < vector1.size(); i++) {
+            dotProduct += vector1.get(i) * vector2.get(i);
+            norm1 += Math.pow(vector1.get(i), 2);
+            norm2 += Math.pow(vector2.get(i), 2);
+        }
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    private float[] vector(Random random) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static List<Double> boxed(float[] vector) {
+        List<Double> boxed = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            boxed.add((double) value);
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.project.benchmark;
+
+import com.example.project.entity.Product;
+import com.example.project.service.catalog.ProductSearchIndex;
+import com.example.project.util.TextAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-document and per-query cost of catalog text analysis.
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt; org.openjdk.jmh.Main TextAnalyzerBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextAnalyzerBenchmark {
+
+    private static final String[] WORDS = {
+            "Điện", "thoại", "Samsung", "Galaxy", "màn", "hình", "chính", "hãng", "Tai", "nghe",
+            "không", "dây", "Bluetooth", "sạc", "nhanh", "Máy", "tính", "xách", "tay", "bàn", "phím",
+            "chuột", "Ốp", "lưng", "đồng", "hồ", "thông", "minh", "pin", "trâu", "camera", "siêu", "nét"
+    };
+
+    private String name;
+    private String description;
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        name = sentence(random, 6);
+        description = sentence(random, 80);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Product product = new Product(sentence(random, 6), sentence(random, 40), "SKU-" + i, BigDecimal.TEN);
+            product.setId((long) i + 1);
+            products.add(product);
+        }
+        index = new ProductSearchIndex();
+        index.rebuild(products);
+    }
+
+    /**
+     * Fold and tokenize one product into a streaming sink, no per-token allocation
+     */
+    @Benchmark
+    public void documentTokensStreaming(Blackhole blackhole) {
+        TextAnalyzer analyzer = TextAnalyzer.local();
+        analyzer.tokens(name, (buffer, offset, length) -> blackhole.consume(length));
+        analyzer.tokens(description, (buffer, offset, length) -> blackhole.consume(length));
+    }
+
+    /**
+     * Fold, tokenize and emit trigrams for one product
+     */
+    @Benchmark
+    public void documentTrigramsStreaming(Blackhole blackhole) {
+        TextAnalyzer analyzer = TextAnalyzer.local();
+        analyzer.ngrams(name, 3, (buffer, offset, length) -> blackhole.consume(buffer[offset]));
+        analyzer.ngrams(description, 3, (buffer, offset, length) -> blackhole.consume(buffer[offset]));
+    }
+
+    /**
+     * Tokens as Strings, the form the inverted index keeps
+     */
+    @Benchmark
+    public List<String> documentTokenStrings() {
+        List<String> tokens = TextAnalyzer.tokenize(description);
+        tokens.addAll(TextAnalyzer.tokenize(name));
+        return tokens;
+    }
+
+    @Benchmark
+    public String queryNormalize() {
+        return TextAnalyzer.normalize("Điện thoại Samsung");
+    }
+
+    @Benchmark
+    public ProductSearchIndex.RankedHits querySearchUnaccented() {
+        return index.search("dien thoai samsung");
+    }
+
+    /**
+     * Misspelled term: resolved through trigram expansion
+     */
+    @Benchmark
+    public ProductSearchIndex.RankedHits querySearchFuzzy() {
+        return index.search("bluetoot samsug");
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return out.toString();
+    }
+}
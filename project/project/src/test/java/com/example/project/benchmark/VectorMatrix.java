@@ -0,0 +1,165 @@
+package com.example.project.benchmark;
+
+import com.example.project.service.ai.SimilarityKernel;
+import com.example.project.service.ai.SimilarityKernels;
+
+import java.util.Arrays;
+
+/**
+ * Vectors of one dimension packed row after row in a single float array, with each row's norm computed once
+ * when it is added. Exact cosine top-k scores every row with one batched kernel pass and keeps the best k
+ * in a bounded heap, with no per-row allocation. Not thread-safe for writes.
+ * The exact baseline for the similarity and quantization benchmarks; the search path uses HnswIndex.
+ */
+public class VectorMatrix {
+
+    private final int dimension;
+    private final SimilarityKernel kernel;
+    private float[] data;
+    private float[] norms;
+    private int rows;
+
+    public VectorMatrix(int dimension, int capacity) {
+        this(dimension, capacity, SimilarityKernels.preferred());
+    }
+
+    public VectorMatrix(int dimension, int capacity, SimilarityKernel kernel) {
+        if (dimension < 1) {
+            throw new IllegalArgumentException("Dimension must be at least 1");
+        }
+        this.dimension = dimension;
+        this.kernel = kernel;
+        this.data = new float[Math.max(1, capacity) * dimension];
+        this.norms = new float[Math.max(1, capacity)];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Append a row
+     *
+     * @return its row number
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + ", got " + vector.length);
+        }
+        if (rows == norms.length) {
+            norms = Arrays.copyOf(norms, rows * 2);
+            data = Arrays.copyOf(data, rows * 2 * dimension);
+        }
+        System.arraycopy(vector, 0, data, rows * dimension, dimension);
+        norms[rows] = (float) Math.sqrt(kernel.dot(vector, vector));
+        return rows++;
+    }
+
+    /**
+     * Cosine similarity of the query with one row, 0 if either is a zero vector
+     */
+    public float cosine(float[] query, int row) {
+        float denominator = (float) Math.sqrt(kernel.dot(query, query)) * norms[row];
+        return denominator == 0 ? 0 : kernel.dot(query, 0, data, row * dimension, dimension) / denominator;
+    }
+
+    /**
+     * The k rows most similar to the query by cosine, most similar first. Zero rows score 0.
+     */
+    public TopK topK(float[] query, int k) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected a query of dimension " + dimension + ", got " + query.length);
+        }
+        int size = Math.min(k, rows);
+        TopK top = new TopK(size);
+        if (size == 0) {
+            return top;
+        }
+        float queryNorm = (float) Math.sqrt(kernel.dot(query, query));
+        for (int row = 0; row < rows; row++) {
+            float denominator = queryNorm * norms[row];
+            float score = kernel.dot(query, 0, data, row * dimension, dimension);
+            top.offer(row, denominator == 0 ? 0 : score / denominator);
+        }
+        top.sort();
+        return top;
+    }
+
+    // Inner classes
+    /**
+     * Row numbers and scores, best first once complete; while filling, a min-heap on score
+     */
+    public static class TopK {
+        private final int[] rows;
+        private final float[] scores;
+        private int size;
+
+        TopK(int capacity) {
+            this.rows = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        public int size() { return size; }
+        public int getRow(int i) { return rows[i]; }
+        public float getScore(int i) { return scores[i]; }
+
+        void offer(int row, float score) {
+            if (size < rows.length) {
+                rows[size] = row;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (rows.length > 0 && score > scores[0]) {
+                rows[0] = row;
+                scores[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        // Heap sort in place: repeatedly move the worst to the end, leaving best first
+        void sort() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= end) {
+                    return;
+                }
+                int smallest = left + 1 < end && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.project.benchmark;
+
+import com.example.project.entity.Product;
+import com.example.project.service.ai.VectorStoreService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to a searchable product vector index at startup.
+ * Cold: parse every product's ai_embedding JSON and insert it into a new HNSW graph (what a boot without
+ * persistence does). Restore: map the snapshot segments written by a previous run. Restore + reconcile: the
+ * actual boot path, restore followed by the catalog rebuild, which only hashes the unchanged embedding texts.
+ * Sizes are kept small enough for a single-core run; raise products and dimension (1536 for the production
+ * embedding model) to see the gap at catalog scale, where cold grows with insert cost and restore with bytes read.
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt; org.openjdk.jmh.Main VectorStoreStartupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class VectorStoreStartupBenchmark {
+
+    @Param({ "2000" })
+    public int products;
+
+    @Param({ "384" })
+    public int dimension;
+
+    private List<Product> catalog;
+    private Path snapshotDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            Product product = new Product("Product " + id, "Description of product " + id, "SKU-" + id, new BigDecimal("99.00"));
+            product.setId(id);
+            product.setIsActive(true);
+            List<Double> embedding = new ArrayList<>(dimension);
+            for (int i = 0; i < dimension; i++) {
+                embedding.add(random.nextGaussian());
+            }
+            // Same text form ProductEnrichmentQueue stores
+            product.setAiEmbedding(embedding.toString());
+            catalog.add(product);
+        }
+
+        snapshotDir = Files.createTempDirectory("vector-store-bench");
+        VectorStoreService previousRun = service(snapshotDir.toString());
+        previousRun.restore();
+        previousRun.rebuild(catalog);
+        previousRun.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(snapshotDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int coldJsonRebuild() {
+        VectorStoreService service = service("");
+        service.rebuild(catalog);
+        return service.size();
+    }
+
+    @Benchmark
+    public int snapshotRestore() {
+        VectorStoreService service = service(snapshotDir.toString());
+        service.restore();
+        service.close();
+        return service.size();
+    }
+
+    @Benchmark
+    public int snapshotRestoreAndReconcile() {
+        VectorStoreService service = service(snapshotDir.toString());
+        service.restore();
+        service.rebuild(catalog);
+        service.close();
+        return service.size();
+    }
+
+    private static VectorStoreService service(String directory) {
+        return new VectorStoreService(16, 200, 64, directory, 10_000, "none", 5000, 4, 8, 16);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.project.repository;
+
+import com.example.project.dto.ProductSimpleResponse;
+import com.example.project.entity.Brand;
+import com.example.project.entity.Category;
+import com.example.project.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The listing projection must cost a constant number of statements per page,
+ * no matter how many distinct categories and brands the page touches.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductRepositoryQueryCountTest {
+
+	private static final int PAGE_SIZE = 50;
+
+	// Skip the startup seed data so the page contains only the products created here
+	@MockitoBean(name = "initData")
+	private CommandLineRunner initData;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final List<Long> productIds = new ArrayList<>();
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			Category category = entityManager.persist(new Category("Category " + i, null));
+			Brand brand = entityManager.persist(new Brand("Brand " + i, null));
+			Product product = new Product("Product " + i, "Long description " + i, "SKU-" + i, BigDecimal.valueOf(10 + i));
+			product.setCategory(category);
+			product.setBrand(brand);
+			productIds.add(entityManager.persist(product).getId());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void activeListingPageIsOneSelectPlusCount() {
+		Page<ProductSimpleResponse> page = productRepository.findActiveSimple(PageRequest.of(0, PAGE_SIZE, Sort.by("price")));
+
+		assertThat(page.getContent()).hasSize(PAGE_SIZE);
+		assertThat(page.getContent()).allSatisfy(card -> {
+			assertThat(card.getCategoryName()).startsWith("Category ");
+			assertThat(card.getBrandName()).startsWith("Brand ");
+		});
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void indexedPageIsOneSelect() {
+		List<ProductSimpleResponse> cards = productRepository.findSimpleByIdIn(productIds);
+
+		assertThat(cards).hasSize(PAGE_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+}
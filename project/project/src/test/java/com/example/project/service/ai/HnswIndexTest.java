@@ -0,0 +1,185 @@
+package com.example.project.service.ai;
+
+import com.example.project.service.ai.VectorStoreService.DocumentData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Recall of the HNSW graph against brute force, through inserts, deletes and the ordinal reuse that follows them.
+ */
+class HnswIndexTest {
+
+	private static final int DIMENSION = 32;
+	private static final int K = 10;
+
+	private final Random random = new Random(7);
+
+	@Test
+	void searchFindsTheExactNearestNeighbours() {
+		HnswIndex index = new HnswIndex(16, 200, 64);
+		Map<String, float[]> vectors = insert(index, 0, 2_000);
+
+		assertThat(index.size()).isEqualTo(2_000);
+		assertThat(recall(index, vectors)).isGreaterThanOrEqualTo(0.95);
+	}
+
+	@Test
+	void deletedDocumentsNeverMatchAndRecallHolds() {
+		HnswIndex index = new HnswIndex(16, 200, 64);
+		Map<String, float[]> vectors = insert(index, 0, 2_000);
+		Set<String> deleted = new HashSet<>();
+		for (int i = 0; i < 2_000; i += 2) {
+			String id = "doc-" + i;
+			assertThat(index.remove(id)).isTrue();
+			vectors.remove(id);
+			deleted.add(id);
+		}
+
+		assertThat(index.size()).isEqualTo(1_000);
+		assertThat(index.remove("doc-0")).isFalse();
+		for (float[] query : queries(50)) {
+			for (HnswIndex.Match match : index.search(query, K, null)) {
+				assertThat(deleted).doesNotContain(match.getDocument().getId());
+			}
+		}
+		assertThat(recall(index, vectors)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void reusedOrdinalsNeverHideLiveDocuments() {
+		HnswIndex index = new HnswIndex(8, 100, 64);
+		Map<String, float[]> vectors = insert(index, 0, 1_000);
+		// Enough churn for several sweeps, so most new documents take a deleted document's ordinal
+		int nextId = 1_000;
+		for (int round = 0; round < 3_000; round++) {
+			String victim = new ArrayList<>(vectors.keySet()).get(random.nextInt(vectors.size()));
+			index.remove(victim);
+			vectors.remove(victim);
+			vectors.putAll(insert(index, nextId++, 1));
+		}
+
+		assertThat(index.size()).isEqualTo(vectors.size());
+		// Every live document is found by its own vector
+		for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+			List<HnswIndex.Match> matches = index.search(entry.getValue(), 1, null);
+			assertThat(matches).hasSize(1);
+			assertThat(matches.get(0).getDocument().getId()).isEqualTo(entry.getKey());
+		}
+		assertThat(recall(index, vectors)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void reusedFullVectorSlotsRerankTheirOwnDocuments() {
+		// Quantized from the first 200 inserts; re-ranking reads each candidate's full vector from its slot
+		HnswIndex index = new HnswIndex(8, 100, 64, new HnswIndex.Quantization(HnswIndex.Quantization.Mode.INT8, 200, 4, 8, null));
+		Map<String, float[]> vectors = insert(index, 0, 500);
+		int nextId = 500;
+		for (int round = 0; round < 1_500; round++) {
+			String victim = new ArrayList<>(vectors.keySet()).get(random.nextInt(vectors.size()));
+			index.remove(victim);
+			vectors.remove(victim);
+			vectors.putAll(insert(index, nextId++, 1));
+		}
+
+		assertThat(index.isQuantized()).isTrue();
+		for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+			HnswIndex.Match best = index.search(entry.getValue(), 1, null).get(0);
+			assertThat(best.getDocument().getId()).isEqualTo(entry.getKey());
+			assertThat(best.getScore()).isCloseTo(1.0, within(1e-4));
+		}
+		index.close();
+	}
+
+	@Test
+	void upsertReplacesTheVectorOfAnExistingId() {
+		HnswIndex index = new HnswIndex(16, 200, 64);
+		insert(index, 0, 200);
+		float[] replacement = gaussian();
+		index.upsert(new DocumentData("doc-5", "Replaced", Map.of()), replacement);
+
+		assertThat(index.size()).isEqualTo(200);
+		HnswIndex.Match best = index.search(replacement, 1, null).get(0);
+		assertThat(best.getDocument().getId()).isEqualTo("doc-5");
+		assertThat(best.getDocument().getContent()).isEqualTo("Replaced");
+		assertThat(best.getScore()).isCloseTo(1.0, within(1e-4));
+	}
+
+	@Test
+	void filterRestrictsMatches() {
+		HnswIndex index = new HnswIndex(16, 200, 64);
+		insert(index, 0, 500);
+
+		List<HnswIndex.Match> matches = index.search(gaussian(), K,
+				document -> Integer.parseInt(document.getId().substring(4)) % 50 == 0);
+
+		assertThat(matches).hasSize(K);
+		assertThat(matches).allSatisfy(match ->
+				assertThat(Integer.parseInt(match.getDocument().getId().substring(4)) % 50).isZero());
+	}
+
+	private Map<String, float[]> insert(HnswIndex index, int from, int count) {
+		Map<String, float[]> inserted = new LinkedHashMap<>();
+		for (int i = from; i < from + count; i++) {
+			float[] vector = gaussian();
+			index.upsert(new DocumentData("doc-" + i, "Document " + i, Map.of()), vector);
+			inserted.put("doc-" + i, vector);
+		}
+		return inserted;
+	}
+
+	// Share of the exact top k (by cosine) the index returns, over random queries
+	private double recall(HnswIndex index, Map<String, float[]> vectors) {
+		int hits = 0;
+		List<float[]> queries = queries(100);
+		for (float[] query : queries) {
+			Set<String> expected = new HashSet<>();
+			vectors.entrySet().stream()
+					.sorted(Comparator.comparingDouble((Map.Entry<String, float[]> e) -> -cosine(query, e.getValue())))
+					.limit(K)
+					.forEach(e -> expected.add(e.getKey()));
+			for (HnswIndex.Match match : index.search(query, K, null)) {
+				if (expected.contains(match.getDocument().getId())) {
+					hits++;
+				}
+			}
+		}
+		return hits / (double) (queries.size() * K);
+	}
+
+	private List<float[]> queries(int count) {
+		List<float[]> queries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			queries.add(gaussian());
+		}
+		return queries;
+	}
+
+	private float[] gaussian() {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static double cosine(float[] a, float[] b) {
+		double dot = 0, normA = 0, normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return dot / Math.sqrt(normA * normB);
+	}
+}
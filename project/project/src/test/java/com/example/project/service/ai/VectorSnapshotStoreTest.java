@@ -0,0 +1,144 @@
+package com.example.project.service.ai;
+
+import com.example.project.service.ai.VectorStoreService.DocumentData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recovery from a snapshot plus write-ahead log. A crash is simulated by abandoning the store without closing
+ * it: records have reached the OS, nothing else is flushed or cleaned up.
+ */
+class VectorSnapshotStoreTest {
+
+	private static final int DIMENSION = 16;
+
+	@TempDir
+	Path directory;
+
+	private final Random random = new Random(11);
+
+	@Test
+	void restoresSnapshotAndLogAfterCrashWithTornRecord() throws IOException {
+		VectorSnapshotStore store = new VectorSnapshotStore(directory);
+		HnswIndex index = newIndex();
+		store.restore(index);
+		for (int i = 0; i < 20; i++) {
+			put(index, store, "doc-" + i);
+		}
+		store.checkpoint(index);
+		// Logged after the snapshot
+		float[] replaced = put(index, store, "doc-3");
+		put(index, store, "doc-20");
+		remove(index, store, "doc-7");
+		DocumentData renamed = new DocumentData("doc-4", "Renamed", Map.of("type", "product"));
+		index.updateDocument(renamed);
+		store.logDocument(renamed);
+		long intact = Files.size(wal(1));
+		// A crash in the middle of the next record: length and checksum written, payload cut short
+		Files.write(wal(1), ByteBuffer.allocate(14).putInt(200).putInt(12345).array(), StandardOpenOption.APPEND);
+
+		HnswIndex restored = newIndex();
+		VectorSnapshotStore reopened = new VectorSnapshotStore(directory);
+		int replayed = reopened.restore(restored);
+
+		assertThat(replayed).isEqualTo(4);
+		assertThat(Files.size(wal(1))).isEqualTo(intact);
+		assertThat(restored.ids()).isEqualTo(index.ids());
+		assertThat(restored.ids()).contains("doc-20").doesNotContain("doc-7");
+		assertThat(restored.get("doc-4").getContent()).isEqualTo("Renamed");
+		assertThat(restored.search(replaced, 1, null).get(0).getDocument().getId()).isEqualTo("doc-3");
+
+		// New records follow the last intact one and survive the next crash
+		put(restored, reopened, "doc-21");
+		HnswIndex again = newIndex();
+		assertThat(new VectorSnapshotStore(directory).restore(again)).isEqualTo(5);
+		assertThat(again.ids()).isEqualTo(restored.ids());
+	}
+
+	@Test
+	void replaysEveryLogWhenCrashingBeforeTheSnapshotIsCurrent() throws IOException {
+		VectorSnapshotStore store = new VectorSnapshotStore(directory);
+		HnswIndex index = newIndex();
+		store.restore(index);
+		for (int i = 0; i < 10; i++) {
+			put(index, store, "doc-" + i);
+		}
+		long generation = store.rotate();
+		put(index, store, "doc-10");
+		remove(index, store, "doc-2");
+		// Crash before snapshot(index, generation) replaced CURRENT: generation 0 plus both logs
+
+		HnswIndex restored = newIndex();
+		VectorSnapshotStore reopened = new VectorSnapshotStore(directory);
+		assertThat(reopened.restore(restored)).isEqualTo(12);
+		assertThat(reopened.getGeneration()).isZero();
+		assertThat(restored.ids()).isEqualTo(index.ids());
+
+		// Appends go on in the newest log; the next checkpoint moves past it
+		put(restored, reopened, "doc-11");
+		reopened.checkpoint(restored);
+		assertThat(reopened.getGeneration()).isEqualTo(generation + 1);
+		assertThat(Files.exists(wal(0))).isFalse();
+		assertThat(Files.exists(wal(generation))).isFalse();
+		HnswIndex again = newIndex();
+		assertThat(new VectorSnapshotStore(directory).restore(again)).isZero();
+		assertThat(again.ids()).isEqualTo(restored.ids());
+	}
+
+	@Test
+	void snapshotTakenAfterRotationToleratesReplayingItsOwnChanges() throws IOException {
+		VectorSnapshotStore store = new VectorSnapshotStore(directory);
+		HnswIndex index = newIndex();
+		store.restore(index);
+		for (int i = 0; i < 10; i++) {
+			put(index, store, "doc-" + i);
+		}
+		long generation = store.rotate();
+		// Applied and logged while the background snapshot is still to be written, so the snapshot holds them too
+		float[] replaced = put(index, store, "doc-1");
+		remove(index, store, "doc-5");
+		store.snapshot(index, generation);
+		put(index, store, "doc-5");
+
+		HnswIndex restored = newIndex();
+		VectorSnapshotStore reopened = new VectorSnapshotStore(directory);
+		assertThat(reopened.restore(restored)).isEqualTo(3);
+		assertThat(reopened.getGeneration()).isEqualTo(generation);
+		assertThat(restored.ids()).isEqualTo(index.ids());
+		assertThat(restored.search(replaced, 1, null).get(0).getDocument().getId()).isEqualTo("doc-1");
+	}
+
+	private float[] put(HnswIndex index, VectorSnapshotStore store, String id) throws IOException {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		DocumentData document = new DocumentData(id, "Content of " + id, Map.of("type", "product"));
+		index.upsert(document, vector);
+		store.logUpsert(document, vector);
+		return vector;
+	}
+
+	private static void remove(HnswIndex index, VectorSnapshotStore store, String id) throws IOException {
+		index.remove(id);
+		store.logRemove(id);
+	}
+
+	private Path wal(long generation) {
+		return directory.resolve("wal-" + generation + ".log");
+	}
+
+	private static HnswIndex newIndex() {
+		return new HnswIndex(8, 50, 32);
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.project.service.recommendation;
+
+import com.example.project.service.recommendation.ItemCooccurrenceIndex.Event;
+import com.example.project.service.recommendation.ItemCooccurrenceIndex.Neighbours;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.project.service.recommendation.ItemCooccurrenceIndex.PURCHASE_WEIGHT;
+import static com.example.project.service.recommendation.ItemCooccurrenceIndex.VIEW_WEIGHT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Drives {@link ItemCooccurrenceIndex#apply} directly with hand-built batches; no database involved.
+ */
+class ItemCooccurrenceIndexTest {
+
+	private static final long DAY = 86_400;
+
+	private ItemCooccurrenceIndex index;
+
+	@AfterEach
+	void stop() {
+		if (index != null) {
+			index.stop();
+		}
+	}
+
+	@Test
+	void ranksNeighboursByCountOverGeometricMeanOfTotals() {
+		index = new ItemCooccurrenceIndex(4, 10, Duration.ofDays(7), Duration.ofDays(3650));
+		index.apply(events(
+				view(1, 1, 0), view(1, 2, 10),
+				view(2, 1, 0), view(2, 3, 10),
+				view(3, 1, 0), view(3, 2, 10)));
+
+		Neighbours neighbours = index.getNeighbours(1);
+		assertThat(neighbours.size()).isEqualTo(2);
+		assertThat(neighbours.getProductId(0)).isEqualTo(2);
+		assertThat(neighbours.getScore(0)).isCloseTo((float) (2 / Math.sqrt(3 * 2)), within(1e-4f));
+		assertThat(neighbours.getProductId(1)).isEqualTo(3);
+		assertThat(neighbours.getScore(1)).isCloseTo((float) (1 / Math.sqrt(3 * 1)), within(1e-4f));
+		// Symmetric
+		assertThat(index.getNeighbours(3).getProductId(0)).isEqualTo(1);
+		assertThat(index.getNeighbours(4).size()).isZero();
+	}
+
+	@Test
+	void pairsTheWeakerInteractionOncePerUser() {
+		index = new ItemCooccurrenceIndex(2, 10, Duration.ofDays(7), Duration.ofDays(3650));
+		index.apply(events(view(1, 1, 0), view(1, 2, 10), view(1, 2, 20), purchase(1, 2, 30)));
+
+		// Repeating the view adds nothing and the purchase only raises product 2's own total
+		Neighbours neighbours = index.getNeighbours(1);
+		assertThat(neighbours.size()).isEqualTo(1);
+		assertThat(neighbours.getScore(0)).isCloseTo((float) (1 / Math.sqrt(1 * PURCHASE_WEIGHT)), within(1e-4f));
+	}
+
+	@Test
+	void ignoresPairsOutsideTheWindowInEitherDirection() {
+		index = new ItemCooccurrenceIndex(2, 10, Duration.ofSeconds(100), Duration.ofDays(3650));
+		// Purchases are read as their own stream, so a later batch can carry older events for the same user
+		index.apply(events(purchase(1, 2, 1_000)));
+		index.apply(events(view(1, 1, 0)));
+
+		assertThat(index.getNeighbours(1).size()).isZero();
+		assertThat(index.getNeighbours(2).size()).isZero();
+
+		index.apply(events(view(1, 3, 950)));
+
+		assertThat(index.getNeighbours(3).size()).isEqualTo(1);
+		assertThat(index.getNeighbours(3).getProductId(0)).isEqualTo(2);
+	}
+
+	@Test
+	void olderEventsDecayByHalfLife() {
+		index = new ItemCooccurrenceIndex(2, 10, Duration.ofDays(7), Duration.ofDays(1));
+		index.apply(events(view(1, 1, 0), view(1, 2, 10)));
+		index.apply(events(view(2, 1, DAY), view(2, 3, DAY + 10)));
+
+		// The second pair is one half-life newer, so it counts (almost exactly) twice
+		Neighbours neighbours = index.getNeighbours(1);
+		assertThat(neighbours.getProductId(0)).isEqualTo(3);
+		assertThat(neighbours.getScore(0)).isCloseTo((float) (2 / Math.sqrt(3 * 2)), within(1e-3f));
+		assertThat(neighbours.getProductId(1)).isEqualTo(2);
+		assertThat(neighbours.getScore(1)).isCloseTo((float) (1 / Math.sqrt(3 * 1)), within(1e-3f));
+	}
+
+	@Test
+	void movesTheLandmarkBeforeWeightsOverflow() {
+		// 1000 half-lives apart: 2^1000 fits a double, but its square does not
+		index = new ItemCooccurrenceIndex(2, 10, Duration.ofDays(7), Duration.ofSeconds(1));
+		index.apply(events(view(1, 1, 0), view(1, 2, 0)));
+		index.apply(events(view(2, 1, 1_000), view(2, 3, 1_000), view(3, 1, 1_000), view(3, 3, 1_000)));
+
+		Neighbours neighbours = index.getNeighbours(1);
+		assertThat(neighbours.getProductId(0)).isEqualTo(3);
+		assertThat(neighbours.getScore(0)).isCloseTo(1f, within(1e-3f));
+		assertThat(index.getNeighbours(3).getScore(0)).isCloseTo(1f, within(1e-3f));
+		assertThat(index.getProcessedEvents()).isEqualTo(6);
+	}
+
+	private static List<Event> events(Event... events) {
+		return new ArrayList<>(List.of(events));
+	}
+
+	private static Event view(long userId, long productId, long time) {
+		return new Event(userId, productId, time, VIEW_WEIGHT);
+	}
+
+	private static Event purchase(long userId, long productId, long time) {
+		return new Event(userId, productId, time, PURCHASE_WEIGHT);
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.project.service.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongDoubleHashMapTest {
+
+	@Test
+	void addSumsPerKeyAndSurvivesRehash() {
+		LongDoubleHashMap map = new LongDoubleHashMap(1);
+		for (long key = 1; key <= 5_000; key++) {
+			map.add(key, key);
+			map.add(key, 0.5);
+		}
+
+		assertThat(map.size()).isEqualTo(5_000);
+		for (long key = 1; key <= 5_000; key++) {
+			assertThat(map.get(key)).isEqualTo(key + 0.5);
+		}
+		assertThat(map.get(5_001)).isZero();
+	}
+
+	@Test
+	void forEachVisitsEveryEntryOnce() {
+		LongDoubleHashMap map = new LongDoubleHashMap(4);
+		for (long key = 1; key <= 100; key++) {
+			map.add(key * 1_000_003, key);
+		}
+		Map<Long, Double> seen = new HashMap<>();
+		map.forEach((key, value) -> assertThat(seen.put(key, value)).isNull());
+
+		assertThat(seen).hasSize(100).containsEntry(7_000_021L, 7.0);
+	}
+
+	@Test
+	void retainTopKeepsLargestSums() {
+		LongDoubleHashMap map = new LongDoubleHashMap(8);
+		for (long key = 1; key <= 100; key++) {
+			map.add(key, key);
+		}
+
+		map.retainTop(10);
+
+		assertThat(map.size()).isEqualTo(10);
+		for (long key = 91; key <= 100; key++) {
+			assertThat(map.get(key)).isEqualTo(key);
+		}
+		assertThat(map.get(90)).isZero();
+		// Still usable after shrinking
+		map.add(1, 2);
+		assertThat(map.size()).isEqualTo(11);
+		assertThat(map.get(1)).isEqualTo(2);
+	}
+
+	@Test
+	void retainTopBreaksTiesUpToTheLimit() {
+		LongDoubleHashMap map = new LongDoubleHashMap(8);
+		map.add(1, 9);
+		for (long key = 2; key <= 50; key++) {
+			map.add(key, 3);
+		}
+
+		map.retainTop(5);
+
+		assertThat(map.size()).isEqualTo(5);
+		assertThat(map.get(1)).isEqualTo(9);
+		int[] ties = new int[1];
+		map.forEach((key, value) -> {
+			if (value == 3) {
+				ties[0]++;
+			}
+		});
+		assertThat(ties[0]).isEqualTo(4);
+	}
+
+	@Test
+	void scaleMultipliesEverySum() {
+		LongDoubleHashMap map = new LongDoubleHashMap(4);
+		map.add(3, 8);
+		map.add(4, 2);
+
+		map.scale(0.25);
+
+		assertThat(map.get(3)).isEqualTo(2);
+		assertThat(map.get(4)).isEqualTo(0.5);
+	}
+
+	@Test
+	void rejectsNonPositiveKeys() {
+		LongDoubleHashMap map = new LongDoubleHashMap(4);
+
+		assertThatThrownBy(() -> map.add(0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> map.add(-2, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}